@@ -18,7 +18,7 @@ public class CorsConfig {
         cfg.setAllowedOriginPatterns(Collections.singletonList("*"));
         cfg.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         cfg.setAllowedHeaders(Collections.singletonList("*"));
-        cfg.setExposedHeaders(Collections.singletonList("X-Trace-Id"));
+        cfg.setExposedHeaders(Arrays.asList("X-Trace-Id", "ETag", "X-Turn-Id"));
         cfg.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
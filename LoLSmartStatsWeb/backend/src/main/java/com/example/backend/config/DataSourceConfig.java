@@ -0,0 +1,88 @@
+package com.example.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 数据源：配置了 app.datasource.replica.url 时读写分离，否则只有 primary 一个连接池。
+ * <p>
+ * - primary：spring.datasource.*，连接池参数 spring.datasource.hikari.*；
+ * - replica：app.datasource.replica.*（用户名/密码默认同 primary），连接池参数 app.datasource.replica.hikari.*；
+ * - 只读事务（@Transactional(readOnly = true)）走 replica，其余（读写事务、无事务）走 primary。
+ * 两种模式外面都包一层 LazyConnectionDataSourceProxy：真正执行语句时才从池里取连接，
+ * 路由时已知道只读标记；内存命中（详情缓存、姓名索引、ETag 304 等）虽在只读事务里，也不借连接、不发 autocommit / COMMIT。
+ * 连接池各自命名（primary / replica），actuator 的 hikaricp 指标按 pool 标签区分。
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica.url")
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:}") String username,
+                                              @Value("${app.datasource.replica.password:}") String password) {
+        HikariDataSource ds = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        ds.setPoolName("replica");
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaProvider) {
+        DataSource replica = replicaProvider.getIfAvailable();
+        if (replica == null) return new LazyConnectionDataSourceProxy(primary);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    enum Route { PRIMARY, REPLICA }
+
+    /**
+     * 按当前事务的只读标记选择连接池。
+     */
+    static class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isActualTransactionActive()
+                    && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? Route.REPLICA : Route.PRIMARY;
+        }
+    }
+}
@@ -7,14 +7,16 @@ import com.example.backend.dto.request.ChatStreamRequest;
 import com.example.backend.exception.BizException;
 import com.example.backend.service.chat.ChatHistoryService;
 import com.example.backend.service.chat.ChatService;
+import com.example.backend.service.chat.ChatTurn;
+import com.example.backend.service.chat.ChatStreamEmitters;
 import com.example.backend.util.TraceIdUtil;
 import com.example.backend.vo.ApiResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.MediaType;
-import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import reactor.core.publisher.Flux;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import java.time.Instant;
 import java.util.Map;
@@ -23,6 +25,8 @@ import java.util.Map;
 @RequestMapping("/api/v1/chat")
 public class ChatController {
 
+    private static final String TURN_ID_HEADER = "X-Turn-Id";
+
     private final ChatService chatService;
     private final ChatHistoryService chatHistoryService;
 
@@ -33,24 +37,13 @@ public class ChatController {
 
     /**
      * 2.2 流式问答：SSE over POST - 允许匿名访问
+     * 每帧带 id（从 1 递增），响应头 X-Turn-Id 为本轮 turnId，断线后用 GET /stream/{turnId} 续传。
+     * 同一会话里重复提交同一问题且上一轮仍在进行时，接到那一轮上（X-Turn-Id 为那一轮的 turnId）。
      */
     @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<String>> stream(@Valid @RequestBody ChatStreamRequest req,
+    public ResponseEntity<ResponseBodyEmitter> stream(@Valid @RequestBody ChatStreamRequest req,
             Authentication authentication) {
-        // 允许匿名访问：如果用户已登录则使用用户ID，否则使用匿名ID
-        String userId;
-        if (authentication != null && authentication.isAuthenticated() &&
-                authentication.getName() != null && !authentication.getName().isBlank()) {
-            userId = authentication.getName();
-        } else {
-            // 匿名用户：使用sessionId或生成临时ID
-            String sessionId = req.getSessionId();
-            if (sessionId != null && !sessionId.isBlank()) {
-                userId = "anonymous_" + sessionId;
-            } else {
-                userId = "anonymous_temp_" + System.currentTimeMillis();
-            }
-        }
+        String userId = streamUserId(authentication, req.getSessionId());
 
         String token = extractBearerToken();
         System.out.println("=== Chat Stream Request ===");
@@ -60,8 +53,45 @@ public class ChatController {
         System.out.println("Message: " + req.getMessage());
         System.out.println("=== End Stream Request ===");
 
-        return chatService.streamToAgent(token, userId, req.getSessionId(), req.getMessage(), req.getMode(),
-                req.getContext());
+        ChatTurn turn = chatService.openStream(token, userId, req.getSessionId(), req.getMessage(), req.getMode(),
+                req.getContext(), req.getCoalesceMs(), req.getCoalesceMaxChars());
+        return ResponseEntity.ok()
+                .header(TURN_ID_HEADER, turn.turnId())
+                .body(ChatStreamEmitters.raw(turn.frames(0)));
+    }
+
+    /**
+     * 2.2.2 接入会话中进行中的一轮（如新开的标签页）：共享同一个 agent 调用，从头补发后接实时帧 - 允许匿名访问
+     */
+    @GetMapping(value = "/stream/active", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> attach(@RequestParam String sessionId, Authentication authentication) {
+        String userId = streamUserId(authentication, sessionId);
+        ChatTurn turn = chatService.attach(userId, sessionId);
+        return ResponseEntity.ok()
+                .header(TURN_ID_HEADER, turn.turnId())
+                .body(ChatStreamEmitters.raw(turn.frames(0)));
+    }
+
+    /**
+     * 2.2.1 断线续传：接回进行中（或刚结束）的一轮，补发 Last-Event-ID 之后的帧 - 允许匿名访问（匿名需带 sessionId）
+     */
+    @GetMapping(value = "/stream/{turnId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> resume(@PathVariable String turnId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId,
+            @RequestParam(required = false) String sessionId,
+            Authentication authentication) {
+        String userId = streamUserId(authentication, sessionId);
+        String raw = (lastEventIdHeader != null && !lastEventIdHeader.isBlank()) ? lastEventIdHeader : lastEventId;
+        long after;
+        try {
+            after = (raw == null || raw.isBlank()) ? 0 : Long.parseLong(raw.trim());
+        } catch (NumberFormatException e) {
+            throw new BizException("INVALID_ARGUMENT", "Last-Event-ID 必须是整数");
+        }
+        return ResponseEntity.ok()
+                .header(TURN_ID_HEADER, turnId)
+                .body(ChatStreamEmitters.raw(chatService.resume(userId, turnId, after)));
     }
 
     /**
@@ -145,6 +175,20 @@ public class ChatController {
         return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
     }
 
+    /**
+     * 流式接口的用户ID：已登录用用户ID，否则按 sessionId 生成匿名ID
+     */
+    private static String streamUserId(Authentication authentication, String sessionId) {
+        if (authentication != null && authentication.isAuthenticated() &&
+                authentication.getName() != null && !authentication.getName().isBlank()) {
+            return authentication.getName();
+        }
+        if (sessionId != null && !sessionId.isBlank()) {
+            return "anonymous_" + sessionId;
+        }
+        return "anonymous_temp_" + System.currentTimeMillis();
+    }
+
     /**
      * 获取当前用户ID - 需要登录（用于需要认证的接口）
      */
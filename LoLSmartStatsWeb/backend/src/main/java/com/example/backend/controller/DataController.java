@@ -1,12 +1,20 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.request.ChampionStatsRequest;
 import com.example.backend.dto.request.DataOptionsRequest;
+import com.example.backend.service.data.ChampionStatsService;
 import com.example.backend.service.data.DataOptionsService;
+import com.example.backend.util.ETagUtil;
 import com.example.backend.util.TraceIdUtil;
 import com.example.backend.vo.ApiResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,18 +25,35 @@ import java.util.Map;
 public class DataController {
 
     private final DataOptionsService dataOptionsService;
+    private final ChampionStatsService championStatsService;
 
-    public DataController(DataOptionsService dataOptionsService) {
+    public DataController(DataOptionsService dataOptionsService, ChampionStatsService championStatsService) {
         this.dataOptionsService = dataOptionsService;
+        this.championStatsService = championStatsService;
     }
 
     /**
      * 3.1 筛选项候选值
      */
     @PostMapping("/options")
-    public ApiResponse<Map<String, Object>> options(@Valid @RequestBody DataOptionsRequest req) {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> options(@Valid @RequestBody DataOptionsRequest req,
+                                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // 候选值几乎不变：按数据版本生成 ETag，命中 If-None-Match 直接 304，不加载数据
+        String etag = dataOptionsService.etag(req);
+        if (ETagUtil.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
         Map<String, Object> data = dataOptionsService.options(req);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(ApiResponse.ok(data, TraceIdUtil.getOrCreate()));
+    }
+
+    /**
+     * 3.6 英雄数据（出场 / 出场率 / 胜率 / 平均 KDA，按位置细分）
+     */
+    @PostMapping("/champions/stats")
+    public ApiResponse<Map<String, Object>> championStats(@RequestBody(required = false) ChampionStatsRequest req) {
+        Map<String, Object> data = championStatsService.stats(req);
         return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
     }
 }
-
@@ -0,0 +1,54 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.request.MatchIngestRequest;
+import com.example.backend.exception.BizException;
+import com.example.backend.service.data.MatchIngestService;
+import com.example.backend.service.data.PlayerAggregateService;
+import com.example.backend.util.TraceIdUtil;
+import com.example.backend.vo.ApiResponse;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/ingest")
+public class IngestController {
+
+    public static final String KEY_HEADER = "X-Ingest-Key";
+
+    private final MatchIngestService matchIngestService;
+    private final PlayerAggregateService playerAggregateService;
+
+    public IngestController(MatchIngestService matchIngestService,
+                            PlayerAggregateService playerAggregateService) {
+        this.matchIngestService = matchIngestService;
+        this.playerAggregateService = playerAggregateService;
+    }
+
+    /**
+     * 3.8 批量导入比赛 -> 对局 -> 选手数据（爬虫使用，按 X-Ingest-Key 鉴权，不走用户 JWT）
+     */
+    @PostMapping("/matches")
+    public ApiResponse<Map<String, Object>> ingestMatches(@RequestHeader(value = KEY_HEADER, required = false) String key,
+                                                          @Valid @RequestBody MatchIngestRequest req) {
+        matchIngestService.checkKey(key);
+        Map<String, Object> data = matchIngestService.ingest(req);
+        return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
+    }
+
+    /**
+     * 4.10 按已处理的全部选手数据重算生涯聚合（爬虫直接修正历史数据后调用，按 X-Ingest-Key 鉴权）
+     */
+    @PostMapping("/player-aggregates/recompute")
+    public ApiResponse<Map<String, Object>> recomputePlayerAggregates(@RequestHeader(value = KEY_HEADER, required = false) String key) {
+        matchIngestService.checkKey(key);
+        if (!playerAggregateService.isEnabled()) {
+            throw new BizException("FORBIDDEN", "选手聚合未启用");
+        }
+        long start = System.currentTimeMillis();
+        int rows = playerAggregateService.recompute();
+        Map<String, Object> data = Map.of("rows", rows, "costMs", System.currentTimeMillis() - start);
+        return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
+    }
+}
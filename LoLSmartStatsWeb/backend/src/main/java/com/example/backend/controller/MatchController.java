@@ -1,14 +1,24 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.request.HeadToHeadRequest;
 import com.example.backend.dto.request.MatchDetailRequest;
+import com.example.backend.dto.request.MatchExportRequest;
 import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.service.data.MatchExportService;
 import com.example.backend.service.data.MatchService;
 import com.example.backend.util.TraceIdUtil;
 import com.example.backend.vo.ApiResponse;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 @RestController
@@ -16,9 +26,11 @@ import java.util.Map;
 public class MatchController {
 
     private final MatchService matchService;
+    private final MatchExportService matchExportService;
 
-    public MatchController(MatchService matchService) {
+    public MatchController(MatchService matchService, MatchExportService matchExportService) {
         this.matchService = matchService;
+        this.matchExportService = matchExportService;
     }
 
     /**
@@ -36,9 +48,64 @@ public class MatchController {
      * 3.3 比赛详情
      */
     @PostMapping("/detail")
-    public ApiResponse<Map<String, Object>> detail(@Valid @RequestBody MatchDetailRequest req,
-                                                   Authentication authentication) {
-        Map<String, Object> data = matchService.detail(req.getMatchId());
+    public ResponseEntity<byte[]> detail(@Valid @RequestBody MatchDetailRequest req,
+                                         Authentication authentication) {
+        // data 部分直接取缓存的序列化字节，这里只拼外层 {ok, data, traceId}，不再反序列化/重新序列化
+        byte[] data = matchService.detailJson(req.getMatchId());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(okEnvelope(data, TraceIdUtil.getOrCreate()));
+    }
+
+    /**
+     * 3.7 两队交手记录
+     */
+    @PostMapping("/head-to-head")
+    public ApiResponse<Map<String, Object>> headToHead(@Valid @RequestBody HeadToHeadRequest req,
+                                                       Authentication authentication) {
+        Map<String, Object> data = matchService.headToHead(req.getTeam1Id(), req.getTeam2Id());
         return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
     }
+
+    /**
+     * 3.9 比赛导出（NDJSON / CSV，流式输出，不分页）
+     */
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@Valid @RequestBody MatchExportRequest req,
+                                                        Authentication authentication) {
+        // 参数在这里同步校验，错误仍按统一的 {ok:false} 返回；开始写出后只能中断连接
+        MatchExportService.Export export = matchExportService.prepare(req);
+        boolean csv = MatchExportService.FORMAT_CSV.equals(export.format());
+        MediaType type = csv
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        String filename = "matches." + export.format();
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(export::writeTo);
+    }
+
+    /**
+     * 与 ApiResponse.ok(data, traceId) 序列化结果一致的字节：{"ok":true,"data":...,"traceId":"..."}
+     */
+    private static byte[] okEnvelope(byte[] data, String traceId) {
+        // traceId 可能来自请求头，必须按 JSON 字符串转义
+        byte[] head = "{\"ok\":true,\"data\":".getBytes(StandardCharsets.UTF_8);
+        byte[] mid = ",\"traceId\":\"".getBytes(StandardCharsets.UTF_8);
+        byte[] tid = JsonStringEncoder.getInstance().quoteAsUTF8(traceId);
+        byte[] out = new byte[head.length + data.length + mid.length + tid.length + 2];
+        int pos = 0;
+        System.arraycopy(head, 0, out, pos, head.length);
+        pos += head.length;
+        System.arraycopy(data, 0, out, pos, data.length);
+        pos += data.length;
+        System.arraycopy(mid, 0, out, pos, mid.length);
+        pos += mid.length;
+        System.arraycopy(tid, 0, out, pos, tid.length);
+        pos += tid.length;
+        out[pos++] = '"';
+        out[pos] = '}';
+        return out;
+    }
 }
@@ -29,5 +29,15 @@ public class PlayerController {
         Map<String, Object> data = playerService.search(req.getQ(), req.getPage(), req.getPageSize());
         return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
     }
+
+    /**
+     * 3.5 选手生涯数据（生涯 / 分赛事 / 分英雄）
+     */
+    @GetMapping("/{id}/stats")
+    public ApiResponse<Map<String, Object>> stats(@PathVariable("id") Integer id,
+                                                  Authentication authentication) {
+        Map<String, Object> data = playerService.stats(id);
+        return ApiResponse.ok(data, TraceIdUtil.getOrCreate());
+    }
 }
 
@@ -0,0 +1,16 @@
+package com.example.backend.dto.request;
+
+public class ChampionStatsRequest {
+
+    /** 统计范围（赛事 / 阶段 / 日期），为空表示全部数据 */
+    private DataOptionsRequest.Scope scope;
+
+    /** 只统计某个位置（TOP / JUNGLE / MID / ADC / SUPPORT），为空表示全部位置 */
+    private String position;
+
+    public DataOptionsRequest.Scope getScope() { return scope; }
+    public void setScope(DataOptionsRequest.Scope scope) { this.scope = scope; }
+
+    public String getPosition() { return position; }
+    public void setPosition(String position) { this.position = position; }
+}
@@ -15,6 +15,15 @@ public class ChatStreamRequest {
 
     private Map<String, Object> context;
 
+    /**
+     * 连续 token 合并的最长等待（毫秒），0 表示不合并；不传用服务端默认。
+     * 合并后的 token 帧只带 delta（{"delta":"..."}），上游 token 上的其它字段不保留；只攒到一个 token 时原样转发。
+     */
+    private Integer coalesceMs;
+
+    /** 合并后单个 token 帧攒到该 delta 字符数即发出（不拆分 token，最后一个可能略超）；不传用服务端上限 */
+    private Integer coalesceMaxChars;
+
     public String getSessionId() { return sessionId; }
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
 
@@ -26,5 +35,11 @@ public class ChatStreamRequest {
 
     public Map<String, Object> getContext() { return context; }
     public void setContext(Map<String, Object> context) { this.context = context; }
+
+    public Integer getCoalesceMs() { return coalesceMs; }
+    public void setCoalesceMs(Integer coalesceMs) { this.coalesceMs = coalesceMs; }
+
+    public Integer getCoalesceMaxChars() { return coalesceMaxChars; }
+    public void setCoalesceMaxChars(Integer coalesceMaxChars) { this.coalesceMaxChars = coalesceMaxChars; }
 }
 
@@ -0,0 +1,18 @@
+package com.example.backend.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+
+public class HeadToHeadRequest {
+
+    @NotNull
+    private Integer team1Id;
+
+    @NotNull
+    private Integer team2Id;
+
+    public Integer getTeam1Id() { return team1Id; }
+    public void setTeam1Id(Integer team1Id) { this.team1Id = team1Id; }
+
+    public Integer getTeam2Id() { return team2Id; }
+    public void setTeam2Id(Integer team2Id) { this.team2Id = team2Id; }
+}
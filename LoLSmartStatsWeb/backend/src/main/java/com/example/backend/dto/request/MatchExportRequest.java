@@ -0,0 +1,31 @@
+package com.example.backend.dto.request;
+
+import jakarta.validation.Valid;
+
+public class MatchExportRequest {
+
+    /** 与 /matches/search 相同的过滤条件 */
+    @Valid
+    private MatchSearchRequest.Filter filter;
+
+    /** ndjson（默认）或 csv */
+    private String format;
+
+    /** 是否带上每场的对局 */
+    private Boolean includeGames;
+
+    /** 是否带上每局的选手数据（隐含 includeGames） */
+    private Boolean includeStats;
+
+    public MatchSearchRequest.Filter getFilter() { return filter; }
+    public void setFilter(MatchSearchRequest.Filter filter) { this.filter = filter; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public Boolean getIncludeGames() { return includeGames; }
+    public void setIncludeGames(Boolean includeGames) { this.includeGames = includeGames; }
+
+    public Boolean getIncludeStats() { return includeStats; }
+    public void setIncludeStats(Boolean includeStats) { this.includeStats = includeStats; }
+}
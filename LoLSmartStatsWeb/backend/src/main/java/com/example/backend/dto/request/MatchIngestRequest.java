@@ -0,0 +1,199 @@
+package com.example.backend.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * 批量导入：比赛 -> 对局 -> 选手数据。队伍、选手按名字引用，不存在时自动创建。
+ */
+public class MatchIngestRequest {
+
+    @NotEmpty
+    @Valid
+    private List<MatchItem> matches;
+
+    /**
+     * 按 (赛事, 阶段, 比赛日期, 队伍1, 队伍2) 判重：false（默认）跳过已存在的比赛；
+     * true 时覆盖其胜者并替换全部对局与选手数据。
+     */
+    private Boolean replaceExisting;
+
+    public List<MatchItem> getMatches() { return matches; }
+    public void setMatches(List<MatchItem> matches) { this.matches = matches; }
+
+    public Boolean getReplaceExisting() { return replaceExisting; }
+    public void setReplaceExisting(Boolean replaceExisting) { this.replaceExisting = replaceExisting; }
+
+    public static class MatchItem {
+        private String matchDate;
+        private String tournamentName;
+        private String stage;
+
+        @NotNull
+        @Valid
+        private TeamRef team1;
+
+        @NotNull
+        @Valid
+        private TeamRef team2;
+
+        /** 胜者队伍名（须为 team1/team2 之一），未决出可不传 */
+        private String winner;
+
+        @Valid
+        private List<GameItem> games;
+
+        public String getMatchDate() { return matchDate; }
+        public void setMatchDate(String matchDate) { this.matchDate = matchDate; }
+
+        public String getTournamentName() { return tournamentName; }
+        public void setTournamentName(String tournamentName) { this.tournamentName = tournamentName; }
+
+        public String getStage() { return stage; }
+        public void setStage(String stage) { this.stage = stage; }
+
+        public TeamRef getTeam1() { return team1; }
+        public void setTeam1(TeamRef team1) { this.team1 = team1; }
+
+        public TeamRef getTeam2() { return team2; }
+        public void setTeam2(TeamRef team2) { this.team2 = team2; }
+
+        public String getWinner() { return winner; }
+        public void setWinner(String winner) { this.winner = winner; }
+
+        public List<GameItem> getGames() { return games; }
+        public void setGames(List<GameItem> games) { this.games = games; }
+    }
+
+    public static class TeamRef {
+        @NotBlank
+        private String name;
+        private String shortName;
+        private String region;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getShortName() { return shortName; }
+        public void setShortName(String shortName) { this.shortName = shortName; }
+
+        public String getRegion() { return region; }
+        public void setRegion(String region) { this.region = region; }
+    }
+
+    public static class GameItem {
+        private Integer gameNumber;
+        /** 时长（秒） */
+        private Integer duration;
+        /** 以下均为队伍名 */
+        private String blueTeam;
+        private String redTeam;
+        private String winner;
+
+        @Valid
+        private List<StatItem> stats;
+
+        public Integer getGameNumber() { return gameNumber; }
+        public void setGameNumber(Integer gameNumber) { this.gameNumber = gameNumber; }
+
+        public Integer getDuration() { return duration; }
+        public void setDuration(Integer duration) { this.duration = duration; }
+
+        public String getBlueTeam() { return blueTeam; }
+        public void setBlueTeam(String blueTeam) { this.blueTeam = blueTeam; }
+
+        public String getRedTeam() { return redTeam; }
+        public void setRedTeam(String redTeam) { this.redTeam = redTeam; }
+
+        public String getWinner() { return winner; }
+        public void setWinner(String winner) { this.winner = winner; }
+
+        public List<StatItem> getStats() { return stats; }
+        public void setStats(List<StatItem> stats) { this.stats = stats; }
+    }
+
+    public static class StatItem {
+        @NotBlank
+        private String player;
+        /** 队伍名 */
+        private String team;
+        private String position;
+        private String championName;
+        private String championNameEn;
+        private Integer playerLevel;
+        private Integer kills;
+        private Integer deaths;
+        private Integer assists;
+        private Double kda;
+        private Double killParticipation;
+        private Integer totalDamageDealt;
+        private Integer damageDealtToChampions;
+        private Double damageDealtPercentage;
+        private Integer totalDamageTaken;
+        private Double damageTakenPercentage;
+        private Integer goldEarned;
+        private Integer minionsKilled;
+        private String isMvp;
+
+        public String getPlayer() { return player; }
+        public void setPlayer(String player) { this.player = player; }
+
+        public String getTeam() { return team; }
+        public void setTeam(String team) { this.team = team; }
+
+        public String getPosition() { return position; }
+        public void setPosition(String position) { this.position = position; }
+
+        public String getChampionName() { return championName; }
+        public void setChampionName(String championName) { this.championName = championName; }
+
+        public String getChampionNameEn() { return championNameEn; }
+        public void setChampionNameEn(String championNameEn) { this.championNameEn = championNameEn; }
+
+        public Integer getPlayerLevel() { return playerLevel; }
+        public void setPlayerLevel(Integer playerLevel) { this.playerLevel = playerLevel; }
+
+        public Integer getKills() { return kills; }
+        public void setKills(Integer kills) { this.kills = kills; }
+
+        public Integer getDeaths() { return deaths; }
+        public void setDeaths(Integer deaths) { this.deaths = deaths; }
+
+        public Integer getAssists() { return assists; }
+        public void setAssists(Integer assists) { this.assists = assists; }
+
+        public Double getKda() { return kda; }
+        public void setKda(Double kda) { this.kda = kda; }
+
+        public Double getKillParticipation() { return killParticipation; }
+        public void setKillParticipation(Double killParticipation) { this.killParticipation = killParticipation; }
+
+        public Integer getTotalDamageDealt() { return totalDamageDealt; }
+        public void setTotalDamageDealt(Integer totalDamageDealt) { this.totalDamageDealt = totalDamageDealt; }
+
+        public Integer getDamageDealtToChampions() { return damageDealtToChampions; }
+        public void setDamageDealtToChampions(Integer damageDealtToChampions) { this.damageDealtToChampions = damageDealtToChampions; }
+
+        public Double getDamageDealtPercentage() { return damageDealtPercentage; }
+        public void setDamageDealtPercentage(Double damageDealtPercentage) { this.damageDealtPercentage = damageDealtPercentage; }
+
+        public Integer getTotalDamageTaken() { return totalDamageTaken; }
+        public void setTotalDamageTaken(Integer totalDamageTaken) { this.totalDamageTaken = totalDamageTaken; }
+
+        public Double getDamageTakenPercentage() { return damageTakenPercentage; }
+        public void setDamageTakenPercentage(Double damageTakenPercentage) { this.damageTakenPercentage = damageTakenPercentage; }
+
+        public Integer getGoldEarned() { return goldEarned; }
+        public void setGoldEarned(Integer goldEarned) { this.goldEarned = goldEarned; }
+
+        public Integer getMinionsKilled() { return minionsKilled; }
+        public void setMinionsKilled(Integer minionsKilled) { this.minionsKilled = minionsKilled; }
+
+        public String getIsMvp() { return isMvp; }
+        public void setIsMvp(String isMvp) { this.isMvp = isMvp; }
+    }
+}
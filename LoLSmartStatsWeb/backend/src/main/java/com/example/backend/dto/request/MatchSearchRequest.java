@@ -12,12 +12,32 @@ public class MatchSearchRequest extends PageRequest {
     @Valid
     private Sort sort;
 
+    /**
+     * keyset 翻页游标：不传走 page/pageSize；传空串表示 keyset 模式第一页，之后回传上一页的 nextCursor。
+     */
+    private String cursor;
+
+    /** 是否返回 total（需要额外一次 COUNT）；不传时 page 模式返回、cursor 模式不返回 */
+    private Boolean withTotal;
+
+    /** 是否同时返回赛事/阶段/队伍分面计数（默认不返回） */
+    private Boolean withFacets;
+
     public Filter getFilter() { return filter; }
     public void setFilter(Filter filter) { this.filter = filter; }
 
     public Sort getSort() { return sort; }
     public void setSort(Sort sort) { this.sort = sort; }
 
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public Boolean getWithTotal() { return withTotal; }
+    public void setWithTotal(Boolean withTotal) { this.withTotal = withTotal; }
+
+    public Boolean getWithFacets() { return withFacets; }
+    public void setWithFacets(Boolean withFacets) { this.withFacets = withFacets; }
+
     public static class Filter {
         private String tournamentName;
         private String stage;
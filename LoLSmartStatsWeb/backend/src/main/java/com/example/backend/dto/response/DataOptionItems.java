@@ -0,0 +1,18 @@
+package com.example.backend.dto.response;
+
+/**
+ * /data/options 各候选列表的元素类型。
+ */
+public final class DataOptionItems {
+
+    private DataOptionItems() {}
+
+    public record TeamItem(Integer id, String name, String shortName, String region) {
+    }
+
+    public record PlayerItem(Integer id, String name) {
+    }
+
+    public record ChampionItem(String name, String nameEn) {
+    }
+}
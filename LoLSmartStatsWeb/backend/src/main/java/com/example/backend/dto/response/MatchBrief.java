@@ -0,0 +1,14 @@
+package com.example.backend.dto.response;
+
+/**
+ * 比赛列表项（/matches/search）。
+ */
+public record MatchBrief(Integer matchId,
+                         String matchDate,
+                         String tournamentName,
+                         String stage,
+                         Integer winnerTeamId,
+                         TeamBrief team1,
+                         TeamBrief team2,
+                         long gamesCount) {
+}
@@ -0,0 +1,61 @@
+package com.example.backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * 比赛详情（/matches/detail）：比赛信息 + 两支队伍 + 每局对局及参赛者数据。
+ * 由 MatchDetailJsonWriter 流式写出，字段名与顺序以 writer 为准。
+ */
+public record MatchDetail(MatchInfo match, Teams teams, List<GameDetail> games) {
+
+    public record MatchInfo(Integer id,
+                            String matchDate,
+                            String tournamentName,
+                            String stage,
+                            Integer team1Id,
+                            Integer team2Id,
+                            Integer winnerTeamId) {
+    }
+
+    public record Teams(TeamInfo team1, TeamInfo team2) {
+    }
+
+    /** found=false（队伍不存在）时只输出 id */
+    public record TeamInfo(Integer id, String name, String shortName, String region, @JsonIgnore boolean found) {
+    }
+
+    public record GameDetail(Integer gameId,
+                             Integer gameNumber,
+                             Integer duration,
+                             Integer blueTeamId,
+                             Integer redTeamId,
+                             Integer winnerTeamId,
+                             List<Participant> participants) {
+    }
+
+    public record Participant(Integer playerId,
+                              String playerName,
+                              Integer teamId,
+                              String position,
+                              String championName,
+                              String championNameEn,
+                              StatLine stats) {
+    }
+
+    public record StatLine(Integer kills,
+                           Integer deaths,
+                           Integer assists,
+                           Double kda,
+                           Double killParticipation,
+                           Integer totalDamageDealt,
+                           Integer damageDealtToChampions,
+                           Double damageDealtPercentage,
+                           Integer totalDamageTaken,
+                           Double damageTakenPercentage,
+                           Integer goldEarned,
+                           Integer minionsKilled,
+                           String isMvp) {
+    }
+}
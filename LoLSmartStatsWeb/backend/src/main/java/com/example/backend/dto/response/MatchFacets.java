@@ -0,0 +1,17 @@
+package com.example.backend.dto.response;
+
+import java.util.List;
+
+/**
+ * 比赛搜索的分面计数：每个取值在当前过滤条件下（忽略该维度自身的条件）能命中的比赛数。
+ */
+public record MatchFacets(List<ValueCount> tournaments,
+                          List<ValueCount> stages,
+                          List<TeamCount> teams) {
+
+    public record ValueCount(String value, long count) {
+    }
+
+    public record TeamCount(Integer id, String name, String shortName, long count) {
+    }
+}
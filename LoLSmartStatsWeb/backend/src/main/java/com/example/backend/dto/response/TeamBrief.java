@@ -0,0 +1,34 @@
+package com.example.backend.dto.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 列表中的队伍简要信息。found=false（队伍不存在）时只输出 id；队伍存在时 name/shortName 为 null 也照常输出 null。
+ */
+@JsonSerialize(using = TeamBrief.Serializer.class)
+public record TeamBrief(Integer id, String name, String shortName, boolean found) {
+
+    public static final class Serializer extends StdSerializer<TeamBrief> {
+
+        public Serializer() {
+            super(TeamBrief.class);
+        }
+
+        @Override
+        public void serialize(TeamBrief t, JsonGenerator g, SerializerProvider provider) throws IOException {
+            g.writeStartObject();
+            if (t.id() == null) g.writeNullField("id");
+            else g.writeNumberField("id", t.id());
+            if (t.found()) {
+                g.writeStringField("name", t.name());
+                g.writeStringField("shortName", t.shortName());
+            }
+            g.writeEndObject();
+        }
+    }
+}
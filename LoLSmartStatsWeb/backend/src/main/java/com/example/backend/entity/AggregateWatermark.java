@@ -0,0 +1,32 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * 物化聚合的处理水位：记录某个聚合已经处理到的源表最大 id。
+ */
+@Entity
+@Table(name = "aggregate_watermarks")
+public class AggregateWatermark {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getLastId() { return lastId; }
+    public void setLastId(long lastId) { this.lastId = lastId; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -9,7 +9,8 @@ import java.time.Instant;
         @Index(name = "idx_chat_messages_session_created", columnList = "sessionId, createdAt"),
         @Index(name = "idx_chat_messages_user_created", columnList = "userId, createdAt"),
         @Index(name = "idx_chat_messages_user_session", columnList = "userId, sessionId"),
-        @Index(name = "idx_chat_messages_turn", columnList = "turnId")
+        @Index(name = "idx_chat_messages_turn", columnList = "turnId"),
+        @Index(name = "idx_chat_messages_report_file", columnList = "reportFileId")
 })
 public class ChatMessage {
 
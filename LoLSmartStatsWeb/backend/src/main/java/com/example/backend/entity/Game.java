@@ -2,8 +2,13 @@ package com.example.backend.entity;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
-@Table(name = "Games")
+@Table(name = "Games", indexes = {
+        @Index(name = "idx_games_match_number", columnList = "match_id, game_number"),
+        @Index(name = "idx_games_updated_at", columnList = "updated_at")
+})
 public class Game {
 
     @Id
@@ -27,6 +32,13 @@ public class Game {
     @Column(name = "winner_id")
     private Integer winnerId;
 
+    /**
+     * 行最后修改时间，由数据库维护（ON UPDATE，爬虫直接写库同样会更新），供内存快照发现已有对局的胜者修改。
+     */
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)")
+    private Instant updatedAt;
+
     public Integer getId() {
         return id;
     }
@@ -82,4 +94,8 @@ public class Game {
     public void setWinnerId(Integer winnerId) {
         this.winnerId = winnerId;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
@@ -1,9 +1,20 @@
 package com.example.backend.entity;
 
+import com.example.backend.util.MatchDateUtil;
 import jakarta.persistence.*;
 
+import java.time.Instant;
+import java.time.LocalDate;
+
 @Entity
-@Table(name = "Matches")
+@Table(name = "Matches", indexes = {
+        @Index(name = "idx_matches_match_day_id", columnList = "match_day, id"),
+        @Index(name = "idx_matches_team1_team2", columnList = "team1_id, team2_id"),
+        @Index(name = "idx_matches_team2", columnList = "team2_id"),
+        @Index(name = "idx_matches_tournament_stage", columnList = "tournament_name, stage"),
+        @Index(name = "idx_matches_stage", columnList = "stage"),
+        @Index(name = "idx_matches_updated_at", columnList = "updated_at")
+})
 public class Match {
 
     @Id
@@ -13,6 +24,12 @@ public class Match {
     @Column(name = "match_date", length = 255)
     private String matchDate;
 
+    /**
+     * match_date 规整后的 DATE 列，用于范围过滤与排序；迁移期间两列同时写（见 MatchDayBackfillService）。
+     */
+    @Column(name = "match_day")
+    private LocalDate matchDay;
+
     @Column(name = "tournament_name", length = 255)
     private String tournamentName;
 
@@ -28,12 +45,31 @@ public class Match {
     @Column(name = "winner_id")
     private Integer winnerId;
 
+    /**
+     * 行最后修改时间，由数据库维护（ON UPDATE，爬虫直接写库同样会更新），供内存索引发现已有行的修改。
+     */
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)")
+    private Instant updatedAt;
+
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
 
+    @PrePersist
+    @PreUpdate
+    public void syncMatchDay() {
+        if (matchDate != null && !matchDate.isBlank()) {
+            LocalDate d = MatchDateUtil.parse(matchDate);
+            if (d != null) matchDay = d;
+        }
+    }
+
     public String getMatchDate() { return matchDate; }
     public void setMatchDate(String matchDate) { this.matchDate = matchDate; }
 
+    public LocalDate getMatchDay() { return matchDay; }
+    public void setMatchDay(LocalDate matchDay) { this.matchDay = matchDay; }
+
     public String getTournamentName() { return tournamentName; }
     public void setTournamentName(String tournamentName) { this.tournamentName = tournamentName; }
 
@@ -48,4 +84,6 @@ public class Match {
 
     public Integer getWinnerId() { return winnerId; }
     public void setWinnerId(Integer winnerId) { this.winnerId = winnerId; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
 }
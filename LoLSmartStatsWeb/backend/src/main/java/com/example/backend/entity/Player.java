@@ -1,9 +1,15 @@
 package com.example.backend.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "Players")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ref-players")
+@Table(name = "Players", indexes = {
+        @Index(name = "idx_players_name", columnList = "name")
+})
 public class Player {
 
     @Id
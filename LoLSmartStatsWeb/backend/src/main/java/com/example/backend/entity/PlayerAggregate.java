@@ -0,0 +1,124 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * 选手生涯聚合（物化）：按 scope 维度累加，scopeType = career / tournament / champion。
+ * 由 PlayerAggregateService 按 PlayerGameStats.id 水位增量累加，读侧按 player_id 直接取。
+ */
+@Entity
+@Table(name = "player_aggregates", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_player_aggregates_scope", columnNames = {"player_id", "scope_type", "scope_key"})
+})
+public class PlayerAggregate {
+
+    public static final String SCOPE_CAREER = "career";
+    public static final String SCOPE_TOURNAMENT = "tournament";
+    public static final String SCOPE_CHAMPION = "champion";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "player_id", nullable = false)
+    private Integer playerId;
+
+    @Column(name = "scope_type", nullable = false, length = 16)
+    private String scopeType;
+
+    /** career 为空串；tournament 为赛事名；champion 为英雄名 */
+    @Column(name = "scope_key", nullable = false, length = 255)
+    private String scopeKey;
+
+    @Column(nullable = false)
+    private int games;
+
+    @Column(nullable = false)
+    private int wins;
+
+    @Column(nullable = false)
+    private long kills;
+
+    @Column(nullable = false)
+    private long deaths;
+
+    @Column(nullable = false)
+    private long assists;
+
+    /** 每局 KDA 之和 / 有 KDA 的局数 = 平均 KDA */
+    @Column(name = "kda_sum", nullable = false)
+    private double kdaSum;
+
+    @Column(name = "kda_games", nullable = false)
+    private int kdaGames;
+
+    @Column(name = "damage_share_sum", nullable = false)
+    private double damageShareSum;
+
+    @Column(name = "damage_share_games", nullable = false)
+    private int damageShareGames;
+
+    @Column(name = "gold_sum", nullable = false)
+    private long goldSum;
+
+    @Column(name = "cs_sum", nullable = false)
+    private long csSum;
+
+    @Column(name = "mvp_count", nullable = false)
+    private int mvpCount;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public Long getId() { return id; }
+
+    public Integer getPlayerId() { return playerId; }
+    public void setPlayerId(Integer playerId) { this.playerId = playerId; }
+
+    public String getScopeType() { return scopeType; }
+    public void setScopeType(String scopeType) { this.scopeType = scopeType; }
+
+    public String getScopeKey() { return scopeKey; }
+    public void setScopeKey(String scopeKey) { this.scopeKey = scopeKey; }
+
+    public int getGames() { return games; }
+    public void setGames(int games) { this.games = games; }
+
+    public int getWins() { return wins; }
+    public void setWins(int wins) { this.wins = wins; }
+
+    public long getKills() { return kills; }
+    public void setKills(long kills) { this.kills = kills; }
+
+    public long getDeaths() { return deaths; }
+    public void setDeaths(long deaths) { this.deaths = deaths; }
+
+    public long getAssists() { return assists; }
+    public void setAssists(long assists) { this.assists = assists; }
+
+    public double getKdaSum() { return kdaSum; }
+    public void setKdaSum(double kdaSum) { this.kdaSum = kdaSum; }
+
+    public int getKdaGames() { return kdaGames; }
+    public void setKdaGames(int kdaGames) { this.kdaGames = kdaGames; }
+
+    public double getDamageShareSum() { return damageShareSum; }
+    public void setDamageShareSum(double damageShareSum) { this.damageShareSum = damageShareSum; }
+
+    public int getDamageShareGames() { return damageShareGames; }
+    public void setDamageShareGames(int damageShareGames) { this.damageShareGames = damageShareGames; }
+
+    public long getGoldSum() { return goldSum; }
+    public void setGoldSum(long goldSum) { this.goldSum = goldSum; }
+
+    public long getCsSum() { return csSum; }
+    public void setCsSum(long csSum) { this.csSum = csSum; }
+
+    public int getMvpCount() { return mvpCount; }
+    public void setMvpCount(int mvpCount) { this.mvpCount = mvpCount; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -3,7 +3,12 @@ package com.example.backend.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "PlayerGameStats")
+@Table(name = "PlayerGameStats", indexes = {
+        @Index(name = "idx_pgs_game", columnList = "game_id"),
+        @Index(name = "idx_pgs_player", columnList = "player_id"),
+        @Index(name = "idx_pgs_champion", columnList = "champion_name, champion_name_en"),
+        @Index(name = "idx_pgs_position", columnList = "position")
+})
 public class PlayerGameStat {
 
     @Id
@@ -1,9 +1,15 @@
 package com.example.backend.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "Teams")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ref-teams")
+@Table(name = "Teams", indexes = {
+        @Index(name = "idx_teams_name", columnList = "name")
+})
 public class Team {
 
     @Id
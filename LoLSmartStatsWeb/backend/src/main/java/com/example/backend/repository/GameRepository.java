@@ -2,10 +2,19 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.Game;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface GameRepository extends JpaRepository<Game, Integer> {
     List<Game> findByMatchIdOrderByGameNumberAsc(Integer matchId);
     long countByMatchId(Integer matchId);
+
+    /**
+     * 批量统计每场比赛的对局数：返回 [matchId, count]，没有对局的 matchId 不会出现在结果里。
+     */
+    @Query("SELECT g.matchId, COUNT(g) FROM Game g WHERE g.matchId IN :matchIds GROUP BY g.matchId")
+    List<Object[]> countGroupByMatchIdIn(@Param("matchIds") Collection<Integer> matchIds);
 }
@@ -0,0 +1,10 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.PlayerAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PlayerAggregateRepository extends JpaRepository<PlayerAggregate, Long> {
+    List<PlayerAggregate> findByPlayerId(Integer playerId);
+}
@@ -3,8 +3,14 @@ package com.example.backend.repository;
 import com.example.backend.entity.PlayerGameStat;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PlayerGameStatRepository extends JpaRepository<PlayerGameStat, Integer> {
     List<PlayerGameStat> findByGameId(Integer gameId);
+
+    /**
+     * 一次 game_id IN (...) 拉取多局的全部选手数据（比赛详情、批量统计等复用）。
+     */
+    List<PlayerGameStat> findByGameIdIn(Collection<Integer> gameIds);
 }
@@ -1,8 +1,21 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.Team;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface TeamRepository extends JpaRepository<Team, Integer> {
+
+    /**
+     * 全量列表（筛选项候选值）走查询缓存，结果中的实体再从二级缓存取。
+     * 绕过 Hibernate 的写入（导入、爬虫直接写库）由 ReferenceEntityCache#evictAll 清除，见 DataVersionService。
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Team> findAll();
 }
 
@@ -2,6 +2,7 @@ package com.example.backend.service.chat;
 
 import com.example.backend.exception.BizException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
@@ -41,6 +42,22 @@ public class AgentClient {
                 .onErrorMap(this::mapAgentError);
     }
 
+    /**
+     * 同 {@link #stream}，但不解码 SSE：上游响应体按 DataBuffer 原样返回，由调用方负责释放。
+     */
+    public Flux<DataBuffer> streamRaw(String accessToken, Map<String, Object> payload) {
+        return webClient.post()
+                .uri("/chat/stream")
+                .header("X-AI-API-Key", apiKey)
+                .header("Authorization", "Bearer " + accessToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromValue(payload))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .onErrorMap(this::mapAgentError);
+    }
+
     public Map<String, Object> query(String accessToken, Map<String, Object> payload) {
         try {
             return webClient.post()
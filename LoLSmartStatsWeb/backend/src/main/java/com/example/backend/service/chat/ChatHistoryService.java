@@ -5,6 +5,7 @@ import com.example.backend.entity.ChatSession;
 import com.example.backend.exception.BizException;
 import com.example.backend.repository.ChatMessageRepository;
 import com.example.backend.repository.ChatSessionRepository;
+import com.example.backend.util.JsonUtil;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -170,10 +171,8 @@ public class ChatHistoryService {
             if (json.isEmpty()) continue;
 
             try {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> obj = com.fasterxml.jackson.databind.json.JsonMapper.builder().build().readValue(json, Map.class);
-                Object delta = obj.get("delta");
-                if (delta != null) out.append(String.valueOf(delta));
+                String delta = JsonUtil.extractDelta(json);
+                if (delta != null) out.append(delta);
             } catch (Exception ignore) {
                 out.append(json);
             }
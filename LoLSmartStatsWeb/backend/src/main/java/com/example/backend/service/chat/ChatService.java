@@ -2,16 +2,25 @@ package com.example.backend.service.chat;
 
 import com.example.backend.enums.ChatMode;
 import com.example.backend.exception.BizException;
+import com.example.backend.util.JsonUtil;
 import com.example.backend.util.TraceIdUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ChatService {
@@ -20,14 +29,93 @@ public class ChatService {
 
     private final AgentClient agentClient;
     private final ChatStorageService chatStorageService;
-
-    public ChatService(AgentClient agentClient, ChatStorageService chatStorageService) {
+    private final ChatTurnRegistry chatTurnRegistry;
+    private final boolean rawRelay;
+    private final long coalesceDefaultMs;
+    private final long coalesceMaxMs;
+    private final int coalesceCharsLimit;
+
+    public ChatService(AgentClient agentClient, ChatStorageService chatStorageService, ChatTurnRegistry chatTurnRegistry,
+                       @Value("${app.chat.relay-mode:raw}") String relayMode,
+                       @Value("${app.chat.coalesce.default-delay-ms:0}") long coalesceDefaultMs,
+                       @Value("${app.chat.coalesce.max-delay-ms:200}") long coalesceMaxMs,
+                       @Value("${app.chat.coalesce.max-chars:2048}") int coalesceCharsLimit) {
         this.agentClient = agentClient;
         this.chatStorageService = chatStorageService;
+        this.chatTurnRegistry = chatTurnRegistry;
+        this.rawRelay = !"decoded".equalsIgnoreCase(relayMode);
+        this.coalesceDefaultMs = coalesceDefaultMs;
+        this.coalesceMaxMs = coalesceMaxMs;
+        this.coalesceCharsLimit = coalesceCharsLimit;
+    }
+
+    /**
+     * 后端对前端的 /chat/stream：开一轮问答并登记为可共享、可续传的 {@link ChatTurn}，调用方从 turn.frames(0) 开始转发。
+     * - relay-mode=raw：上游 SSE 帧原样转发（见 {@link #rawFrames}）；decoded：逐事件解码再编码（见 {@link #streamToAgent}）
+     * - coalesceMs/coalesceMaxChars：连续 token 合并（见 {@link #coalescePolicy}），null 用服务端默认
+     * - 同一用户在同一会话里重复提交同一问题（多标签页、重试）且上一轮仍在进行时，直接接到那一轮上，不再调用 agent
+     * 上游与前端连接解耦：前端断开后本轮继续跑完并落库，可通过 {@link #resume} 接回。
+     */
+    public ChatTurn openStream(String accessToken,
+                               String userId,
+                               String sessionId,
+                               String message,
+                               String mode,
+                               Map<String, Object> context,
+                               Integer coalesceMs,
+                               Integer coalesceMaxChars) {
+        TokenCoalescer.Policy coalesce = coalescePolicy(coalesceMs, coalesceMaxChars);
+        String dedupKey = normalizeMode(mode) + '\u0000' + message + '\u0000' + toJson(context == null ? Map.of() : context);
+
+        return chatTurnRegistry.openOrAttach(sessionId, userId, dedupKey, () -> {
+            TurnRecorder rec = startTurn(userId, sessionId, message, mode, context);
+            ChatTurn turn = chatTurnRegistry.create(rec.turnId, sessionId, userId, dedupKey);
+            rec.onFinished = turn::markPersisted;
+
+            Flux<SseFrame> frames = rawRelay
+                    ? rawFrames(accessToken, rec, coalesce)
+                    : decodedEvents(accessToken, rec, coalesce).map(SseFrame::encode);
+            turn.connect(frames);
+            return turn;
+        });
+    }
+
+    /**
+     * 断线续传：接回同一用户的进行中（或刚结束）的一轮，补发 lastEventId 之后的帧再接实时帧。
+     */
+    public Flux<byte[]> resume(String userId, String turnId, long lastEventId) {
+        ChatTurn turn = chatTurnRegistry.find(turnId);
+        if (turn == null || !turn.userId().equals(userId)) {
+            throw new BizException("NOT_FOUND", "该轮问答不存在、已过期或无权限");
+        }
+        if (lastEventId < 0) {
+            throw new BizException("INVALID_ARGUMENT", "Last-Event-ID 不能为负数");
+        }
+        if (!turn.canResumeFrom(lastEventId)) {
+            throw new BizException("CONFLICT", "无法从该位置续传（缓冲已滚动或 Last-Event-ID 超出已发送的帧），请重新提问");
+        }
+        log.info("[chat.stream] resume turnId={}, userId={}, lastEventId={}", turnId, userId, lastEventId);
+        return turn.frames(lastEventId);
     }
 
     /**
-     * 后端对前端的 /chat/stream：
+     * 接入会话里正在进行的一轮（如同一会话新开的标签页），从头补发后接实时帧；没有进行中的一轮时 NOT_FOUND。
+     */
+    public ChatTurn attach(String userId, String sessionId) {
+        ChatTurn turn = chatTurnRegistry.findActive(sessionId, userId);
+        if (turn == null) {
+            throw new BizException("NOT_FOUND", "该会话当前没有进行中的问答");
+        }
+        if (!turn.canResumeFrom(0)) {
+            throw new BizException("CONFLICT", "该轮输出已超出回放缓冲，请等待结束后查看历史消息");
+        }
+        log.info("[chat.stream] attach turnId={}, sessionId={}, userId={}, subscribers={}",
+                turn.turnId(), sessionId, userId, turn.subscribers());
+        return turn;
+    }
+
+    /**
+     * 不登记续传的解码式流（调用方自己订阅）：
      * - 后端生成 traceId
      * - 组装 AI 端规范的 payload（sessionId/traceId/message/mode/context/...）
      * - 订阅 AI 端 SSE 并原样转发 event/data
@@ -37,9 +125,87 @@ public class ChatService {
                                                        String sessionId,
                                                        String message,
                                                        String mode,
-                                                       Map<String, Object> context) {
+                                                       Map<String, Object> context,
+                                                       Integer coalesceMs,
+                                                       Integer coalesceMaxChars) {
+        TokenCoalescer.Policy coalesce = coalescePolicy(coalesceMs, coalesceMaxChars);
+        return decodedEvents(accessToken, startTurn(userId, sessionId, message, mode, context), coalesce);
+    }
+
+    private Flux<ServerSentEvent<String>> decodedEvents(String accessToken, TurnRecorder rec, TokenCoalescer.Policy coalesce) {
+        Flux<ServerSentEvent<String>> events = agentClient.stream(accessToken, rec.payload)
+                .doOnNext(sse -> rec.onEvent(sse.event(), sse.data()))
+                .doFinally(rec::finish)
+                .map(sse -> ServerSentEvent.builder(sse.data())
+                        .event(sse.event())
+                        .id(sse.id())
+                        .comment(sse.comment())
+                        .build())
+                .onErrorResume(e -> Flux.just(ServerSentEvent.builder(errorJson(e, rec.traceId)).event("error").build()));
+
+        return TokenCoalescer.coalesce(events, coalesce,
+                sse -> "token".equals(sse.event()) ? deltaOrNull(sse.data()) : null,
+                delta -> ServerSentEvent.builder(deltaJson(delta)).event("token").build());
+    }
+
+    /**
+     * 上游 SSE 帧原样转发（不解码成 ServerSentEvent、不重新编码）：
+     * - {@link SseFrameScanner} 按空行切帧，每帧复制一次成 byte[]（写 servlet 输出流本就需要），上游 DataBuffer 随即释放；
+     * - 落库用的 token/file_meta/done 在同一批帧上识别，token 的 delta 从字节流式解析；
+     * - 开启 token 合并时，只有被合并的 token 帧会重新生成，其余帧仍是上游原始字节。
+     * 出错时补发一个 event:error 帧后正常结束。
+     */
+    private Flux<SseFrame> rawFrames(String accessToken, TurnRecorder rec, TokenCoalescer.Policy coalesce) {
+        SseFrameScanner scanner = new SseFrameScanner();
+
+        Flux<SseFrame> frames = agentClient.streamRaw(accessToken, rec.payload)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .concatMapIterable(buf -> {
+                    try {
+                        return scanner.feed(buf);
+                    } finally {
+                        DataBufferUtils.release(buf);
+                    }
+                })
+                .concatWith(Flux.defer(() -> Flux.fromIterable(scanner.finish())))
+                .doOnNext(rec::onFrame)
+                .doFinally(rec::finish)
+                .onErrorResume(e -> Flux.just(SseFrame.of("error", errorJson(e, rec.traceId))));
+
+        return TokenCoalescer.coalesce(frames, coalesce,
+                f -> f.isToken() ? deltaOrNull(f.data()) : null,
+                delta -> SseFrame.of("token", deltaJson(delta)));
+    }
+
+    /**
+     * 连续 token 合并参数：请求里的 coalesceMs 为 null 时用 app.chat.coalesce.default-delay-ms，0 表示不合并，
+     * 上限 app.chat.coalesce.max-delay-ms；coalesceMaxChars 为单帧 delta 字符数上限，不超过 app.chat.coalesce.max-chars。
+     */
+    private TokenCoalescer.Policy coalescePolicy(Integer coalesceMs, Integer coalesceMaxChars) {
+        long ms = coalesceMs == null ? coalesceDefaultMs : coalesceMs;
+        if (ms < 0) {
+            throw new BizException("INVALID_ARGUMENT", "coalesceMs 不能为负数");
+        }
+        ms = Math.min(ms, coalesceMaxMs);
+        if (ms == 0) return TokenCoalescer.Policy.NONE;
+
+        int maxChars = coalesceMaxChars == null ? coalesceCharsLimit : coalesceMaxChars;
+        if (maxChars <= 0) {
+            throw new BizException("INVALID_ARGUMENT", "coalesceMaxChars 必须为正数");
+        }
+        return new TokenCoalescer.Policy(Duration.ofMillis(ms), Math.min(maxChars, coalesceCharsLimit));
+    }
+
+    /**
+     * 一轮流式问答的公共开场：生成 traceId/turnId、落用户消息、组装 agent payload。
+     */
+    private TurnRecorder startTurn(String userId,
+                                   String sessionId,
+                                   String message,
+                                   String mode,
+                                   Map<String, Object> context) {
         final String traceId = TraceIdUtil.getOrCreate();
-        final String normalizedMode = (ChatMode.from(mode) == ChatMode.REPORT) ? "report" : "simple";
+        final String normalizedMode = normalizeMode(mode);
         final String turnId = chatStorageService.newTurnId();
 
         log.info("[chat.stream] start traceId={}, userId={}, sessionId={}, turnId={}, mode={}=>{}, msgLen={}, ctxKeys={}",
@@ -52,11 +218,158 @@ public class ChatService {
         Map<String, Object> payload = buildAgentPayload(sessionId, message, mode, context, traceId);
         log.debug("[chat.stream] payload traceId={}, turnId={}, payload={}", traceId, turnId, toJson(payload));
 
-        final StringBuilder answer = new StringBuilder();
-        final Map<String, Object> reportMetaRef = new HashMap<>();
-        final java.util.concurrent.atomic.AtomicBoolean saved = new java.util.concurrent.atomic.AtomicBoolean(false);
+        return new TurnRecorder(userId, sessionId, traceId, turnId, normalizedMode, payload);
+    }
 
-        java.lang.Runnable saveAssistantOnce = () -> {
+    /** token 合并用：取不出 delta（格式不认识）时返回 null，该帧按原样放行 */
+    private static String deltaOrNull(String data) {
+        if (data == null) return null;
+        try {
+            return JsonUtil.extractDelta(data);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String deltaOrNull(byte[] data) {
+        try {
+            return JsonUtil.extractDelta(data, 0, data.length);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String deltaJson(String delta) {
+        return toJson(Map.of("delta", delta));
+    }
+
+    private static String normalizeMode(String mode) {
+        return (ChatMode.from(mode) == ChatMode.REPORT) ? "report" : "simple";
+    }
+
+    private static String errorJson(Throwable e, String traceId) {
+        String code = (e instanceof BizException) ? ((BizException) e).getCode() : "AI_SERVICE_ERROR";
+        Map<String, Object> err = new HashMap<>();
+        err.put("code", code);
+        err.put("message", e.getMessage());
+        if (e instanceof BizException be && be.getDetails() != null) {
+            err.put("details", be.getDetails());
+        }
+        err.put("traceId", traceId);
+        err.put("retryable", true);
+        return toJson(err);
+    }
+
+    /**
+     * 一轮流式问答的落库旁路：累积 answer、收集 reportMeta，在 done 或流结束时保存 assistant 消息（只保存一次）。
+     */
+    private final class TurnRecorder {
+
+        final String userId;
+        final String sessionId;
+        final String traceId;
+        final String turnId;
+        final String normalizedMode;
+        final Map<String, Object> payload;
+
+        private final StringBuilder answer = new StringBuilder();
+        private final Map<String, Object> reportMetaRef = new HashMap<>();
+        private final AtomicBoolean saved = new AtomicBoolean(false);
+        private final AtomicLong eventSeq = new AtomicLong(0);
+        /** 落库结束后的回调（登记了 ChatTurn 时用于引用计数释放） */
+        Runnable onFinished;
+
+        TurnRecorder(String userId, String sessionId, String traceId, String turnId,
+                     String normalizedMode, Map<String, Object> payload) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.traceId = traceId;
+            this.turnId = turnId;
+            this.normalizedMode = normalizedMode;
+            this.payload = payload;
+        }
+
+        /**
+         * 原始帧入口：token 直接在字节上取 delta，其余事件解码成字符串后走 {@link #onEvent}；
+         * 只有注释/空行的帧（心跳等）不处理。
+         */
+        void onFrame(SseFrame f) {
+            if (f.event() == null && f.data() == null) return;
+            if (f.isToken()) {
+                eventSeq.incrementAndGet();
+                appendDelta(answer, f.data());
+                return;
+            }
+            onEvent(f.event(), f.data() == null ? null : new String(f.data(), StandardCharsets.UTF_8));
+        }
+
+        void onEvent(String ev, String data) {
+            long seq = eventSeq.incrementAndGet();
+            if (data == null) {
+                log.debug("[chat.stream] sse#{} traceId={}, turnId={}, event={}, data=NULL", seq, traceId, turnId, ev);
+                return;
+            }
+
+            // 避免 token 过多刷屏：仅 debug
+            if (!"token".equals(ev)) {
+                log.debug("[chat.stream] sse#{} traceId={}, turnId={}, event={}, data={}",
+                        seq, traceId, turnId, ev, safeClip(data, 600));
+            }
+
+            if ("token".equals(ev)) {
+                appendDelta(answer, data);
+                return;
+            }
+
+            if ("file_meta".equals(ev)) {
+                mergeReportMetaFromAnyJson(reportMetaRef, data);
+                log.info("[chat.stream] got file_meta traceId={}, turnId={}, reportMetaKeys={}, fileId={}",
+                        traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
+                persistReportMetaToDb(data);
+                return;
+            }
+
+            if ("done".equals(ev)) {
+                mergeReportMetaFromDoneIfPossible(reportMetaRef, data);
+                log.info("[chat.stream] got done traceId={}, turnId={}, reportMetaKeys={}, fileId={}",
+                        traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
+                saveAssistantOnce();
+                return;
+            }
+
+            if (looksLikeDeltaJson(data)) {
+                appendDelta(answer, data);
+                return;
+            }
+
+            if (looksLikeReportMetaJson(data)) {
+                mergeReportMetaFromAnyJson(reportMetaRef, data);
+                log.info("[chat.stream] inferred reportMeta from data traceId={}, turnId={}, keys={}, fileId={}",
+                        traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
+                // 推断到 meta 也立刻尝试落库（如果解析出了 fileId）
+                persistReportMetaToDb(data);
+                return;
+            }
+
+            if (looksLikeDoneJson(data)) {
+                mergeReportMetaFromDoneIfPossible(reportMetaRef, data);
+                log.info("[chat.stream] inferred done from data traceId={}, turnId={}, keys={}, fileId={}",
+                        traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
+                saveAssistantOnce();
+            }
+        }
+
+        void finish(SignalType sig) {
+            log.info("[chat.stream] finally traceId={}, turnId={}, signal={}, events={}, answerLen={}, fileId={}",
+                    traceId, turnId, sig, eventSeq.get(), answer.length(), reportMetaRef.get("fileId"));
+            try {
+                saveAssistantOnce();
+            } finally {
+                if (onFinished != null) onFinished.run();
+            }
+        }
+
+        private void saveAssistantOnce() {
             mergeReportMetaFromAnswerTextIfPossible(reportMetaRef, answer.toString());
 
             if (saved.compareAndSet(false, true)) {
@@ -85,10 +398,10 @@ public class ChatService {
             } else {
                 log.debug("[chat.stream] saveAssistantOnce skipped(already saved) traceId={}, turnId={}", traceId, turnId);
             }
-        };
+        }
 
-        // 新增：在收到 file_meta 时，把元数据补写回“同一轮 turnId 的 assistant 消消息”
-        java.util.function.Consumer<String> persistReportMetaToDb = (fileMetaJson) -> {
+        // 在收到 file_meta 时，把元数据补写回“同一轮 turnId 的 assistant 消息”
+        private void persistReportMetaToDb(String fileMetaJson) {
             try {
                 // 兼容：有些上游把 SSE 原始块（含 "event:"/"data:"）原样塞进 data
                 String extracted = extractJsonFromPossiblyRawSseBlock(fileMetaJson);
@@ -115,90 +428,7 @@ public class ChatService {
                 log.warn("[chat.stream] persist file_meta error traceId={}, turnId={}, msg={}, data={}",
                         traceId, turnId, e.getMessage(), safeClip(fileMetaJson, 500), e);
             }
-        };
-
-        final java.util.concurrent.atomic.AtomicLong eventSeq = new java.util.concurrent.atomic.AtomicLong(0);
-
-        return agentClient.stream(accessToken, payload)
-                .doOnNext(sse -> {
-                    long seq = eventSeq.incrementAndGet();
-                    String ev = sse.event();
-                    String data = sse.data();
-                    if (data == null) {
-                        log.debug("[chat.stream] sse#{} traceId={}, turnId={}, event={}, data=NULL", seq, traceId, turnId, ev);
-                        return;
-                    }
-
-                    // 避免 token 过多刷屏：仅 debug
-                    if (!"token".equals(ev)) {
-                        log.debug("[chat.stream] sse#{} traceId={}, turnId={}, event={}, data={}",
-                                seq, traceId, turnId, ev, safeClip(data, 600));
-                    }
-
-                    if ("token".equals(ev)) {
-                        appendDelta(answer, data);
-                        return;
-                    }
-
-                    if ("file_meta".equals(ev)) {
-                        mergeReportMetaFromAnyJson(reportMetaRef, data);
-                        log.info("[chat.stream] got file_meta traceId={}, turnId={}, reportMetaKeys={}, fileId={}",
-                                traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
-                        persistReportMetaToDb.accept(data);
-                        return;
-                    }
-
-                    if ("done".equals(ev)) {
-                        mergeReportMetaFromDoneIfPossible(reportMetaRef, data);
-                        log.info("[chat.stream] got done traceId={}, turnId={}, reportMetaKeys={}, fileId={}",
-                                traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
-                        saveAssistantOnce.run();
-                        return;
-                    }
-
-                    if (looksLikeDeltaJson(data)) {
-                        appendDelta(answer, data);
-                        return;
-                    }
-
-                    if (looksLikeReportMetaJson(data)) {
-                        mergeReportMetaFromAnyJson(reportMetaRef, data);
-                        log.info("[chat.stream] inferred reportMeta from data traceId={}, turnId={}, keys={}, fileId={}",
-                                traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
-                        // 推断到 meta 也立刻尝试落库（如果解析出了 fileId）
-                        persistReportMetaToDb.accept(data);
-                        return;
-                    }
-
-                    if (looksLikeDoneJson(data)) {
-                        mergeReportMetaFromDoneIfPossible(reportMetaRef, data);
-                        log.info("[chat.stream] inferred done from data traceId={}, turnId={}, keys={}, fileId={}",
-                                traceId, turnId, reportMetaRef.keySet(), reportMetaRef.get("fileId"));
-                        saveAssistantOnce.run();
-                    }
-                })
-                .doFinally(sig -> {
-                    log.info("[chat.stream] finally traceId={}, turnId={}, signal={}, events={}, answerLen={}, fileId={}",
-                            traceId, turnId, sig, eventSeq.get(), answer.length(), reportMetaRef.get("fileId"));
-                    saveAssistantOnce.run();
-                })
-                .map(sse -> ServerSentEvent.builder(sse.data())
-                        .event(sse.event())
-                        .id(sse.id())
-                        .comment(sse.comment())
-                        .build())
-                .onErrorResume(e -> {
-                    String code = (e instanceof BizException) ? ((BizException) e).getCode() : "AI_SERVICE_ERROR";
-                    Map<String, Object> err = new HashMap<>();
-                    err.put("code", code);
-                    err.put("message", e.getMessage());
-                    if (e instanceof BizException be && be.getDetails() != null) {
-                        err.put("details", be.getDetails());
-                    }
-                    err.put("traceId", traceId);
-                    err.put("retryable", true);
-                    return Flux.just(ServerSentEvent.builder(toJson(err)).event("error").build());
-                });
+        }
     }
 
     /**
@@ -211,7 +441,7 @@ public class ChatService {
                                            String mode,
                                            Map<String, Object> context) {
         final String traceId = TraceIdUtil.getOrCreate();
-        final String normalizedMode = (ChatMode.from(mode) == ChatMode.REPORT) ? "report" : "simple";
+        final String normalizedMode = normalizeMode(mode);
         final String turnId = chatStorageService.newTurnId();
 
         chatStorageService.saveUserMessage(userId, sessionId, turnId, traceId, normalizedMode, message);
@@ -294,8 +524,7 @@ public class ChatService {
      */
     private static void mergeReportMetaFromAnyJson(Map<String, Object> target, String data) {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> obj = com.fasterxml.jackson.databind.json.JsonMapper.builder().build().readValue(data, Map.class);
+            Map<String, Object> obj = JsonUtil.readMap(data);
 
             Map<String, Object> rm = extractReportMetaObject(obj);
             if (rm != null && !rm.isEmpty()) {
@@ -389,8 +618,7 @@ public class ChatService {
         String s = jsonText.trim();
         if (!s.startsWith("{")) return null;
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> obj = com.fasterxml.jackson.databind.json.JsonMapper.builder().build().readValue(s, Map.class);
+            Map<String, Object> obj = JsonUtil.readMap(s);
             Object rm = obj.get("reportMeta");
             if (rm instanceof Map<?, ?> m) {
                 Map<String, Object> out = new HashMap<>();
@@ -424,18 +652,13 @@ public class ChatService {
     }
 
     private static String toJson(Object obj) {
-        try {
-            return com.fasterxml.jackson.databind.json.JsonMapper.builder().build().writeValueAsString(obj);
-        } catch (Exception e) {
-            return "{}";
-        }
+        return JsonUtil.write(obj);
     }
 
     private static void appendDelta(StringBuilder answer, String data) {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> obj = com.fasterxml.jackson.databind.json.JsonMapper.builder().build().readValue(data, Map.class);
-            Object delta = obj.get("delta");
+            // 每个 token 都会走到这里：流式取 delta，不构建 Map
+            String delta = JsonUtil.extractDelta(data);
             if (delta != null) answer.append(delta);
         } catch (Exception e) {
             // 解析失败时把原始 data 追加入 answer，同时输出 debug 便于定位 agent 格式变更
@@ -444,6 +667,17 @@ public class ChatService {
         }
     }
 
+    private static void appendDelta(StringBuilder answer, byte[] data) {
+        try {
+            String delta = JsonUtil.extractDelta(data, 0, data.length);
+            if (delta != null) answer.append(delta);
+        } catch (Exception e) {
+            String raw = new String(data, StandardCharsets.UTF_8);
+            log.debug("[chat.stream] appendDelta parse failed: {} data={}", e.getMessage(), safeClip(raw, 300));
+            answer.append(raw);
+        }
+    }
+
     private static String safeClip(String s, int max) {
         if (s == null) return null;
         if (s.length() <= max) return s;
@@ -452,8 +686,7 @@ public class ChatService {
 
     private static void mergeJsonMap(Map<String, Object> target, String data) {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> obj = com.fasterxml.jackson.databind.json.JsonMapper.builder().build().readValue(data, Map.class);
+            Map<String, Object> obj = JsonUtil.readMap(data);
             target.clear();
             target.putAll(obj);
         } catch (Exception ignore) {
@@ -8,10 +8,12 @@ import com.example.backend.repository.ChatSessionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
 @Service
+@Transactional
 public class ChatStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(ChatStorageService.class);
@@ -0,0 +1,70 @@
+package com.example.backend.service.chat;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * 把一轮问答的 SSE 帧（{@link ChatTurn#frames}，已是编码好的字节）桥接到 Spring MVC 的 ResponseBodyEmitter。
+ * 超时沿用 spring.mvc.async.request-timeout；写 servlet 输出流是阻塞 IO，放到 boundedElastic 上执行，不占 Netty 事件循环；
+ * 前端断开（send 抛 IOException）或请求完成/超时/出错时只取消本连接的订阅，不影响这一轮的上游。
+ */
+public final class ChatStreamEmitters {
+
+    private ChatStreamEmitters() {}
+
+    public static ResponseBodyEmitter raw(Flux<byte[]> frames) {
+        ResponseBodyEmitter emitter = new RawSseEmitter();
+        bridge(emitter, frames, bytes -> {
+            try {
+                emitter.send(bytes, MediaType.TEXT_EVENT_STREAM);
+            } catch (IOException e) {
+                throw new ClientGoneException(e);
+            }
+        });
+        return emitter;
+    }
+
+    private static <T> void bridge(ResponseBodyEmitter emitter, Flux<T> source, Consumer<T> writer) {
+        Disposable sub = source
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(writer)
+                .subscribe(
+                        v -> {},
+                        e -> {
+                            if (e instanceof ClientGoneException) emitter.complete();
+                            else emitter.completeWithError(e);
+                        },
+                        emitter::complete);
+        emitter.onCompletion(sub::dispose);
+        emitter.onTimeout(sub::dispose);
+        emitter.onError(e -> sub.dispose());
+    }
+
+    /**
+     * 直接写原始 SSE 字节的 emitter：只负责把 Content-Type 设成 text/event-stream，不做任何编码。
+     */
+    static final class RawSseEmitter extends ResponseBodyEmitter {
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            if (outputMessage.getHeaders().getContentType() == null) {
+                outputMessage.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+            }
+        }
+    }
+
+    /** 前端已断开：上游取消即可，不再按错误处理 */
+    private static final class ClientGoneException extends RuntimeException {
+        ClientGoneException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.backend.service.chat;
+
+import com.example.backend.util.JsonUtil;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一轮进行中（或刚结束）的流式问答。
+ * <p>
+ * 上游只订阅一次，写给前端的每一帧按顺序编号（SSE id: 1, 2, ...）后放进有界回放缓冲，任意多个连接共享：
+ * - 前端断开只取消自己的订阅，上游继续跑完（答案照常落库）；
+ * - 重连时带 Last-Event-ID，从缓冲里补发其后的帧，再接着收实时帧；同会话的其它标签页从头接入；
+ * - 缓冲已滚动、补不齐时发一个 code=RESUME_GAP 的 error 帧后结束，由前端决定是否重新提问。
+ * 上游结束、落库完成且最后一个订阅者离开时回调 onRelease（从会话索引摘除）。
+ */
+public final class ChatTurn {
+
+    private final String turnId;
+    private final String sessionId;
+    private final String userId;
+    private final String dedupKey;
+    private final int replayLimit;
+    private final Consumer<ChatTurn> onRelease;
+
+    private final Sinks.Many<Entry> sink;
+    private final AtomicLong lastSeq = new AtomicLong();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private volatile Disposable upstream;
+    /** 最近一次没有订阅者的时刻；有订阅者时为 0 */
+    private volatile long idleSince;
+    /** 上游结束时刻；进行中为 0 */
+    private volatile long finishedAt;
+    /** 落库旁路已完成（assistant 消息已保存） */
+    private volatile boolean persisted;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    ChatTurn(String turnId, String sessionId, String userId, String dedupKey, int replayLimit,
+             Consumer<ChatTurn> onRelease) {
+        this.turnId = turnId;
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.dedupKey = dedupKey;
+        this.replayLimit = replayLimit;
+        this.onRelease = onRelease;
+        this.sink = Sinks.many().replay().limit(replayLimit);
+        this.idleSince = System.currentTimeMillis();
+    }
+
+    public String turnId() {
+        return turnId;
+    }
+
+    public String sessionId() {
+        return sessionId;
+    }
+
+    public String userId() {
+        return userId;
+    }
+
+    /**
+     * afterSeq 不超过已发出的最后一帧、且缓冲里还留着它之后的第一帧（或者该帧还没产生）时才能续传。
+     * 超过最后一帧的 id 不是本轮发出的，接上去只会一直丢帧等到结束，按无法续传处理。
+     */
+    public boolean canResumeFrom(long afterSeq) {
+        long last = lastSeq.get();
+        return afterSeq <= last && afterSeq + 1 >= last - replayLimit + 1;
+    }
+
+    /**
+     * 从 afterSeq 之后开始的帧（已带 id 行的原始字节）；afterSeq=0 表示从头。
+     */
+    public Flux<byte[]> frames(long afterSeq) {
+        return Flux.defer(() -> {
+            boolean[] first = {true};
+            return sink.asFlux()
+                    .<byte[]>handle((e, out) -> {
+                        if (e.seq() <= afterSeq) return;
+                        if (first[0]) {
+                            first[0] = false;
+                            if (e.seq() > afterSeq + 1) {
+                                out.next(gapFrame(afterSeq, e.seq()));
+                                out.complete();
+                                return;
+                            }
+                        }
+                        out.next(e.bytes());
+                    })
+                    .doOnSubscribe(s -> {
+                        subscribers.incrementAndGet();
+                        idleSince = 0;
+                    })
+                    .doFinally(sig -> {
+                        if (subscribers.decrementAndGet() == 0) {
+                            idleSince = System.currentTimeMillis();
+                            tryRelease();
+                        }
+                    });
+        });
+    }
+
+    String dedupKey() {
+        return dedupKey;
+    }
+
+    /**
+     * 落库旁路结束时调用（上游的 doFinally 晚于 complete 信号执行，不能以 finished 代替）。
+     */
+    void markPersisted() {
+        persisted = true;
+        tryRelease();
+    }
+
+    void connect(Flux<SseFrame> source) {
+        upstream = source.subscribe(this::emit, e -> finish(), this::finish);
+    }
+
+    boolean finished() {
+        return finishedAt != 0;
+    }
+
+    long finishedAt() {
+        return finishedAt;
+    }
+
+    int subscribers() {
+        return subscribers.get();
+    }
+
+    long idleSince() {
+        return idleSince;
+    }
+
+    /**
+     * 没人再看了：取消上游（ChatService 的 doFinally 会保存已收到的部分答案）。
+     */
+    void cancel() {
+        Disposable d = upstream;
+        if (d != null) d.dispose();
+        finish();
+    }
+
+    /** 上游是单一订阅、按序回调，这里不会并发 emit */
+    private void emit(SseFrame f) {
+        long seq = lastSeq.incrementAndGet();
+        byte[] id = ("id: " + seq + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] out = new byte[id.length + f.raw().length];
+        System.arraycopy(id, 0, out, 0, id.length);
+        System.arraycopy(f.raw(), 0, out, id.length, f.raw().length);
+        sink.tryEmitNext(new Entry(seq, out));
+    }
+
+    private void finish() {
+        if (finishedAt == 0) finishedAt = System.currentTimeMillis();
+        // cancel() 可能与上游最后一帧并发，短暂自旋等对方 emit 完
+        sink.emitComplete(Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        tryRelease();
+    }
+
+    private void tryRelease() {
+        if (finishedAt != 0 && persisted && subscribers.get() == 0 && released.compareAndSet(false, true)) {
+            onRelease.accept(this);
+        }
+    }
+
+    private byte[] gapFrame(long afterSeq, long firstAvailable) {
+        String json = JsonUtil.write(Map.of(
+                "code", "RESUME_GAP",
+                "message", "续传缓冲已滚动，无法从 " + afterSeq + " 之后补齐（最早可补 " + firstAvailable + "）",
+                "turnId", turnId,
+                "retryable", false));
+        return SseFrame.of("error", json).raw();
+    }
+
+    private record Entry(long seq, byte[] bytes) {}
+}
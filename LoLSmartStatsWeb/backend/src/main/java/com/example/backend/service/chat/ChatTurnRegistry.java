@@ -0,0 +1,137 @@
+package com.example.backend.service.chat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * 进行中 / 刚结束的流式问答，按 (sessionId, turnId) 登记：
+ * - turnId -> turn：断线续传（结束后保留 app.chat.resume.retain-ms，过期清理）；
+ * - sessionId -> 仍在服务的 turn：同一会话的其它标签页直接接到这一轮上，不再另起 agent 调用；
+ *   上游结束、答案已落库且最后一个订阅者离开后从会话索引摘除（之后新标签页走历史消息）；
+ * - 进行中但连续 app.chat.resume.idle-cancel-ms 没有任何订阅者时取消上游，避免白跑 agent。
+ */
+@Component
+public class ChatTurnRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatTurnRegistry.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<String, ChatTurn> turns = new ConcurrentHashMap<>();
+    private final Map<String, List<ChatTurn>> activeBySession = new ConcurrentHashMap<>();
+    private final Object[] sessionLocks = new Object[LOCK_STRIPES];
+
+    private final int replayLimit;
+    private final long retainMs;
+    private final long idleCancelMs;
+
+    public ChatTurnRegistry(@Value("${app.chat.resume.replay-limit:2048}") int replayLimit,
+                            @Value("${app.chat.resume.retain-ms:120000}") long retainMs,
+                            @Value("${app.chat.resume.idle-cancel-ms:60000}") long idleCancelMs) {
+        this.replayLimit = replayLimit;
+        this.retainMs = retainMs;
+        this.idleCancelMs = idleCancelMs;
+        for (int i = 0; i < LOCK_STRIPES; i++) sessionLocks[i] = new Object();
+    }
+
+    /**
+     * 同一会话里、同一用户以同样的 dedupKey（提问内容）已有进行中的一轮、且回放缓冲还能从头补发时直接返回它（调用方订阅即可共享同一个上游）；
+     * 否则调用 starter 开新的一轮（starter 内用 {@link #create} 建 turn 并接上游）。
+     * 同一会话的判重与开轮串行执行，两个标签页同时提交同一问题也只会调用一次 agent。
+     */
+    ChatTurn openOrAttach(String sessionId, String userId, String dedupKey, Supplier<ChatTurn> starter) {
+        synchronized (lockFor(sessionId)) {
+            List<ChatTurn> active = activeBySession.get(sessionId);
+            if (active != null) {
+                for (ChatTurn t : active) {
+                    if (!t.finished() && t.userId().equals(userId) && t.dedupKey().equals(dedupKey) && t.canResumeFrom(0)) {
+                        log.info("[chat.turn] attach duplicate request turnId={}, sessionId={}, subscribers={}",
+                                t.turnId(), sessionId, t.subscribers());
+                        return t;
+                    }
+                }
+            }
+            ChatTurn turn = starter.get();
+            activeBySession.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>()).add(turn);
+            return turn;
+        }
+    }
+
+    /**
+     * 建一个未连接上游的 turn 并按 turnId 登记；调用方接着 connect。
+     */
+    ChatTurn create(String turnId, String sessionId, String userId, String dedupKey) {
+        ChatTurn turn = new ChatTurn(turnId, sessionId, userId, dedupKey, replayLimit, this::release);
+        turns.put(turnId, turn);
+        return turn;
+    }
+
+    /**
+     * 找不到（从未存在或已过期清理）返回 null。
+     */
+    public ChatTurn find(String turnId) {
+        return turnId == null ? null : turns.get(turnId);
+    }
+
+    /**
+     * 会话里该用户最近开始、仍在服务的一轮；没有返回 null。
+     */
+    public ChatTurn findActive(String sessionId, String userId) {
+        List<ChatTurn> active = sessionId == null ? null : activeBySession.get(sessionId);
+        if (active == null) return null;
+        ChatTurn latest = null;
+        for (ChatTurn t : active) {
+            if (t.userId().equals(userId)) latest = t;
+        }
+        return latest;
+    }
+
+    /**
+     * 上游结束、已落库、没有订阅者：从会话索引摘除（turnId 索引保留到 retain-ms 过期，供续传）。
+     */
+    private void release(ChatTurn turn) {
+        synchronized (lockFor(turn.sessionId())) {
+            List<ChatTurn> active = activeBySession.get(turn.sessionId());
+            if (active == null) return;
+            if (active.remove(turn)) {
+                log.debug("[chat.turn] released turnId={}, sessionId={}", turn.turnId(), turn.sessionId());
+            }
+            if (active.isEmpty()) activeBySession.remove(turn.sessionId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.resume.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<ChatTurn> it = turns.values().iterator();
+        while (it.hasNext()) {
+            ChatTurn t = it.next();
+            if (t.finished()) {
+                if (now - t.finishedAt() > retainMs) {
+                    it.remove();
+                    release(t);
+                }
+                continue;
+            }
+            long idleSince = t.idleSince();
+            if (t.subscribers() == 0 && idleSince != 0 && now - idleSince > idleCancelMs) {
+                log.info("[chat.turn] cancel idle turn turnId={}, sessionId={}, idleMs={}", t.turnId(), t.sessionId(), now - idleSince);
+                t.cancel();
+            }
+        }
+    }
+
+    private Object lockFor(String sessionId) {
+        return sessionLocks[Math.floorMod(sessionId.hashCode(), LOCK_STRIPES)];
+    }
+}
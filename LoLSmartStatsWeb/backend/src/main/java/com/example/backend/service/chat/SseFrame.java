@@ -0,0 +1,44 @@
+package com.example.backend.service.chat;
+
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一个完整的 SSE 帧：raw 为原始字节（含结尾空行），原样写给前端；event/data 供落库旁路与 token 合并使用。
+ *
+ * @param event 事件名；只有注释行/空行的帧为 null
+ * @param data  data 行拼接后的 UTF-8 字节（多行以 \n 连接）；没有 data 行时为 null
+ * @param raw   原始帧字节
+ */
+record SseFrame(String event, byte[] data, byte[] raw) {
+
+    boolean isToken() {
+        return "token".equals(event) && data != null;
+    }
+
+    /**
+     * 后端自己生成的帧（合并后的 token、error）：data 不含换行，编码为单行 data。
+     */
+    static SseFrame of(String event, String data) {
+        byte[] d = data.getBytes(StandardCharsets.UTF_8);
+        return new SseFrame(event, d, ("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * relay-mode=decoded：把解码后的事件重新编码成帧。上游 id 不带出去，帧序号由 {@link ChatTurn} 统一分配。
+     */
+    static SseFrame encode(ServerSentEvent<String> sse) {
+        StringBuilder sb = new StringBuilder();
+        if (sse.comment() != null) {
+            for (String line : sse.comment().split("\n", -1)) sb.append(':').append(line).append('\n');
+        }
+        if (sse.event() != null) sb.append("event: ").append(sse.event()).append('\n');
+        if (sse.data() != null) {
+            for (String line : sse.data().split("\n", -1)) sb.append("data: ").append(line).append('\n');
+        }
+        sb.append('\n');
+        byte[] d = sse.data() == null ? null : sse.data().getBytes(StandardCharsets.UTF_8);
+        return new SseFrame(sse.event(), d, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
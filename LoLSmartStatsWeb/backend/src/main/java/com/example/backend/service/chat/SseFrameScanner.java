@@ -0,0 +1,150 @@
+package com.example.backend.service.chat;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把上游 SSE 字节流切成完整帧（以空行结尾），帧的原始字节不做任何改写。
+ * <p>
+ * - 上游 DataBuffer 读入一块复用的缓冲区，每个完整帧复制一次成独立的 byte[]（即写给前端的那份）；
+ * - 行尾兼容 \n / \r\n / \r，跨 DataBuffer 的半帧留在缓冲区里等下一块；
+ * - 只解析 event: 与 data:，多行 data 以 \n 拼接；以 : 开头的注释行与其它字段忽略（但原样保留在 raw 中）。
+ * 非线程安全：同一条流上按顺序 feed。
+ */
+final class SseFrameScanner {
+
+    private static final byte[] EVENT = "event".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.US_ASCII);
+
+    /** 待切分的字节：[0, len) */
+    private byte[] buf = new byte[4096];
+    private int len;
+    /** 当前帧起点 / 当前行起点 / 下一个待扫描字节 */
+    private int frameStart;
+    private int lineStart;
+    private int pos;
+
+    private String event;
+    private byte[] data = new byte[1024];
+    private int dataLen;
+    private boolean hasData;
+
+    /**
+     * 读入一块上游数据（不释放 DataBuffer），返回其中凑齐的完整帧。
+     */
+    List<SseFrame> feed(DataBuffer in) {
+        int n = in.readableByteCount();
+        ensure(len + n);
+        in.read(buf, len, n);
+        len += n;
+
+        List<SseFrame> out = new ArrayList<>(2);
+        scan(out, false);
+        compact();
+        return out;
+    }
+
+    /**
+     * 流结束：没有以空行收尾的残余字节也作为最后一帧交出去。
+     */
+    List<SseFrame> finish() {
+        List<SseFrame> out = new ArrayList<>(1);
+        scan(out, true);
+        return out;
+    }
+
+    private void scan(List<SseFrame> out, boolean eof) {
+        while (pos < len) {
+            byte c = buf[pos];
+            if (c != '\n' && c != '\r') {
+                pos++;
+                continue;
+            }
+            int lineEnd = pos;
+            if (c == '\r') {
+                // \r 恰好落在块尾：等下一块确认是不是 \r\n
+                if (pos + 1 == len && !eof) break;
+                pos += (pos + 1 < len && buf[pos + 1] == '\n') ? 2 : 1;
+            } else {
+                pos++;
+            }
+            if (lineEnd == lineStart) {
+                out.add(cut(pos));
+            } else {
+                line(lineStart, lineEnd);
+            }
+            lineStart = pos;
+        }
+        if (eof && frameStart < len) {
+            if (lineStart < len) line(lineStart, len);
+            out.add(cut(len));
+            lineStart = pos = len;
+        }
+    }
+
+    private void line(int from, int to) {
+        if (buf[from] == ':') return;
+
+        int colon = -1;
+        for (int k = from; k < to; k++) {
+            if (buf[k] == ':') {
+                colon = k;
+                break;
+            }
+        }
+        int nameEnd = colon < 0 ? to : colon;
+        int valueStart = colon < 0 ? to : colon + 1;
+        if (valueStart < to && buf[valueStart] == ' ') valueStart++;
+
+        if (nameIs(from, nameEnd, DATA)) {
+            if (hasData) appendData(new byte[]{'\n'}, 0, 1);
+            appendData(buf, valueStart, to - valueStart);
+            hasData = true;
+        } else if (nameIs(from, nameEnd, EVENT)) {
+            event = new String(buf, valueStart, to - valueStart, StandardCharsets.UTF_8);
+        }
+    }
+
+    private SseFrame cut(int end) {
+        SseFrame f = new SseFrame(event,
+                hasData ? Arrays.copyOf(data, dataLen) : null,
+                Arrays.copyOfRange(buf, frameStart, end));
+        frameStart = end;
+        event = null;
+        dataLen = 0;
+        hasData = false;
+        return f;
+    }
+
+    private boolean nameIs(int from, int to, byte[] name) {
+        if (to - from != name.length) return false;
+        for (int k = 0; k < name.length; k++) {
+            if (buf[from + k] != name[k]) return false;
+        }
+        return true;
+    }
+
+    /** 已切走的帧从缓冲区前部挪掉，半帧移到开头 */
+    private void compact() {
+        if (frameStart == 0) return;
+        System.arraycopy(buf, frameStart, buf, 0, len - frameStart);
+        len -= frameStart;
+        pos -= frameStart;
+        lineStart -= frameStart;
+        frameStart = 0;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, capacity));
+    }
+
+    private void appendData(byte[] b, int off, int n) {
+        if (dataLen + n > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, dataLen + n));
+        System.arraycopy(b, off, data, dataLen, n);
+        dataLen += n;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.backend.service.chat;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 把连续的 token 事件合并成一个 token 事件，减少写给前端的帧数（每帧一次 flush）。
+ * <p>
+ * - 一批 token 最多攒 maxDelay（从这批第一个 token 起算），或 delta 累计达到 maxChars 时提前发出；
+ * - 非 token 事件（file_meta / done / error 等）以及解析不出 delta 的 token 立即放行，并先把手上攒着的 token 发出去，顺序不变；
+ * - 合并后的 token 只带 delta 字段：{"delta": "..."}。
+ */
+final class TokenCoalescer {
+
+    /** 单批 token 个数上限（bufferTimeout 需要一个数量上限） */
+    private static final int MAX_TOKENS_PER_FRAME = 512;
+
+    private TokenCoalescer() {}
+
+    /**
+     * @param deltaOf token 事件返回其 delta，其余返回 null
+     * @param tokenOf 用合并后的 delta 生成一个 token 事件
+     */
+    static <T> Flux<T> coalesce(Flux<T> source, Policy policy,
+                                Function<T, String> deltaOf, Function<String, T> tokenOf) {
+        if (!policy.enabled()) return source;
+
+        return Flux.defer(() -> {
+            int[] chars = {0};
+            return source
+                    .map(v -> new Item<>(v, deltaOf.apply(v)))
+                    // 非 token 或累计够 maxChars 时切窗口（该元素是窗口的最后一个）
+                    .windowUntil(it -> {
+                        if (it.delta() == null) {
+                            chars[0] = 0;
+                            return true;
+                        }
+                        chars[0] += it.delta().length();
+                        if (chars[0] >= policy.maxChars()) {
+                            chars[0] = 0;
+                            return true;
+                        }
+                        return false;
+                    })
+                    // 窗口内再按时间切：窗口结束时剩余的也立即发出
+                    .concatMap(w -> w.bufferTimeout(MAX_TOKENS_PER_FRAME, policy.maxDelay(), true))
+                    .concatMapIterable(batch -> merge(batch, tokenOf));
+        });
+    }
+
+    private static <T> List<T> merge(List<Item<T>> batch, Function<String, T> tokenOf) {
+        List<T> out = new ArrayList<>(2);
+        StringBuilder run = null;
+        int runCount = 0;
+        T single = null;
+        for (Item<T> it : batch) {
+            if (it.delta() != null) {
+                if (runCount == 0) {
+                    single = it.value();
+                    run = new StringBuilder(it.delta());
+                } else {
+                    run.append(it.delta());
+                }
+                runCount++;
+                continue;
+            }
+            if (runCount > 0) out.add(runCount == 1 ? single : tokenOf.apply(run.toString()));
+            runCount = 0;
+            out.add(it.value());
+        }
+        // 只有一个 token 时原样放行，不重新编码
+        if (runCount > 0) out.add(runCount == 1 ? single : tokenOf.apply(run.toString()));
+        return out;
+    }
+
+    private record Item<T>(T value, String delta) {}
+
+    /**
+     * 合并参数：maxDelay 为 0 表示不合并。
+     */
+    record Policy(Duration maxDelay, int maxChars) {
+
+        static final Policy NONE = new Policy(Duration.ZERO, 0);
+
+        boolean enabled() {
+            return !maxDelay.isZero() && !maxDelay.isNegative();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.ChampionStatsRequest;
+import com.example.backend.dto.request.DataOptionsRequest;
+import com.example.backend.exception.BizException;
+import com.example.backend.util.MatchDateUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 英雄数据统计：按 scope（赛事/阶段/日期）统计每个英雄、每个位置的出场、出场率、胜率、平均 KDA。
+ * <p>
+ * 快照启用时一次扫描 {@link PlayerStatSnapshot}（已关联 Games.winner_id）；未启用时退回 SQL 聚合。
+ * 结果按 scope 做 LRU 缓存，快照版本（或 SQL 路径下的源表版本）变化后自动失效。
+ */
+@Service
+public class ChampionStatsService {
+
+    private static final String SQL_POSITION = "CASE WHEN TRIM(s.position) = '' THEN NULL ELSE s.position END";
+
+    private static final String SQL_FROM =
+            "FROM PlayerGameStats s " +
+                    "LEFT JOIN Games g ON g.id = s.game_id " +
+                    "LEFT JOIN Matches m ON m.id = g.match_id WHERE 1=1";
+
+    private final PlayerStatSnapshot playerStatSnapshot;
+    private final DataVersionService dataVersionService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 访问顺序的 LinkedHashMap，超出 cacheMaxEntries 时淘汰最久未用的条目；所有访问都在 cache 上同步 */
+    private final Map<String, Cached> cache;
+
+    public ChampionStatsService(PlayerStatSnapshot playerStatSnapshot,
+                                DataVersionService dataVersionService,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${app.data.champion-stats.cache-max-entries:512}") int cacheMaxEntries) {
+        this.playerStatSnapshot = playerStatSnapshot;
+        this.dataVersionService = dataVersionService;
+        this.jdbcTemplate = jdbcTemplate;
+        int maxEntries = Math.max(1, cacheMaxEntries);
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Map<String, Object> stats(ChampionStatsRequest req) {
+        DataOptionsRequest.Scope scope = req == null ? null : req.getScope();
+        String tournamentName = scope == null ? null : blankToNull(scope.getTournamentName());
+        String stage = scope == null ? null : blankToNull(scope.getStage());
+        String from = scope == null || scope.getDateRange() == null ? null : blankToNull(scope.getDateRange().getFrom());
+        String to = scope == null || scope.getDateRange() == null ? null : blankToNull(scope.getDateRange().getTo());
+        String position = req == null ? null : blankToNull(req.getPosition());
+
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) requireDate(from, "scope.dateRange.from").toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) requireDate(to, "scope.dateRange.to").toEpochDay();
+
+        String key = tournamentName + "\u0001" + stage + "\u0001" + fromDay + "\u0001" + toDay + "\u0001" + position;
+        PlayerStatSnapshot.Snapshot snap = playerStatSnapshot.isEnabled() ? playerStatSnapshot.require() : null;
+        String version;
+        if (snap != null) {
+            version = "s" + snap.version;
+        } else {
+            DataVersionService.Versions v = dataVersionService.current();
+            version = v.stats() + "|" + v.matches();
+        }
+        Cached c;
+        synchronized (cache) {
+            c = cache.get(key);
+        }
+        if (c != null && c.version.equals(version)) return c.result;
+
+        Map<String, Object> result = snap != null
+                ? compute(snap, tournamentName, stage, fromDay, toDay, position)
+                : query(tournamentName, stage, fromDay, toDay, position);
+        synchronized (cache) {
+            cache.put(key, new Cached(version, result));
+        }
+        return result;
+    }
+
+    /**
+     * 快照未启用：同样的口径直接在 MySQL 上按 (英雄, 位置) 聚合。
+     * 空白的位置按空处理、空白英雄名不计入英雄列表（但计入总局数），与快照的字典编码一致。
+     */
+    private Map<String, Object> query(String tournamentName, String stage, int fromDay, int toDay, String position) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        if (tournamentName != null) {
+            where.append(" AND m.tournament_name = ?");
+            args.add(tournamentName);
+        }
+        if (stage != null) {
+            where.append(" AND m.stage = ?");
+            args.add(stage);
+        }
+        if (fromDay != Integer.MIN_VALUE) {
+            where.append(" AND m.match_day >= ?");
+            args.add(Date.valueOf(LocalDate.ofEpochDay(fromDay)));
+        }
+        if (toDay != Integer.MAX_VALUE) {
+            where.append(" AND m.match_day <= ?");
+            args.add(Date.valueOf(LocalDate.ofEpochDay(toDay)));
+        }
+        if (position != null) {
+            where.append(" AND s.position = ?");
+            args.add(position);
+        }
+
+        Integer totalGames = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT s.game_id) " + SQL_FROM + where, Integer.class, args.toArray());
+
+        String sql = "SELECT s.champion_name, MAX(s.champion_name_en), " +
+                SQL_POSITION + ", COUNT(*), " +
+                "SUM(CASE WHEN g.winner_id IS NOT NULL AND s.team_id IS NOT NULL AND g.winner_id = s.team_id THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN g.winner_id IS NOT NULL AND s.team_id IS NOT NULL THEN 1 ELSE 0 END), " +
+                "SUM(s.kda), COUNT(s.kda) " +
+                SQL_FROM + where + " AND s.champion_name IS NOT NULL AND TRIM(s.champion_name) <> '' " +
+                "GROUP BY s.champion_name, " + SQL_POSITION + " ORDER BY s.champion_name";
+        List<Line> lines = jdbcTemplate.query(sql, (rs, i) -> new Line(
+                rs.getString(1), rs.getString(2), rs.getString(3),
+                rs.getInt(4), rs.getInt(5), rs.getInt(6), rs.getDouble(7), rs.getInt(8)), args.toArray());
+        return render(lines, totalGames == null ? 0 : totalGames);
+    }
+
+    private static Map<String, Object> compute(PlayerStatSnapshot.Snapshot snap,
+                                               String tournamentName, String stage,
+                                               int fromDay, int toDay, String position) {
+        int tCode = tournamentName == null ? -1 : snap.tournamentCode(tournamentName);
+        int sCode = stage == null ? -1 : snap.stageCode(stage);
+        int pCode = position == null ? -1 : snap.positionCode(position);
+        boolean empty = (tournamentName != null && tCode < 0) || (stage != null && sCode < 0)
+                || (position != null && pCode < 0);
+
+        int champions = snap.championNames.length;
+        // 位置槽：0 表示位置为空，其余为 positionCode + 1
+        int slots = snap.positionNames.length + 1;
+        int[] picks = new int[champions * slots];
+        int[] wins = new int[champions * slots];
+        int[] decided = new int[champions * slots];
+        double[] kdaSum = new double[champions * slots];
+        int[] kdaN = new int[champions * slots];
+        BitSet games = new BitSet();
+
+        if (!empty) {
+            int n = snap.size;
+            int[] tournament = snap.tournament;
+            int[] stageCol = snap.stage;
+            int[] day = snap.day;
+            int[] positionCol = snap.position;
+            int[] championCol = snap.champion;
+            int[] gameId = snap.gameId;
+            byte[] win = snap.win;
+            float[] kda = snap.kda;
+            boolean dateFilter = fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+
+            for (int i = 0; i < n; i++) {
+                if (tCode >= 0 && tournament[i] != tCode) continue;
+                if (sCode >= 0 && stageCol[i] != sCode) continue;
+                if (dateFilter) {
+                    int d = day[i];
+                    if (d == PlayerStatSnapshot.NO_DAY || d < fromDay || d > toDay) continue;
+                }
+                if (pCode >= 0 && positionCol[i] != pCode) continue;
+
+                games.set(gameId[i]);
+                int ch = championCol[i];
+                if (ch < 0) continue;
+                int idx = ch * slots + positionCol[i] + 1;
+                picks[idx]++;
+                if (win[i] != PlayerStatSnapshot.WIN_UNKNOWN) {
+                    decided[idx]++;
+                    if (win[i] == PlayerStatSnapshot.WIN) wins[idx]++;
+                }
+                float k = kda[i];
+                if (!Float.isNaN(k)) {
+                    kdaSum[idx] += k;
+                    kdaN[idx]++;
+                }
+            }
+        }
+
+        List<Line> lines = new ArrayList<>();
+        for (int ch = 0; ch < champions; ch++) {
+            for (int slot = 0; slot < slots; slot++) {
+                int idx = ch * slots + slot;
+                if (picks[idx] == 0) continue;
+                lines.add(new Line(snap.championNames[ch], snap.championNamesEn[ch],
+                        slot == 0 ? null : snap.positionNames[slot - 1],
+                        picks[idx], wins[idx], decided[idx], kdaSum[idx], kdaN[idx]));
+            }
+        }
+        return render(lines, games.cardinality());
+    }
+
+    /**
+     * 把 (英雄, 位置) 明细行汇总成响应：同一英雄的行必须相邻。
+     */
+    private static Map<String, Object> render(List<Line> lines, int totalGames) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        int i = 0;
+        while (i < lines.size()) {
+            Line first = lines.get(i);
+            int cPicks = 0, cWins = 0, cDecided = 0, cKdaN = 0;
+            double cKdaSum = 0;
+            List<Map<String, Object>> byPosition = new ArrayList<>();
+            for (; i < lines.size() && lines.get(i).champion().equals(first.champion()); i++) {
+                Line l = lines.get(i);
+                cPicks += l.picks();
+                cWins += l.wins();
+                cDecided += l.decided();
+                cKdaSum += l.kdaSum();
+                cKdaN += l.kdaN();
+
+                Map<String, Object> p = line(l.picks(), l.wins(), l.decided(), l.kdaSum(), l.kdaN(), totalGames);
+                p.put("position", l.position());
+                byPosition.add(p);
+            }
+            byPosition.sort(Comparator.comparing(m -> -((Number) m.get("picks")).intValue()));
+
+            Map<String, Object> m = line(cPicks, cWins, cDecided, cKdaSum, cKdaN, totalGames);
+            m.put("name", first.champion());
+            m.put("nameEn", first.championEn());
+            m.put("positions", byPosition);
+            items.add(m);
+        }
+        // 出场数相同按英雄名排，快照与 SQL 两条路径顺序一致
+        items.sort(Comparator.<Map<String, Object>>comparingInt(m -> -((Number) m.get("picks")).intValue())
+                .thenComparing(m -> (String) m.get("name")));
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("totalGames", totalGames);
+        out.put("champions", items);
+        return out;
+    }
+
+    private static Map<String, Object> line(int picks, int wins, int decided, double kdaSum, int kdaN, int totalGames) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("picks", picks);
+        m.put("pickRate", totalGames == 0 ? null : round4((double) picks / totalGames));
+        m.put("wins", wins);
+        m.put("winRate", decided == 0 ? null : round4((double) wins / decided));
+        m.put("avgKda", kdaN == 0 ? null : round4(kdaSum / kdaN));
+        return m;
+    }
+
+    private static LocalDate requireDate(String raw, String field) {
+        LocalDate d = MatchDateUtil.parse(raw);
+        if (d == null) {
+            throw new BizException("INVALID_ARGUMENT", field + " 日期格式无效，请使用 YYYY-MM-DD 或 ISO-8601");
+        }
+        return d;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    private static double round4(double v) {
+        return Math.round(v * 10000.0) / 10000.0;
+    }
+
+    private record Cached(String version, Map<String, Object> result) {}
+
+    /** 一个 (英雄, 位置) 的汇总；position 为 null 表示位置为空 */
+    private record Line(String champion, String championEn, String position,
+                        int picks, int wins, int decided, double kdaSum, int kdaN) {}
+}
@@ -1,95 +1,272 @@
 package com.example.backend.service.data;
 
 import com.example.backend.dto.request.DataOptionsRequest;
+import com.example.backend.dto.response.DataOptionItems;
+import com.example.backend.exception.BizException;
 import com.example.backend.repository.PlayerGameStatRepository;
 import com.example.backend.repository.PlayerRepository;
 import com.example.backend.repository.TeamRepository;
+import com.example.backend.util.ETagUtil;
+import com.example.backend.util.MatchDateUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@Transactional(readOnly = true)
 public class DataOptionsService {
 
+    private static final Comparator<DataOptionItems.ChampionItem> CHAMPION_ORDER =
+            Comparator.comparing(c -> String.valueOf(c.name()));
+
     private final TeamRepository teamRepository;
     private final PlayerRepository playerRepository;
     private final PlayerGameStatRepository playerGameStatRepository;
+    private final PlayerStatSnapshot playerStatSnapshot;
+    private final DataVersionService dataVersionService;
+    private final ScopedOptionsIndex scopedOptionsIndex;
+
+    /** need -> (数据版本, 列表)；版本不变时直接复用 */
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
 
     @PersistenceContext
     private EntityManager em;
 
     public DataOptionsService(TeamRepository teamRepository,
                               PlayerRepository playerRepository,
-                              PlayerGameStatRepository playerGameStatRepository) {
+                              PlayerGameStatRepository playerGameStatRepository,
+                              PlayerStatSnapshot playerStatSnapshot,
+                              DataVersionService dataVersionService,
+                              ScopedOptionsIndex scopedOptionsIndex) {
         this.teamRepository = teamRepository;
         this.playerRepository = playerRepository;
         this.playerGameStatRepository = playerGameStatRepository;
+        this.playerStatSnapshot = playerStatSnapshot;
+        this.dataVersionService = dataVersionService;
+        this.scopedOptionsIndex = scopedOptionsIndex;
     }
 
     public Map<String, Object> options(DataOptionsRequest req) {
         Set<String> need = normalizeNeed(req == null ? null : req.getNeed());
+        ResolvedScope scope = resolveScope(req == null ? null : req.getScope());
+        DataVersionService.Versions versions = dataVersionService.current();
+
+        // 限定了范围：从预建的 (赛事, 阶段) 索引取该范围内出现过的取值，再裁剪全局列表
+        PlayerStatSnapshot.Snapshot snap = scope == null ? null : playerStatSnapshot.require();
+        ScopedOptionsIndex.Entry entry = scope == null ? null : scopedEntry(snap, scope);
+
         Map<String, Object> out = new HashMap<>();
+        for (String key : need) {
+            String version = versionOf(key, versions);
+            if (version == null) continue;
+            Object global = cached(key, version);
+            out.put(key, entry == null ? global : narrow(key, global, entry, snap));
+        }
+        return out;
+    }
+
+    /**
+     * 本次请求对应的 ETag：由所需各列表的数据版本拼出，不需要真正加载数据。
+     */
+    public String etag(DataOptionsRequest req) {
+        Set<String> need = new TreeSet<>(normalizeNeed(req == null ? null : req.getNeed()));
+        ResolvedScope scope = resolveScope(req == null ? null : req.getScope());
+        DataVersionService.Versions versions = dataVersionService.current();
+        StringBuilder raw = new StringBuilder("options");
+        if (scope != null) {
+            raw.append("|scope=").append(scope.key())
+                    .append("|s").append(playerStatSnapshot.require().fingerprint());
+        }
+        for (String key : need) {
+            String version = versionOf(key, versions);
+            if (version == null) continue;
+            raw.append('|').append(key).append('=').append(version);
+        }
+        return ETagUtil.weak(raw.toString());
+    }
+
+    /**
+     * 每个候选列表依赖的源表版本；未知的 need 返回 null（忽略）。
+     */
+    private String versionOf(String key, DataVersionService.Versions v) {
+        switch (key) {
+            case "teams":
+                return v.teams();
+            case "players":
+                return v.players();
+            case "tournaments":
+            case "stages":
+                return v.matches();
+            case "positions":
+            case "champions":
+                // 快照可用时取自快照字典，版本跟随快照加载到的库中数据（不用进程内的发布序号，ETag 跨实例、跨重启一致）
+                return playerStatSnapshot.isEnabled()
+                        ? "s" + playerStatSnapshot.require().fingerprint()
+                        : v.stats();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 解析请求范围；未限定任何条件或快照未启用（无法按范围裁剪，退回全局列表）时返回 null。
+     */
+    private ResolvedScope resolveScope(DataOptionsRequest.Scope scope) {
+        if (scope == null || !playerStatSnapshot.isEnabled()) return null;
+        String tournamentName = blankToNull(scope.getTournamentName());
+        String stage = blankToNull(scope.getStage());
+        String from = scope.getDateRange() == null ? null : blankToNull(scope.getDateRange().getFrom());
+        String to = scope.getDateRange() == null ? null : blankToNull(scope.getDateRange().getTo());
+        if (tournamentName == null && stage == null && from == null && to == null) return null;
+
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) requireDate(from, "scope.dateRange.from").toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) requireDate(to, "scope.dateRange.to").toEpochDay();
+        return new ResolvedScope(tournamentName, stage, fromDay, toDay);
+    }
+
+    private ScopedOptionsIndex.Entry scopedEntry(PlayerStatSnapshot.Snapshot snap, ResolvedScope scope) {
+        int tCode = ScopedOptionsIndex.ANY;
+        int sCode = ScopedOptionsIndex.ANY;
+        if (scope.tournamentName() != null) {
+            tCode = snap.tournamentCode(scope.tournamentName());
+            if (tCode < 0) return ScopedOptionsIndex.Entry.EMPTY;
+        }
+        if (scope.stage() != null) {
+            sCode = snap.stageCode(scope.stage());
+            if (sCode < 0) return ScopedOptionsIndex.Entry.EMPTY;
+        }
+        if (scope.hasDateRange()) {
+            return scopedOptionsIndex.scan(snap, tCode, sCode, scope.fromDay(), scope.toDay());
+        }
+        return scopedOptionsIndex.lookup(snap, tCode, sCode);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object narrow(String key, Object global, ScopedOptionsIndex.Entry entry, PlayerStatSnapshot.Snapshot snap) {
+        switch (key) {
+            case "teams": {
+                List<DataOptionItems.TeamItem> out = new ArrayList<>();
+                for (DataOptionItems.TeamItem t : (List<DataOptionItems.TeamItem>) global) {
+                    if (entry.hasTeam(t.id())) out.add(t);
+                }
+                return out;
+            }
+            case "players": {
+                List<DataOptionItems.PlayerItem> out = new ArrayList<>();
+                for (DataOptionItems.PlayerItem p : (List<DataOptionItems.PlayerItem>) global) {
+                    if (entry.hasPlayer(p.id())) out.add(p);
+                }
+                return out;
+            }
+            case "tournaments":
+                return sortedNames(entry.tournaments, snap.tournamentNames);
+            case "stages":
+                return sortedNames(entry.stages, snap.stageNames);
+            case "positions":
+                return sortedNames(entry.positions, snap.positionNames);
+            case "champions": {
+                List<DataOptionItems.ChampionItem> champions = new ArrayList<>();
+                for (int c = entry.champions.nextSetBit(0); c >= 0; c = entry.champions.nextSetBit(c + 1)) {
+                    champions.add(new DataOptionItems.ChampionItem(snap.championNames[c], snap.championNamesEn[c]));
+                }
+                champions.sort(CHAMPION_ORDER);
+                return champions;
+            }
+            default:
+                return global;
+        }
+    }
+
+    private static List<String> sortedNames(BitSet codes, String[] dict) {
+        List<String> out = new ArrayList<>(codes.cardinality());
+        for (int c = codes.nextSetBit(0); c >= 0; c = codes.nextSetBit(c + 1)) {
+            out.add(dict[c]);
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    private Object cached(String key, String version) {
+        Cached c = cache.get(key);
+        if (c != null && c.version.equals(version)) return c.value;
+        Object value = load(key);
+        cache.put(key, new Cached(version, value));
+        return value;
+    }
 
-        if (need.contains("teams")) {
-            out.put("teams", teamRepository.findAll().stream().map(t -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", t.getId());
-                m.put("name", t.getName());
-                m.put("shortName", t.getShortName());
-                m.put("region", t.getRegion());
-                return m;
-            }).toList());
+    @SuppressWarnings("unchecked")
+    private Object load(String key) {
+        if ("teams".equals(key)) {
+            return teamRepository.findAll().stream()
+                    .map(t -> new DataOptionItems.TeamItem(t.getId(), t.getName(), t.getShortName(), t.getRegion()))
+                    .toList();
         }
 
-        if (need.contains("players")) {
-            out.put("players", playerRepository.findAll().stream().map(p -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", p.getId());
-                m.put("name", p.getName());
-                return m;
-            }).toList());
+        if ("players".equals(key)) {
+            return playerRepository.findAll().stream()
+                    .map(p -> new DataOptionItems.PlayerItem(p.getId(), p.getName()))
+                    .toList();
         }
 
         // tournaments/stages 直接从 Matches 表 DISTINCT（用 JPQL/Native 均可，这里走 native）
-        if (need.contains("tournaments")) {
+        if ("tournaments".equals(key)) {
             List<String> tournaments = em.createNativeQuery("SELECT DISTINCT tournament_name FROM Matches WHERE tournament_name IS NOT NULL AND tournament_name <> '' ORDER BY tournament_name")
                     .getResultList();
-            out.put("tournaments", tournaments);
+            return Collections.unmodifiableList(tournaments);
         }
-        if (need.contains("stages")) {
+        if ("stages".equals(key)) {
             List<String> stages = em.createNativeQuery("SELECT DISTINCT stage FROM Matches WHERE stage IS NOT NULL AND stage <> '' ORDER BY stage")
                     .getResultList();
-            out.put("stages", stages);
+            return Collections.unmodifiableList(stages);
         }
 
-        // positions/champions 从 PlayerGameStats DISTINCT
-        if (need.contains("positions")) {
-            List<String> positions = em.createNativeQuery("SELECT DISTINCT position FROM PlayerGameStats WHERE position IS NOT NULL AND position <> '' ORDER BY position")
-                    .getResultList();
-            out.put("positions", positions);
+        // positions/champions：快照可用时直接取列式快照的字典，否则从 PlayerGameStats DISTINCT
+        PlayerStatSnapshot.Snapshot snapshot = playerStatSnapshot.isEnabled() ? playerStatSnapshot.require() : null;
+
+        if ("positions".equals(key)) {
+            List<String> positions;
+            if (snapshot != null) {
+                positions = new ArrayList<>(Arrays.asList(snapshot.positionNames()));
+                Collections.sort(positions);
+            } else {
+                positions = em.createNativeQuery("SELECT DISTINCT position FROM PlayerGameStats WHERE position IS NOT NULL AND position <> '' ORDER BY position")
+                        .getResultList();
+            }
+            return Collections.unmodifiableList(positions);
         }
 
-        if (need.contains("champions")) {
-            @SuppressWarnings("unchecked")
-            List<Object[]> rows = em.createNativeQuery(
-                            "SELECT DISTINCT champion_name, champion_name_en FROM PlayerGameStats " +
-                                    "WHERE champion_name IS NOT NULL AND champion_name <> ''")
-                    .getResultList();
-            List<Map<String, Object>> champions = new ArrayList<>();
+        if ("champions".equals(key)) {
+            List<Object[]> rows;
+            if (snapshot != null) {
+                String[] names = snapshot.championNames();
+                String[] namesEn = snapshot.championNamesEn();
+                rows = new ArrayList<>(names.length);
+                for (int i = 0; i < names.length; i++) {
+                    rows.add(new Object[]{names[i], namesEn[i]});
+                }
+            } else {
+                rows = em.createNativeQuery(
+                                "SELECT DISTINCT champion_name, champion_name_en FROM PlayerGameStats " +
+                                        "WHERE champion_name IS NOT NULL AND champion_name <> ''")
+                        .getResultList();
+            }
+            List<DataOptionItems.ChampionItem> champions = new ArrayList<>(rows.size());
             for (Object[] r : rows) {
-                Map<String, Object> c = new HashMap<>();
-                c.put("name", r[0] == null ? null : String.valueOf(r[0]));
-                c.put("nameEn", r[1] == null ? null : String.valueOf(r[1]));
-                champions.add(c);
+                champions.add(new DataOptionItems.ChampionItem(
+                        r[0] == null ? null : String.valueOf(r[0]),
+                        r[1] == null ? null : String.valueOf(r[1])));
             }
             // 稳定排序：按 name
-            champions.sort(Comparator.comparing(o -> String.valueOf(o.getOrDefault("name", ""))));
-            out.put("champions", champions);
+            champions.sort(CHAMPION_ORDER);
+            return Collections.unmodifiableList(champions);
         }
 
-        return out;
+        return null;
     }
 
     private static Set<String> normalizeNeed(List<String> need) {
@@ -102,5 +279,30 @@ public class DataOptionsService {
         }
         return out;
     }
-}
 
+    private static LocalDate requireDate(String raw, String field) {
+        LocalDate d = MatchDateUtil.parse(raw);
+        if (d == null) {
+            throw new BizException("INVALID_ARGUMENT", field + " 日期格式无效，请使用 YYYY-MM-DD 或 ISO-8601");
+        }
+        return d;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    private record Cached(String version, Object value) {
+    }
+
+    private record ResolvedScope(String tournamentName, String stage, int fromDay, int toDay) {
+
+        boolean hasDateRange() {
+            return fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+        }
+
+        String key() {
+            return tournamentName + "\u0001" + stage + "\u0001" + fromDay + "\u0001" + toDay;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.backend.service.data;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据版本探测：用 (行数, 最大 id) 这类廉价查询判断源表是否变化，供各内存缓存/索引失效使用。
+ * <p>
+ * 一次往返取全部源表的探针，探测结果按 probe-interval 节流；PlayerGameStats 只取 MAX(id)（主键上 O(1)）。
+ * Matches 额外取 MAX(updated_at)（有索引），已有比赛被修改（赛事、阶段、队伍、日期等）时版本同样变化。
+ * 写入路径可调用 {@link #bump()} 立即让所有版本失效（覆盖改名、补录等不改变行数/最大 id 的修改）。
+ * 探测到 Teams / Players 变化（爬虫直接写库，Hibernate 感知不到）时先清掉二级缓存与查询缓存，再发布新版本，
+ * 避免按新版本重新加载时读到查询缓存里的旧列表。
+ */
+@Component
+public class DataVersionService {
+
+    private static final String PROBE_SQL = "SELECT " +
+            "(SELECT COUNT(*) FROM Teams), (SELECT COALESCE(MAX(id), 0) FROM Teams), " +
+            "(SELECT COUNT(*) FROM Players), (SELECT COALESCE(MAX(id), 0) FROM Players), " +
+            "(SELECT COUNT(*) FROM Matches), (SELECT COALESCE(MAX(id), 0) FROM Matches), (SELECT MAX(updated_at) FROM Matches), " +
+            "(SELECT COALESCE(MAX(id), 0) FROM PlayerGameStats)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceEntityCache referenceEntityCache;
+    private final long probeIntervalMs;
+
+    private final AtomicLong epoch = new AtomicLong();
+
+    private volatile Versions current;
+    private volatile long probedAt;
+
+    public DataVersionService(JdbcTemplate jdbcTemplate,
+                              ReferenceEntityCache referenceEntityCache,
+                              @Value("${app.data.version.probe-interval-ms:5000}") long probeIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceEntityCache = referenceEntityCache;
+        this.probeIntervalMs = probeIntervalMs;
+    }
+
+    /**
+     * 当前版本；距上次探测超过 probe-interval（或刚 bump 过）才真正查库。
+     */
+    public Versions current() {
+        Versions v = current;
+        if (v != null && v.epoch == epoch.get() && System.currentTimeMillis() - probedAt < probeIntervalMs) {
+            return v;
+        }
+        return probe();
+    }
+
+    /**
+     * 手动让所有版本失效（写入/导入数据后调用）。
+     */
+    public void bump() {
+        epoch.incrementAndGet();
+    }
+
+    private synchronized Versions probe() {
+        Versions v = current;
+        long e = epoch.get();
+        // 并发请求排队进来时，前一个已经探测过就直接复用
+        if (v != null && v.epoch == e && System.currentTimeMillis() - probedAt < probeIntervalMs) {
+            return v;
+        }
+        Versions fresh = jdbcTemplate.queryForObject(PROBE_SQL, (rs, i) -> {
+            Timestamp matchesUpdatedAt = rs.getTimestamp(7);
+            return new Versions(
+                    rs.getLong(1), rs.getLong(2),
+                    rs.getLong(3), rs.getLong(4),
+                    rs.getLong(5), rs.getLong(6), matchesUpdatedAt == null ? 0 : matchesUpdatedAt.getTime(),
+                    rs.getLong(8), e);
+        });
+        if (v != null && (fresh.teamsCount != v.teamsCount || fresh.teamsMaxId != v.teamsMaxId
+                || fresh.playersCount != v.playersCount || fresh.playersMaxId != v.playersMaxId)) {
+            referenceEntityCache.evictAll();
+        }
+        current = fresh;
+        probedAt = System.currentTimeMillis();
+        return fresh;
+    }
+
+    /**
+     * 各源表的版本探针。xxx() 方法返回可直接比较/拼进 ETag 的版本串。
+     *
+     * @param matchesUpdatedAt Matches 最近一次修改时间（epoch 毫秒，空表为 0）
+     */
+    public record Versions(long teamsCount, long teamsMaxId,
+                           long playersCount, long playersMaxId,
+                           long matchesCount, long matchesMaxId, long matchesUpdatedAt,
+                           long statsMaxId,
+                           long epoch) {
+
+        public String teams() { return teamsCount + "." + teamsMaxId + "." + epoch; }
+        public String players() { return playersCount + "." + playersMaxId + "." + epoch; }
+        public String matches() { return matchesCount + "." + matchesMaxId + "." + matchesUpdatedAt + "." + epoch; }
+        public String stats() { return statsMaxId + "." + epoch; }
+    }
+}
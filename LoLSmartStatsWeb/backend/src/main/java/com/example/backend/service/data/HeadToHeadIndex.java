@@ -0,0 +1,381 @@
+package com.example.backend.service.data;
+
+import com.example.backend.util.MatchDateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两队交手记录索引：key 为无序队伍对 (小 id, 大 id)，查询 O(1)。
+ * <p>
+ * 按 Matches.id / Games.id 水位增量累加（大场胜负、小局胜负、平均时长、最近一次交手），
+ * 导入覆盖已有比赛时立即全量重建；已处理的 Games / Matches 行被修改（updated_at 晚于上次加载时的最大值，例如补录胜者、改日期）时，
+ * 按水位内的数据重新计算受影响的队伍对，受影响的行或队伍对过多时全量重建。
+ * <p>
+ * 未启用（app.data.head-to-head.enabled=false）时不建索引，每次查询直接对该队伍对查库。
+ */
+@Component
+public class HeadToHeadIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadToHeadIndex.class);
+
+    /** 一次增量刷新里最多逐对重算的队伍对数，超过时全量重建更省查询 */
+    private static final int MAX_PAIR_RECOMPUTE = 256;
+
+    private static final String MATCH_COLUMNS = "SELECT id, team1_id, team2_id, winner_id, match_date FROM Matches ";
+    /** 两个方向的 (team1_id, team2_id)；写成行值 IN 而不是 OR，H2 / MySQL 都能在 (team1_id, team2_id) 索引上取两个点 */
+    private static final String PAIR_CONDITION = "(team1_id, team2_id) IN ((?, ?), (?, ?))";
+
+    private static final String PAIR_MATCHES_SQL = MATCH_COLUMNS + "WHERE " + PAIR_CONDITION + " AND id <= ?";
+
+    private static final String PAIR_GAMES_SQL =
+            "SELECT id, match_id, winner_id, duration FROM Games " +
+                    "WHERE match_id IN (SELECT id FROM Matches WHERE " + PAIR_CONDITION + " AND id <= ?) AND id <= ?";
+
+    private static final String MARKERS_SQL =
+            "SELECT (SELECT MAX(updated_at) FROM Games), (SELECT MAX(updated_at) FROM Matches)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long fullRebuildIntervalMs;
+
+    /** 以下仅在 synchronized 方法内访问 */
+    private State state;
+    private long lastFullBuildAt;
+    private boolean rebuildRequested;
+
+    private volatile Map<Long, Record> records = Map.of();
+    private volatile boolean loaded;
+
+    public HeadToHeadIndex(JdbcTemplate jdbcTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${app.data.head-to-head.enabled:true}") boolean enabled,
+                           @Value("${app.data.head-to-head.batch-size:20000}") int batchSize,
+                           @Value("${app.data.head-to-head.full-rebuild-interval-ms:21600000}") long fullRebuildIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.fullRebuildIntervalMs = fullRebuildIntervalMs;
+    }
+
+    /**
+     * 查询两队交手记录（参数顺序无关）；没有交手返回 null。
+     */
+    public Record get(int teamA, int teamB) {
+        if (!enabled) return computePair(teamA, teamB, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        if (!loaded) refresh();
+        return records.get(pairKey(teamA, teamB));
+    }
+
+    @Scheduled(initialDelayString = "${app.data.head-to-head.initial-delay-ms:0}",
+            fixedDelayString = "${app.data.head-to-head.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("[h2h] refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 导入覆盖删除并重写了已计入的对局：增量累加无法回退，立即全量重建。
+     */
+    @EventListener
+    public void onMatchDataChanged(MatchDataChangedEvent event) {
+        if (!enabled || !event.rowsRemoved()) return;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("[h2h] rebuild after change failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 已加载过时立即全量重建；尚未加载则什么都不做（首次刷新本来就是全量）。
+     */
+    public synchronized void rebuild() {
+        if (!enabled || state == null) return;
+        rebuildRequested = true;
+        refresh();
+    }
+
+    public synchronized void refresh() {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        boolean full = state == null || rebuildRequested
+                || (fullRebuildIntervalMs > 0 && now - lastFullBuildAt >= fullRebuildIntervalMs);
+        // 先取标记再读数据：两者之间的修改下次还会被读到；与标记同一毫秒、取标记之后才写入的修改由定时全量重建兜底
+        long[] markers = jdbcTemplate.queryForObject(MARKERS_SQL,
+                (rs, i) -> new long[]{millis(rs.getTimestamp(1)), millis(rs.getTimestamp(2))});
+
+        Set<Integer> changedMatches = new HashSet<>();
+        int recomputed = 0;
+        if (!full) {
+            recomputed = recomputeChanged(state, changedMatches);
+            if (recomputed < 0) {
+                log.info("[h2h] too many changed rows, rebuilding");
+                full = true;
+                changedMatches.clear();
+            }
+        }
+        State s = full ? new State() : state;
+
+        int matches = loadMatches(s);
+        int games = loadGames(s, changedMatches);
+        s.gamesUpdatedAt = markers[0];
+        s.matchesUpdatedAt = markers[1];
+
+        if (full) {
+            state = s;
+            lastFullBuildAt = now;
+            rebuildRequested = false;
+            records = s.records;
+            loaded = true;
+            log.info("[h2h] full build pairs={}, matches={}, games={}, costMs={}",
+                    s.records.size(), matches, games, System.currentTimeMillis() - now);
+        } else if (matches > 0 || games > 0 || recomputed > 0) {
+            log.debug("[h2h] appended matches={}, games={}, recomputed pairs={}, pairs={}",
+                    matches, games, recomputed, s.records.size());
+            // 有新对局或被修改的比赛：通知按比赛缓存的内容失效
+            if (!changedMatches.isEmpty()) eventPublisher.publishEvent(new MatchDataChangedEvent(changedMatches));
+        }
+    }
+
+    private int loadMatches(State s) {
+        int total = 0;
+        while (true) {
+            int[] n = {0};
+            jdbcTemplate.query(MATCH_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        n[0]++;
+                        s.lastMatchId = Math.max(s.lastMatchId, rs.getInt(1));
+                        addMatch(rs, s.records, s.matchPairs);
+                    },
+                    s.lastMatchId, batchSize);
+            total += n[0];
+            if (n[0] < batchSize) return total;
+        }
+    }
+
+    private int loadGames(State s, Set<Integer> changedMatches) {
+        int total = 0;
+        while (true) {
+            int[] n = {0};
+            boolean[] blocked = {false};
+            jdbcTemplate.query(
+                    "SELECT id, match_id, winner_id, duration FROM Games WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        if (blocked[0]) return;
+                        int gameId = rs.getInt(1);
+                        int matchId = rs.getInt(2);
+                        if (!rs.wasNull() && matchId > s.lastMatchId) {
+                            // 对应的比赛还没读到（并发写入），停在这里，下次刷新再处理
+                            blocked[0] = true;
+                            return;
+                        }
+                        n[0]++;
+                        s.lastGameId = Math.max(s.lastGameId, gameId);
+                        changedMatches.add(matchId);
+                        addGame(rs, s.records, s.matchPairs);
+                    },
+                    s.lastGameId, batchSize);
+            total += n[0];
+            if (blocked[0] || n[0] < batchSize) return total;
+        }
+    }
+
+    /**
+     * 水位内、上次标记之后被修改过的比赛 / 对局：找出受影响的队伍对（比赛换了队伍时新旧两对都算），
+     * 逐对按水位内的数据重新计算后整体替换。返回重算的队伍对数；改动行或队伍对过多时不做任何修改并返回 -1。
+     */
+    private int recomputeChanged(State s, Set<Integer> changedMatches) {
+        if (s.lastMatchId == 0) return 0;
+        Map<Integer, Long> newPairs = new HashMap<>();
+        Set<Integer> gameMatches = new HashSet<>();
+        int[] rows = {0};
+        jdbcTemplate.query("SELECT id, team1_id, team2_id FROM Matches WHERE updated_at > ? AND id <= ? LIMIT ?",
+                rs -> {
+                    rows[0]++;
+                    int t1 = rs.getInt(2);
+                    boolean t1Null = rs.wasNull();
+                    int t2 = rs.getInt(3);
+                    boolean t2Null = rs.wasNull();
+                    newPairs.put(rs.getInt(1), t1Null || t2Null || t1 == t2 ? null : pairKey(t1, t2));
+                },
+                new Timestamp(s.matchesUpdatedAt), s.lastMatchId, batchSize + 1);
+        jdbcTemplate.query("SELECT match_id FROM Games WHERE updated_at > ? AND id <= ? AND match_id IS NOT NULL LIMIT ?",
+                rs -> {
+                    rows[0]++;
+                    gameMatches.add(rs.getInt(1));
+                },
+                new Timestamp(s.gamesUpdatedAt), s.lastGameId, batchSize + 1);
+        if (rows[0] > batchSize) return -1;
+
+        Set<Long> pairs = new HashSet<>();
+        for (Map.Entry<Integer, Long> e : newPairs.entrySet()) {
+            Long old = s.matchPairs.get(e.getKey());
+            if (old != null) pairs.add(old);
+            if (e.getValue() != null) pairs.add(e.getValue());
+        }
+        for (Integer matchId : gameMatches) {
+            Long key = newPairs.containsKey(matchId) ? newPairs.get(matchId) : s.matchPairs.get(matchId);
+            if (key != null) pairs.add(key);
+        }
+        if (pairs.size() > MAX_PAIR_RECOMPUTE) return -1;
+
+        for (Map.Entry<Integer, Long> e : newPairs.entrySet()) {
+            if (e.getValue() == null) s.matchPairs.remove(e.getKey());
+            else s.matchPairs.put(e.getKey(), e.getValue());
+        }
+        changedMatches.addAll(newPairs.keySet());
+        changedMatches.addAll(gameMatches);
+        for (long key : pairs) {
+            Record r = computePair((int) (key >>> 32), (int) key, s.lastMatchId, s.lastGameId);
+            if (r == null) s.records.remove(key);
+            else s.records.put(key, r);
+        }
+        return pairs.size();
+    }
+
+    /**
+     * 直接查库算一对队伍在水位（比赛 id、对局 id 上限）内的交手记录；没有交手返回 null。
+     */
+    private Record computePair(int teamA, int teamB, int maxMatchId, int maxGameId) {
+        Map<Long, Record> records = new HashMap<>();
+        Map<Integer, Long> matchPairs = new HashMap<>();
+        jdbcTemplate.query(PAIR_MATCHES_SQL, rs -> { addMatch(rs, records, matchPairs); },
+                teamA, teamB, teamB, teamA, maxMatchId);
+        if (matchPairs.isEmpty()) return null;
+        jdbcTemplate.query(PAIR_GAMES_SQL, rs -> { addGame(rs, records, matchPairs); },
+                teamA, teamB, teamB, teamA, maxMatchId, maxGameId);
+        return records.get(pairKey(teamA, teamB));
+    }
+
+    /** 列：id, team1_id, team2_id, winner_id, match_date */
+    private static void addMatch(ResultSet rs, Map<Long, Record> records, Map<Integer, Long> matchPairs) throws SQLException {
+        int matchId = rs.getInt(1);
+        int t1 = rs.getInt(2);
+        boolean t1Null = rs.wasNull();
+        int t2 = rs.getInt(3);
+        boolean t2Null = rs.wasNull();
+        if (t1Null || t2Null || t1 == t2) return;
+        int winner = rs.getInt(4);
+        boolean winnerNull = rs.wasNull();
+        String matchDate = rs.getString(5);
+        LocalDate day = MatchDateUtil.parse(matchDate);
+
+        long key = pairKey(t1, t2);
+        int low = Math.min(t1, t2);
+        matchPairs.put(matchId, key);
+        long dayValue = day == null ? Long.MIN_VALUE : day.toEpochDay();
+        records.compute(key, (k, r) -> (r == null ? Record.empty(low, Math.max(t1, t2)) : r)
+                .withSeries(winnerNull ? 0 : winner, matchId, dayValue, matchDate));
+    }
+
+    /** 列：id, match_id, winner_id, duration；所属比赛不是有效队伍对时忽略 */
+    private static void addGame(ResultSet rs, Map<Long, Record> records, Map<Integer, Long> matchPairs) throws SQLException {
+        Long key = matchPairs.get(rs.getInt(2));
+        if (key == null) return;
+        int winner = rs.getInt(3);
+        boolean winnerNull = rs.wasNull();
+        int duration = rs.getInt(4);
+        boolean durationNull = rs.wasNull();
+        records.computeIfPresent(key, (k, r) ->
+                r.withGame(winnerNull ? 0 : winner, durationNull ? -1 : duration));
+    }
+
+    private static long millis(Timestamp ts) {
+        return ts == null ? 0 : ts.getTime();
+    }
+
+    static long pairKey(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return ((long) low << 32) | (high & 0xffffffffL);
+    }
+
+    private static final class State {
+        final ConcurrentHashMap<Long, Record> records = new ConcurrentHashMap<>();
+        final Map<Integer, Long> matchPairs = new HashMap<>();
+        int lastMatchId;
+        int lastGameId;
+        /** 上次加载时 Games / Matches 的最大 updated_at（epoch 毫秒） */
+        long gamesUpdatedAt;
+        long matchesUpdatedAt;
+    }
+
+    /**
+     * 交手记录（不可变，更新时整体替换）。low/high 为较小/较大的队伍 id。
+     */
+    public record Record(int lowTeamId,
+                         int highTeamId,
+                         int series,
+                         int lowSeriesWins,
+                         int highSeriesWins,
+                         int games,
+                         int lowGameWins,
+                         int highGameWins,
+                         long durationSum,
+                         int durationGames,
+                         int lastMatchId,
+                         long lastDay,
+                         String lastMatchDate) {
+
+        static Record empty(int low, int high) {
+            return new Record(low, high, 0, 0, 0, 0, 0, 0, 0, 0, 0, Long.MIN_VALUE, null);
+        }
+
+        Record withSeries(int winnerId, int matchId, long day, String matchDate) {
+            // 最近一次交手按 (比赛日, id) 取最大
+            boolean newer = day > lastDay || (day == lastDay && matchId > lastMatchId);
+            return new Record(lowTeamId, highTeamId, series + 1,
+                    lowSeriesWins + (winnerId == lowTeamId ? 1 : 0),
+                    highSeriesWins + (winnerId == highTeamId ? 1 : 0),
+                    games, lowGameWins, highGameWins, durationSum, durationGames,
+                    newer ? matchId : lastMatchId,
+                    newer ? day : lastDay,
+                    newer ? matchDate : lastMatchDate);
+        }
+
+        Record withGame(int winnerId, int duration) {
+            return new Record(lowTeamId, highTeamId, series, lowSeriesWins, highSeriesWins,
+                    games + 1,
+                    lowGameWins + (winnerId == lowTeamId ? 1 : 0),
+                    highGameWins + (winnerId == highTeamId ? 1 : 0),
+                    durationSum + Math.max(0, duration),
+                    durationGames + (duration > 0 ? 1 : 0),
+                    lastMatchId, lastDay, lastMatchDate);
+        }
+
+        public int seriesWinsOf(int teamId) {
+            return teamId == lowTeamId ? lowSeriesWins : (teamId == highTeamId ? highSeriesWins : 0);
+        }
+
+        public int gameWinsOf(int teamId) {
+            return teamId == lowTeamId ? lowGameWins : (teamId == highTeamId ? highGameWins : 0);
+        }
+
+        public Double avgDuration() {
+            return durationGames == 0 ? null : (double) durationSum / durationGames;
+        }
+    }
+}
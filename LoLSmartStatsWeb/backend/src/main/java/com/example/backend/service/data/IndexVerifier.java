@@ -0,0 +1,130 @@
+package com.example.backend.service.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 启动时核对各查询路径依赖的索引是否存在（读 DatabaseMetaData，不依赖索引名）。
+ * <p>
+ * 比赛相关的表由爬虫建表，索引在实体的 @Table(indexes) 中声明、由 ddl-auto=update 补建；
+ * 这里按"索引的前导列覆盖查询列"判断，已有的同列索引（名字不同）同样算数。缺失时逐条 WARN。
+ */
+@Component
+public class IndexVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexVerifier.class);
+
+    /** 查询路径 -> (表, 需要作为索引前导列的列) */
+    private static final List<QueryPath> PATHS = List.of(
+            QueryPath.of("Games.findByMatchId / countByMatchId / countGroupByMatchIdIn", "Games", "match_id"),
+            QueryPath.of("PlayerGameStats.findByGameId / findByGameIdIn", "PlayerGameStats", "game_id"),
+            QueryPath.of("PlayerGameStats by player", "PlayerGameStats", "player_id"),
+            QueryPath.of("options: DISTINCT champion_name, champion_name_en", "PlayerGameStats", "champion_name", "champion_name_en"),
+            QueryPath.of("options: DISTINCT position", "PlayerGameStats", "position"),
+            QueryPath.of("match search: team1_id filter / ingest natural key", "Matches", "team1_id", "team2_id"),
+            QueryPath.of("match search: team2_id filter", "Matches", "team2_id"),
+            QueryPath.of("match search: tournament/stage filter, options: DISTINCT tournament_name", "Matches", "tournament_name", "stage"),
+            QueryPath.of("options: DISTINCT stage", "Matches", "stage"),
+            QueryPath.of("match search: date range / keyset on (match_day, id)", "Matches", "match_day", "id"),
+            QueryPath.of("version probe: MAX(updated_at), match index / snapshot / match-day backfill: changed rows", "Matches", "updated_at"),
+            QueryPath.of("snapshot / head-to-head: changed games", "Games", "updated_at"),
+            QueryPath.of("ingest: team lookup by name", "Teams", "name"),
+            QueryPath.of("ingest: player lookup by name", "Players", "name"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public IndexVerifier(JdbcTemplate jdbcTemplate,
+                         @Value("${app.data.index-check.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) return;
+        try {
+            List<QueryPath> missing = verify();
+            if (missing.isEmpty()) {
+                log.info("[index-check] all {} query paths have a supporting index", PATHS.size());
+            } else {
+                for (QueryPath p : missing) {
+                    log.warn("[index-check] no index on {}({}) for query path: {}",
+                            p.table(), String.join(", ", p.columns()), p.name());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[index-check] failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 返回没有可用索引的查询路径。
+     */
+    public List<QueryPath> verify() {
+        Map<String, List<List<String>>> byTable = new HashMap<>();
+        for (QueryPath p : PATHS) {
+            byTable.computeIfAbsent(p.table(), t -> jdbcTemplate.execute((ConnectionCallback<List<List<String>>>) con ->
+                    indexesOf(con.getMetaData(), con.getCatalog(), t)));
+        }
+        List<QueryPath> missing = new ArrayList<>();
+        for (QueryPath p : PATHS) {
+            if (!covered(byTable.get(p.table()), p.columns())) missing.add(p);
+        }
+        return missing;
+    }
+
+    /**
+     * 某表全部索引（含主键）的列序列，列名小写。
+     */
+    private static List<List<String>> indexesOf(DatabaseMetaData md, String catalog, String table) throws SQLException {
+        Map<String, TreeMap<Short, String>> cols = new HashMap<>();
+        try (ResultSet rs = md.getIndexInfo(catalog, null, table, false, true)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (index == null || column == null) continue;
+                cols.computeIfAbsent(index, k -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+            }
+        }
+        List<List<String>> out = new ArrayList<>(cols.size());
+        for (TreeMap<Short, String> c : cols.values()) out.add(new ArrayList<>(c.values()));
+        return out;
+    }
+
+    /**
+     * 有索引的前 n 列恰好是所需的 n 列（顺序不限）即视为覆盖。
+     */
+    private static boolean covered(List<List<String>> indexes, List<String> required) {
+        if (indexes == null) return false;
+        for (List<String> idx : indexes) {
+            if (idx.size() < required.size()) continue;
+            if (idx.subList(0, required.size()).containsAll(required)) return true;
+        }
+        return false;
+    }
+
+    public record QueryPath(String name, String table, List<String> columns) {
+
+        static QueryPath of(String name, String table, String... columns) {
+            return new QueryPath(name, table, List.of(columns));
+        }
+    }
+}
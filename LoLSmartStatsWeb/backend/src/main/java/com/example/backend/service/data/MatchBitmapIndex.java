@@ -0,0 +1,560 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.exception.BizException;
+import com.example.backend.util.MatchDateUtil;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Matches 的内存位图索引：按赛事、阶段、队伍（team1 或 team2）、比赛日各建一组压缩位图（元素为 Matches.id）。
+ * <p>
+ * 搜索条件解析为位图的 AND / OR，总数即结果位图的基数，只有当页的 id 才回库取行；
+ * 分面计数为各取值位图与结果位图的交集基数。
+ * 按 Matches.id 水位增量追加（写时复制，已发布的位图不再修改）；已有行被修改（updated_at 晚于上次加载）时按 id 重新索引，
+ * 行数与数据版本对不上（有删除）、修改行过多或到期时全量重建。
+ * 比赛日直接由 match_date 经 {@link MatchDateUtil} 解析，不依赖 match_day 回填进度。
+ * 赛事/阶段按忽略大小写比较，与库表默认排序规则一致。
+ */
+@Component
+public class MatchBitmapIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchBitmapIndex.class);
+
+    /** 比赛日为空（match_date 为空或无法解析） */
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final String SELECT_COLUMNS = "SELECT id, tournament_name, stage, team1_id, team2_id, match_date FROM Matches ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersionService dataVersionService;
+    private final boolean enabled;
+    private final boolean useMatchDay;
+    private final int batchSize;
+    private final long fullRebuildIntervalMs;
+
+    private volatile Index index;
+    /** 仅在 synchronized refresh 内访问 */
+    private long lastFullBuildAt;
+
+    public MatchBitmapIndex(JdbcTemplate jdbcTemplate,
+                            DataVersionService dataVersionService,
+                            @Value("${app.data.match-index.enabled:true}") boolean enabled,
+                            @Value("${app.data.match-day.enabled:true}") boolean useMatchDay,
+                            @Value("${app.data.match-index.batch-size:20000}") int batchSize,
+                            @Value("${app.data.match-index.full-rebuild-interval-ms:21600000}") long fullRebuildIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataVersionService = dataVersionService;
+        this.enabled = enabled;
+        this.useMatchDay = useMatchDay;
+        this.batchSize = Math.max(1, batchSize);
+        this.fullRebuildIntervalMs = fullRebuildIntervalMs;
+    }
+
+    /**
+     * 一页比赛 id（已按排序排好）与可选的总数；days 为各 id 在索引中的比赛日（epochDay，空为 Integer.MIN_VALUE），
+     * 按日期排序的 keyset 游标必须用它生成，才能与索引的排序一致。
+     */
+    public record Page(int[] ids, int[] days, Long total) {
+
+        /** 该 id 在索引中的比赛日；为空或不在本页返回 null */
+        public LocalDate dayOf(int id) {
+            for (int i = ids.length - 1; i >= 0; i--) {
+                if (ids[i] == id) return days[i] == NO_DAY ? null : LocalDate.ofEpochDay(days[i]);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 分面计数：赛事/阶段为展示名 -> 场次，队伍为 id -> 场次。
+     */
+    public record FacetCounts(Map<String, Long> tournaments, Map<String, Long> stages, Map<Integer, Long> teams) {
+    }
+
+    /**
+     * 用位图完成过滤、排序与分页；索引不可用或条件不受支持（match_day 未启用时的日期条件/日期排序）时返回 null，由调用方走 SQL。
+     *
+     * @param offset cursor 为 null 时的偏移；cursor 模式下传 0
+     * @param limit  本次最多返回的 id 数
+     */
+    public Page search(MatchSearchRequest.Filter f, boolean sortByDate, boolean asc,
+                       MatchSearchCursor cursor, int offset, int limit, boolean withTotal) {
+        if (!supports(f, sortByDate)) return null;
+        Index ix = ready();
+        if (ix == null) return null;
+
+        RoaringBitmap matched = resolve(ix, f, Dim.NONE);
+        Long total = withTotal ? matched.getLongCardinality() : null;
+        int[] ids = sortByDate
+                ? pageByDay(ix, matched, asc, cursor, offset, limit)
+                : pageById(matched, asc, cursor, offset, limit);
+        int[] days = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) days[i] = ix.dayOf(ids[i]);
+        return new Page(ids, days, total);
+    }
+
+    /**
+     * 分面计数：每个维度应用其余维度的条件、忽略自身条件。不可用时返回 null。
+     */
+    public FacetCounts facets(MatchSearchRequest.Filter f) {
+        if (!supports(f, false)) return null;
+        Index ix = ready();
+        if (ix == null) return null;
+
+        RoaringBitmap base = resolve(ix, f, Dim.TOURNAMENT);
+        Map<String, Long> tournaments = new HashMap<>();
+        for (Map.Entry<String, RoaringBitmap> e : ix.tournaments.entrySet()) {
+            long c = countWithin(e.getValue(), base, ix);
+            if (c > 0) tournaments.put(ix.tournamentNames.get(e.getKey()), c);
+        }
+
+        base = resolve(ix, f, Dim.STAGE);
+        Map<String, Long> stages = new HashMap<>();
+        for (Map.Entry<String, RoaringBitmap> e : ix.stages.entrySet()) {
+            long c = countWithin(e.getValue(), base, ix);
+            if (c > 0) stages.put(ix.stageNames.get(e.getKey()), c);
+        }
+
+        base = resolve(ix, f, Dim.TEAM);
+        Map<Integer, Long> teams = new HashMap<>();
+        for (Map.Entry<Integer, RoaringBitmap> e : ix.teams.entrySet()) {
+            long c = countWithin(e.getValue(), base, ix);
+            if (c > 0) teams.put(e.getKey(), c);
+        }
+        return new FacetCounts(tournaments, stages, teams);
+    }
+
+    @Scheduled(initialDelayString = "${app.data.match-index.initial-delay-ms:0}",
+            fixedDelayString = "${app.data.match-index.refresh-interval-ms:10000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("[match-index] refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 导入等写入完成后立即追上，使新比赛马上可搜。
+     */
+    @EventListener
+    public void onMatchDataChanged(MatchDataChangedEvent event) {
+        if (!enabled || index == null) return;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("[match-index] refresh after change failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public synchronized void refresh() {
+        DataVersionService.Versions v = dataVersionService.current();
+        Index cur = index;
+        long now = System.currentTimeMillis();
+        boolean due = fullRebuildIntervalMs > 0 && now - lastFullBuildAt >= fullRebuildIntervalMs;
+        if (cur != null && !due && cur.version.equals(v.matches())) return;
+
+        if (cur != null && !due) {
+            Builder b = new Builder(cur);
+            int appended = load(b);
+            int changed = reindexChanged(b, cur);
+            // 只有新增时，追加后的行数应与探针一致；否则有删除，走全量重建
+            if (changed >= 0 && b.count == v.matchesCount()) {
+                index = b.build(v.matches(), v.matchesUpdatedAt());
+                if (appended > 0 || changed > 0) {
+                    log.debug("[match-index] appended matches={}, reindexed={}, total={}", appended, changed, b.count);
+                }
+                return;
+            }
+        }
+
+        Builder b = new Builder(null);
+        int rows = load(b);
+        index = b.build(v.matches(), v.matchesUpdatedAt());
+        lastFullBuildAt = now;
+        log.info("[match-index] full build matches={}, tournaments={}, stages={}, teams={}, days={}, costMs={}",
+                rows, b.tournaments.size(), b.stages.size(), b.teams.size(), b.days.size(),
+                System.currentTimeMillis() - now);
+    }
+
+    private Index ready() {
+        if (!enabled) return null;
+        Index ix = index;
+        if (ix != null) return ix;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("[match-index] build failed, falling back to SQL: {}", e.getMessage(), e);
+        }
+        return index;
+    }
+
+    private boolean supports(MatchSearchRequest.Filter f, boolean sortByDate) {
+        if (!enabled) return false;
+        if (useMatchDay) return true;
+        // 未启用 match_day 时日期是 varchar，按字符串比较的语义不在索引里，交给 SQL
+        if (sortByDate) return false;
+        return f == null || f.getDateRange() == null
+                || (isBlank(f.getDateRange().getFrom()) && isBlank(f.getDateRange().getTo()));
+    }
+
+    private int load(Builder b) {
+        int total = 0;
+        while (true) {
+            int[] n = {0};
+            jdbcTemplate.query(SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        n[0]++;
+                        add(b, rs, false);
+                    },
+                    b.maxId, batchSize);
+            total += n[0];
+            if (n[0] < batchSize) return total;
+        }
+    }
+
+    /**
+     * 上次加载之后被修改过的已有行（updated_at 不早于上次探测到的最大值）：先从各位图摘除再按新值加入。
+     * 返回重新索引的行数；超过 batch-size 时返回 -1，由调用方全量重建。
+     */
+    private int reindexChanged(Builder b, Index cur) {
+        if (cur.maxId == 0) return 0;
+        int[] n = {0};
+        jdbcTemplate.query(SELECT_COLUMNS + "WHERE updated_at >= ? AND id <= ? LIMIT ?",
+                rs -> {
+                    if (++n[0] > batchSize) return;
+                    add(b, rs, true);
+                },
+                new Timestamp(cur.updatedAt), cur.maxId, batchSize + 1);
+        return n[0] > batchSize ? -1 : n[0];
+    }
+
+    private static void add(Builder b, ResultSet rs, boolean existing) throws SQLException {
+        int id = rs.getInt(1);
+        int t1 = rs.getInt(4);
+        boolean t1Null = rs.wasNull();
+        int t2 = rs.getInt(5);
+        boolean t2Null = rs.wasNull();
+        LocalDate day = MatchDateUtil.parse(rs.getString(6));
+        Integer team1 = t1Null ? null : t1;
+        Integer team2 = t2Null ? null : t2;
+        int dayValue = day == null ? NO_DAY : (int) day.toEpochDay();
+        if (existing) b.reindex(id, rs.getString(2), rs.getString(3), team1, team2, dayValue);
+        else b.add(id, rs.getString(2), rs.getString(3), team1, team2, dayValue);
+    }
+
+    private enum Dim { NONE, TOURNAMENT, STAGE, TEAM }
+
+    /**
+     * 过滤条件 -> 结果位图（只读，可能直接是索引内的位图）。skip 为分面计数时忽略的维度。
+     */
+    private RoaringBitmap resolve(Index ix, MatchSearchRequest.Filter f, Dim skip) {
+        if (f == null) return ix.all;
+        List<RoaringBitmap> ands = new ArrayList<>(4);
+
+        if (skip != Dim.TOURNAMENT && !isBlank(f.getTournamentName())) {
+            ands.add(ix.tournaments.getOrDefault(norm(f.getTournamentName()), EMPTY));
+        }
+        if (skip != Dim.STAGE && !isBlank(f.getStage())) {
+            ands.add(ix.stages.getOrDefault(norm(f.getStage()), EMPTY));
+        }
+        if (skip != Dim.TEAM && f.getTeamIds() != null && !f.getTeamIds().isEmpty()) {
+            List<RoaringBitmap> ors = new ArrayList<>(f.getTeamIds().size());
+            for (Integer id : f.getTeamIds()) {
+                RoaringBitmap bm = id == null ? null : ix.teams.get(id);
+                if (bm != null) ors.add(bm);
+            }
+            ands.add(ors.isEmpty() ? EMPTY : FastAggregation.or(ors.iterator()));
+        }
+        if (f.getDateRange() != null) {
+            String from = f.getDateRange().getFrom();
+            String to = f.getDateRange().getTo();
+            if (!isBlank(from) || !isBlank(to)) {
+                int lo = isBlank(from) ? Integer.MIN_VALUE + 1
+                        : (int) MatchFilterSql.requireDate(from, "dateRange.from").toEpochDay();
+                int hi = isBlank(to) ? Integer.MAX_VALUE
+                        : (int) MatchFilterSql.requireDate(to, "dateRange.to").toEpochDay();
+                NavigableMap<Integer, RoaringBitmap> range = lo > hi
+                        ? Collections.emptyNavigableMap()
+                        : ix.days.subMap(lo, true, hi, true);
+                ands.add(range.isEmpty() ? EMPTY : FastAggregation.or(range.values().iterator()));
+            }
+        }
+
+        if (ands.isEmpty()) return ix.all;
+        ands.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+        RoaringBitmap r = ands.get(0);
+        for (int i = 1; i < ands.size() && !r.isEmpty(); i++) {
+            r = RoaringBitmap.and(r, ands.get(i));
+        }
+        return r;
+    }
+
+    private static long countWithin(RoaringBitmap values, RoaringBitmap base, Index ix) {
+        return base == ix.all ? values.getLongCardinality() : RoaringBitmap.andCardinality(values, base);
+    }
+
+    /**
+     * 按 id 排序：用 select / nextValue / previousValue 直接定位，不展开结果位图。
+     */
+    private static int[] pageById(RoaringBitmap matched, boolean asc, MatchSearchCursor cursor, int offset, int limit) {
+        RoaringBitmap r = matched;
+        if (cursor != null) {
+            r = matched.clone();
+            if (asc) r.remove(0L, cursor.id() + 1L);
+            else r.remove(Math.max(0L, cursor.id()), 0x1_0000_0000L);
+        }
+        long card = r.getLongCardinality();
+        if (offset >= card || limit <= 0) return new int[0];
+        int n = (int) Math.min(limit, card - offset);
+        int[] out = new int[n];
+        long x = r.select(asc ? offset : (int) (card - 1 - offset));
+        for (int i = 0; i < n; i++) {
+            out[i] = (int) x;
+            if (i + 1 < n) x = asc ? r.nextValue((int) x + 1) : r.previousValue((int) x - 1);
+        }
+        return out;
+    }
+
+    /**
+     * 按 (比赛日, id) 排序：按排序方向逐日遍历 ix.days（游标所在日起），每日与结果集求交，凑够 offset + limit 个即停，
+     * 不展开整个结果集。比赛日为空的行挂在 NO_DAY 下，ASC 时最前、DESC 时最后（与 MySQL 一致）。
+     */
+    private static int[] pageByDay(Index ix, RoaringBitmap matched, boolean asc, MatchSearchCursor cursor,
+                                   int offset, int limit) {
+        if (limit <= 0) return new int[0];
+        NavigableMap<Integer, RoaringBitmap> walk = asc ? ix.days : ix.days.descendingMap();
+        int cursorDay = NO_DAY;
+        if (cursor != null) {
+            try {
+                cursorDay = cursor.matchDate() == null ? NO_DAY
+                        : (int) LocalDate.parse(cursor.matchDate()).toEpochDay();
+            } catch (DateTimeParseException e) {
+                throw new BizException("INVALID_ARGUMENT", "cursor 无效");
+            }
+            walk = asc ? ix.days.tailMap(cursorDay, true) : ix.days.headMap(cursorDay, true).descendingMap();
+        }
+
+        int[] out = new int[limit];
+        int n = 0;
+        long skip = offset;
+        for (Map.Entry<Integer, RoaringBitmap> e : walk.entrySet()) {
+            RoaringBitmap r = matched == ix.all ? e.getValue() : RoaringBitmap.and(e.getValue(), matched);
+            if (cursor != null && e.getKey() == cursorDay) {
+                // 游标所在日只取 id 严格在游标之后的行
+                r = r == e.getValue() ? r.clone() : r;
+                if (asc) r.remove(0L, cursor.id() + 1L);
+                else r.remove(Math.max(0L, cursor.id()), 0x1_0000_0000L);
+            }
+            long card = r.getLongCardinality();
+            if (skip >= card) {
+                skip -= card;
+                continue;
+            }
+            IntIterator it = asc ? r.getIntIterator() : r.getReverseIntIterator();
+            for (; skip > 0; skip--) it.next();
+            while (n < limit && it.hasNext()) out[n++] = it.next();
+            if (n == limit) break;
+        }
+        return n == limit ? out : Arrays.copyOf(out, n);
+    }
+
+    private static String norm(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    /**
+     * 发布后只读的索引快照。
+     */
+    private static final class Index {
+        final String version;
+        /** 构建时探测到的 Matches 最大 updated_at（epoch 毫秒） */
+        final long updatedAt;
+        final RoaringBitmap all;
+        final Map<String, RoaringBitmap> tournaments;
+        final Map<String, String> tournamentNames;
+        final Map<String, RoaringBitmap> stages;
+        final Map<String, String> stageNames;
+        final Map<Integer, RoaringBitmap> teams;
+        /** 比赛日 -> 位图；比赛日为空的行在 NO_DAY 下（日期范围从 NO_DAY + 1 起，不会选中它们） */
+        final TreeMap<Integer, RoaringBitmap> days;
+        /** 按 id 下标的 epochDay；Matches.id 为自增主键，数组足够紧凑 */
+        final int[] dayById;
+        final long count;
+        final int maxId;
+
+        Index(Builder b, String version, long updatedAt) {
+            this.version = version;
+            this.updatedAt = updatedAt;
+            this.all = b.all;
+            this.tournaments = b.tournaments;
+            this.tournamentNames = b.tournamentNames;
+            this.stages = b.stages;
+            this.stageNames = b.stageNames;
+            this.teams = b.teams;
+            this.days = b.days;
+            this.dayById = b.dayById;
+            this.count = b.count;
+            this.maxId = b.maxId;
+        }
+
+        int dayOf(int id) {
+            return id < dayById.length ? dayById[id] : NO_DAY;
+        }
+    }
+
+    /**
+     * 构建器：基于已发布快照时复制容器、并在首次修改某个位图前克隆它，已发布的对象始终不变。
+     */
+    private static final class Builder {
+        RoaringBitmap all;
+        final Map<String, RoaringBitmap> tournaments;
+        final Map<String, String> tournamentNames;
+        final Map<String, RoaringBitmap> stages;
+        final Map<String, String> stageNames;
+        final Map<Integer, RoaringBitmap> teams;
+        final TreeMap<Integer, RoaringBitmap> days;
+        int[] dayById;
+        long count;
+        int maxId;
+
+        private final Set<RoaringBitmap> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Builder(Index base) {
+            if (base == null) {
+                all = new RoaringBitmap();
+                owned.add(all);
+                tournaments = new HashMap<>();
+                tournamentNames = new HashMap<>();
+                stages = new HashMap<>();
+                stageNames = new HashMap<>();
+                teams = new HashMap<>();
+                days = new TreeMap<>();
+                dayById = new int[1024];
+                Arrays.fill(dayById, NO_DAY);
+            } else {
+                all = base.all;
+                tournaments = new HashMap<>(base.tournaments);
+                tournamentNames = new HashMap<>(base.tournamentNames);
+                stages = new HashMap<>(base.stages);
+                stageNames = new HashMap<>(base.stageNames);
+                teams = new HashMap<>(base.teams);
+                days = new TreeMap<>(base.days);
+                dayById = base.dayById.clone();
+                count = base.count;
+                maxId = base.maxId;
+            }
+        }
+
+        void add(int id, String tournament, String stage, Integer team1, Integer team2, int day) {
+            maxId = Math.max(maxId, id);
+            count++;
+            all = writable(all);
+            all.add(id);
+            index(id, tournament, stage, team1, team2, day);
+        }
+
+        /**
+         * 已在索引中的行被修改：从所有取值位图摘除后按新值加入（行数不变；已被删除的行不在 all 中，忽略）。
+         */
+        void reindex(int id, String tournament, String stage, Integer team1, Integer team2, int day) {
+            if (!all.contains(id)) return;
+            unindex(tournaments, id);
+            unindex(stages, id);
+            unindex(teams, id);
+            unindex(days, id);
+            index(id, tournament, stage, team1, team2, day);
+        }
+
+        private void index(int id, String tournament, String stage, Integer team1, Integer team2, int day) {
+            if (tournament != null) {
+                String k = norm(tournament);
+                tournamentNames.putIfAbsent(k, tournament);
+                tournaments.put(k, add(tournaments.get(k), id));
+            }
+            if (stage != null) {
+                String k = norm(stage);
+                stageNames.putIfAbsent(k, stage);
+                stages.put(k, add(stages.get(k), id));
+            }
+            if (team1 != null) teams.put(team1, add(teams.get(team1), id));
+            if (team2 != null && !team2.equals(team1)) teams.put(team2, add(teams.get(team2), id));
+            days.put(day, add(days.get(day), id));
+
+            if (id >= dayById.length) {
+                int old = dayById.length;
+                dayById = Arrays.copyOf(dayById, Math.max(id + 1, old * 2));
+                Arrays.fill(dayById, old, dayById.length, NO_DAY);
+            }
+            dayById[id] = day;
+        }
+
+        Index build(String version, long updatedAt) {
+            // 只重排本次新建/克隆的 all；沿用已发布快照的 all 时它正被查询线程读取，且发布前已优化过
+            if (owned.contains(all)) all.runOptimize();
+            return new Index(this, version, updatedAt);
+        }
+
+        private <K> void unindex(Map<K, RoaringBitmap> byValue, int id) {
+            for (Map.Entry<K, RoaringBitmap> e : byValue.entrySet()) {
+                if (!e.getValue().contains(id)) continue;
+                RoaringBitmap w = writable(e.getValue());
+                w.remove(id);
+                e.setValue(w);
+            }
+            byValue.values().removeIf(RoaringBitmap::isEmpty);
+        }
+
+        private RoaringBitmap add(RoaringBitmap bm, int id) {
+            RoaringBitmap w = bm == null ? newOwned() : writable(bm);
+            w.add(id);
+            return w;
+        }
+
+        private RoaringBitmap writable(RoaringBitmap bm) {
+            if (owned.contains(bm)) return bm;
+            RoaringBitmap copy = bm.clone();
+            owned.add(copy);
+            return copy;
+        }
+
+        private RoaringBitmap newOwned() {
+            RoaringBitmap bm = new RoaringBitmap();
+            owned.add(bm);
+            return bm;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.backend.service.data;
+
+import java.util.Set;
+
+/**
+ * 某些比赛的对局/选手数据发生了变化（新增对局、追加选手数据、导入覆盖等），
+ * 按比赛缓存的内容（例如比赛详情）据此精确失效。
+ *
+ * @param rowsRemoved 删除过已有的对局/选手数据行（导入覆盖）；按 id 水位增量追加的索引无法回退，需要全量重建
+ */
+public record MatchDataChangedEvent(Set<Integer> matchIds, boolean rowsRemoved) {
+
+    public MatchDataChangedEvent(Set<Integer> matchIds) {
+        this(matchIds, false);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.backend.service.data;
+
+import com.example.backend.util.MatchDateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches.match_day 回填：把 varchar 的 match_date 规整为 DATE。
+ * <p>
+ * 启动后先全表按 id 分批扫一遍，之后定时扫新增的 id（爬虫直接写库只会写 match_date），
+ * 以及上一轮之后被修改过的已扫描行（updated_at 晚于上一轮开始时的最大值，例如爬虫改了 match_date）；
+ * 只更新 match_day 与解析结果不一致的行，保证迁移期间两列一致。无法解析的日期置为 NULL 并打日志。
+ */
+@Service
+public class MatchDayBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchDayBackfillService.class);
+
+    private static final String SELECT_COLUMNS = "SELECT id, match_date, match_day FROM Matches ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    /** 已扫描过的最大 Matches.id */
+    private final AtomicInteger scannedUpTo = new AtomicInteger(0);
+    /** 上一轮开始时 Matches 的最大 updated_at（epoch 毫秒） */
+    private final AtomicLong updatedAtMarker = new AtomicLong(0);
+
+    public MatchDayBackfillService(JdbcTemplate jdbcTemplate,
+                                   @Value("${app.data.match-day-backfill.enabled:true}") boolean enabled,
+                                   @Value("${app.data.match-day-backfill.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(initialDelayString = "${app.data.match-day-backfill.initial-delay-ms:0}",
+            fixedDelayString = "${app.data.match-day-backfill.interval-ms:60000}")
+    public void backfill() {
+        if (!enabled) return;
+        try {
+            // 先取标记再扫描：扫描期间的修改（包括本轮自己的 UPDATE）下一轮会再核对一次
+            Timestamp marker = jdbcTemplate.queryForObject("SELECT MAX(updated_at) FROM Matches", Timestamp.class);
+            int scanned = scannedUpTo.get();
+            int[] counts = {0, 0};
+
+            // 新增的行
+            while (true) {
+                List<Row> rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, i) -> Row.of(rs), scannedUpTo.get(), batchSize);
+                if (rows.isEmpty()) break;
+                sync(rows, counts);
+                scannedUpTo.set(rows.get(rows.size() - 1).id());
+                if (rows.size() < batchSize) break;
+            }
+
+            // 上一轮之后被修改过的已扫描行
+            int afterId = 0;
+            while (scanned > 0) {
+                List<Row> rows = jdbcTemplate.query(
+                        SELECT_COLUMNS + "WHERE updated_at > ? AND id > ? AND id <= ? ORDER BY id LIMIT ?",
+                        (rs, i) -> Row.of(rs), new Timestamp(updatedAtMarker.get()), afterId, scanned, batchSize);
+                if (rows.isEmpty()) break;
+                sync(rows, counts);
+                afterId = rows.get(rows.size() - 1).id();
+                if (rows.size() < batchSize) break;
+            }
+            if (marker != null) updatedAtMarker.set(marker.getTime());
+
+            if (counts[0] > 0 || counts[1] > 0) {
+                log.info("[match-day] backfill updated={}, unparsable={}, scannedUpTo={}", counts[0], counts[1], scannedUpTo.get());
+            }
+        } catch (Exception e) {
+            log.warn("[match-day] backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按 match_date 重新解析，只写回与当前 match_day 不一致的行。counts[0] 累加更新行数，counts[1] 累加无法解析的行数。
+     */
+    private void sync(List<Row> rows, int[] counts) {
+        List<Object[]> args = new ArrayList<>();
+        for (Row r : rows) {
+            LocalDate d = MatchDateUtil.parse(r.matchDate());
+            if (d == null && r.matchDate() != null && !r.matchDate().isBlank()) {
+                counts[1]++;
+                log.debug("[match-day] unparsable match_date id={}, value={}", r.id(), r.matchDate());
+            }
+            if (Objects.equals(d, r.matchDay())) continue;
+            args.add(new Object[]{d == null ? null : Date.valueOf(d), r.id()});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE Matches SET match_day = ? WHERE id = ?", args);
+            counts[0] += args.size();
+        }
+    }
+
+    private record Row(int id, String matchDate, LocalDate matchDay) {
+
+        static Row of(ResultSet rs) throws SQLException {
+            Date day = rs.getDate(3);
+            return new Row(rs.getInt(1), rs.getString(2), day == null ? null : day.toLocalDate());
+        }
+    }
+}
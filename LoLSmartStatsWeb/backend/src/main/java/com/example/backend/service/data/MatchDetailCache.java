@@ -0,0 +1,143 @@
+package com.example.backend.service.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * 比赛详情的序列化结果缓存：key 为 matchId，value 为 data 部分的 JSON 字节。
+ * <p>
+ * - 按总字节数（而不是条目数）限制容量，超出时按 LRU 淘汰；
+ * - 同一场比赛的并发未命中合并为一次加载（single-flight）；
+ * - 只在收到该比赛的 {@link MatchDataChangedEvent} 时失效；加载过程中被失效的结果不入缓存。
+ */
+@Component
+public class MatchDetailCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchDetailCache.class);
+
+    /** 每个条目的估算额外开销（Map 节点、数组头、key 装箱） */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    /** 访问顺序的 LinkedHashMap，所有访问都在 this 上同步 */
+    private final LinkedHashMap<Integer, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<Integer, CompletableFuture<byte[]>> inflight = new ConcurrentHashMap<>();
+
+    public MatchDetailCache(@Value("${app.data.match-detail-cache.enabled:true}") boolean enabled,
+                            @Value("${app.data.match-detail-cache.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.maxBytes = Math.max(0, maxBytes);
+        // 单个条目不超过总容量的 1/4，避免一个超大详情把其余条目全挤出去
+        this.maxEntryBytes = this.maxBytes / 4;
+    }
+
+    /**
+     * 取缓存；未命中时用 loader 加载，同一 matchId 的并发未命中只加载一次。
+     * loader 抛出的异常（例如 NOT_FOUND）原样抛给所有等待者，不缓存。
+     */
+    public byte[] get(int matchId, IntFunction<byte[]> loader) {
+        if (!enabled) return loader.apply(matchId);
+
+        byte[] hit = lookup(matchId);
+        if (hit != null) return hit;
+
+        CompletableFuture<byte[]> f = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inflight.putIfAbsent(matchId, f);
+        if (existing != null) return await(existing);
+
+        try {
+            // 拿到加载权后再查一次：可能刚有别的线程加载完成
+            byte[] v = lookup(matchId);
+            if (v == null) {
+                v = loader.apply(matchId);
+                store(matchId, f, v);
+            } else {
+                inflight.remove(matchId, f);
+            }
+            f.complete(v);
+            return v;
+        } catch (RuntimeException | Error e) {
+            inflight.remove(matchId, f);
+            f.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @EventListener
+    public void onMatchDataChanged(MatchDataChangedEvent event) {
+        if (event.matchIds() == null || event.matchIds().isEmpty()) return;
+        int removed = 0;
+        synchronized (this) {
+            for (Integer id : event.matchIds()) {
+                if (id == null) continue;
+                // 正在加载的结果可能基于旧数据：摘掉 inflight，使其完成后不入缓存
+                inflight.remove(id);
+                byte[] old = entries.remove(id);
+                if (old != null) {
+                    totalBytes -= weight(old);
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) log.debug("[detail-cache] invalidated {} of {} matches", removed, event.matchIds().size());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+        inflight.clear();
+    }
+
+    private synchronized byte[] lookup(int matchId) {
+        return entries.get(matchId);
+    }
+
+    private synchronized void store(int matchId, CompletableFuture<byte[]> f, byte[] v) {
+        // 已被失效（inflight 里不再是自己）则不入缓存
+        if (!inflight.remove(matchId, f)) return;
+        long w = weight(v);
+        if (w > maxEntryBytes) return;
+
+        byte[] old = entries.put(matchId, v);
+        if (old != null) totalBytes -= weight(old);
+        totalBytes += w;
+
+        Iterator<Map.Entry<Integer, byte[]>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Integer, byte[]> eldest = it.next();
+            totalBytes -= weight(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private static long weight(byte[] v) {
+        return (long) v.length + ENTRY_OVERHEAD;
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
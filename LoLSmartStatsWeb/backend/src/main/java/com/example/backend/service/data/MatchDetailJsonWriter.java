@@ -0,0 +1,114 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.response.MatchDetail;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 用 Jackson 流式 JsonGenerator 直接写出比赛详情，不经过 Map 或反射序列化。
+ * 输出结构与原先 HashMap 版本一致（null 字段照常输出，队伍不存在时只有 id）。
+ */
+final class MatchDetailJsonWriter {
+
+    private MatchDetailJsonWriter() {}
+
+    static byte[] write(JsonFactory factory, MatchDetail d) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+        try (JsonGenerator g = factory.createGenerator(out)) {
+            g.writeStartObject();
+
+            MatchDetail.MatchInfo m = d.match();
+            g.writeObjectFieldStart("match");
+            intField(g, "id", m.id());
+            g.writeStringField("matchDate", m.matchDate());
+            g.writeStringField("tournamentName", m.tournamentName());
+            g.writeStringField("stage", m.stage());
+            intField(g, "team1Id", m.team1Id());
+            intField(g, "team2Id", m.team2Id());
+            intField(g, "winnerTeamId", m.winnerTeamId());
+            g.writeEndObject();
+
+            g.writeObjectFieldStart("teams");
+            team(g, "team1", d.teams().team1());
+            team(g, "team2", d.teams().team2());
+            g.writeEndObject();
+
+            g.writeArrayFieldStart("games");
+            for (MatchDetail.GameDetail gd : d.games()) {
+                g.writeStartObject();
+                intField(g, "gameId", gd.gameId());
+                intField(g, "gameNumber", gd.gameNumber());
+                intField(g, "duration", gd.duration());
+                intField(g, "blueTeamId", gd.blueTeamId());
+                intField(g, "redTeamId", gd.redTeamId());
+                intField(g, "winnerTeamId", gd.winnerTeamId());
+                g.writeArrayFieldStart("participants");
+                for (MatchDetail.Participant p : gd.participants()) {
+                    participant(g, p);
+                }
+                g.writeEndArray();
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void team(JsonGenerator g, String field, MatchDetail.TeamInfo t) throws IOException {
+        g.writeObjectFieldStart(field);
+        intField(g, "id", t.id());
+        if (t.found()) {
+            g.writeStringField("name", t.name());
+            g.writeStringField("shortName", t.shortName());
+            g.writeStringField("region", t.region());
+        }
+        g.writeEndObject();
+    }
+
+    private static void participant(JsonGenerator g, MatchDetail.Participant p) throws IOException {
+        g.writeStartObject();
+        intField(g, "playerId", p.playerId());
+        g.writeStringField("playerName", p.playerName());
+        intField(g, "teamId", p.teamId());
+        g.writeStringField("position", p.position());
+        g.writeStringField("championName", p.championName());
+        g.writeStringField("championNameEn", p.championNameEn());
+
+        MatchDetail.StatLine s = p.stats();
+        g.writeObjectFieldStart("stats");
+        intField(g, "kills", s.kills());
+        intField(g, "deaths", s.deaths());
+        intField(g, "assists", s.assists());
+        doubleField(g, "kda", s.kda());
+        doubleField(g, "killParticipation", s.killParticipation());
+        intField(g, "totalDamageDealt", s.totalDamageDealt());
+        intField(g, "damageDealtToChampions", s.damageDealtToChampions());
+        doubleField(g, "damageDealtPercentage", s.damageDealtPercentage());
+        intField(g, "totalDamageTaken", s.totalDamageTaken());
+        doubleField(g, "damageTakenPercentage", s.damageTakenPercentage());
+        intField(g, "goldEarned", s.goldEarned());
+        intField(g, "minionsKilled", s.minionsKilled());
+        g.writeStringField("isMvp", s.isMvp());
+        g.writeEndObject();
+
+        g.writeEndObject();
+    }
+
+    private static void intField(JsonGenerator g, String name, Integer v) throws IOException {
+        if (v == null) g.writeNullField(name);
+        else g.writeNumberField(name, v);
+    }
+
+    private static void doubleField(JsonGenerator g, String name, Double v) throws IOException {
+        if (v == null) g.writeNullField(name);
+        else g.writeNumberField(name, v);
+    }
+}
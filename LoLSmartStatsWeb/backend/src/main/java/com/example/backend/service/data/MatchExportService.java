@@ -0,0 +1,381 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchExportRequest;
+import com.example.backend.exception.BizException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 比赛导出：与搜索相同的过滤条件，按 m.id 顺序流式输出全部结果（可带对局、选手数据）。
+ * <p>
+ * 走 MySQL 服务端流式结果集（fetchSize = Integer.MIN_VALUE，只进游标），边读边写，
+ * 比赛/对局/选手数据用一条 LEFT JOIN 的有序查询取出、按行折叠成嵌套结构，堆内存与导出行数无关。
+ */
+@Service
+public class MatchExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final char INT = 'i';
+    private static final char DOUBLE = 'd';
+    private static final char STRING = 's';
+
+    /** 比赛列：1..11 */
+    private static final List<Col> MATCH_COLS = List.of(
+            new Col("m.id", "matchId", INT),
+            new Col("m.match_date", "matchDate", STRING),
+            new Col("m.tournament_name", "tournamentName", STRING),
+            new Col("m.stage", "stage", STRING),
+            new Col("m.winner_id", "winnerTeamId", INT),
+            new Col("m.team1_id", "team1Id", INT),
+            new Col("t1.name", "team1Name", STRING),
+            new Col("t1.short_name", "team1ShortName", STRING),
+            new Col("m.team2_id", "team2Id", INT),
+            new Col("t2.name", "team2Name", STRING),
+            new Col("t2.short_name", "team2ShortName", STRING));
+
+    /** 对局列：12..17 */
+    private static final List<Col> GAME_COLS = List.of(
+            new Col("g.id", "gameId", INT),
+            new Col("g.game_number", "gameNumber", INT),
+            new Col("g.duration", "duration", INT),
+            new Col("g.blue_team_id", "blueTeamId", INT),
+            new Col("g.red_team_id", "redTeamId", INT),
+            new Col("g.winner_id", "gameWinnerTeamId", INT));
+
+    /** 选手数据列：18..；前 7 列为参赛者信息，其余为 stats */
+    private static final List<Col> STAT_COLS = List.of(
+            new Col("s.id", "statId", INT),
+            new Col("s.player_id", "playerId", INT),
+            new Col("p.name", "playerName", STRING),
+            new Col("s.team_id", "teamId", INT),
+            new Col("s.position", "position", STRING),
+            new Col("s.champion_name", "championName", STRING),
+            new Col("s.champion_name_en", "championNameEn", STRING),
+            new Col("s.kills", "kills", INT),
+            new Col("s.deaths", "deaths", INT),
+            new Col("s.assists", "assists", INT),
+            new Col("s.kda", "kda", DOUBLE),
+            new Col("s.kill_participation", "killParticipation", DOUBLE),
+            new Col("s.total_damage_dealt", "totalDamageDealt", INT),
+            new Col("s.damage_dealt_to_champions", "damageDealtToChampions", INT),
+            new Col("s.damage_dealt_percentage", "damageDealtPercentage", DOUBLE),
+            new Col("s.total_damage_taken", "totalDamageTaken", INT),
+            new Col("s.damage_taken_percentage", "damageTakenPercentage", DOUBLE),
+            new Col("s.gold_earned", "goldEarned", INT),
+            new Col("s.minions_killed", "minionsKilled", INT),
+            new Col("s.is_mvp", "isMvp", STRING));
+
+    private static final int GAME_BASE = MATCH_COLS.size() + 1;
+    private static final int STAT_BASE = GAME_BASE + GAME_COLS.size();
+    /** STAT_COLS 中 stats 子对象开始的位置 */
+    private static final int STAT_LINE_OFFSET = 7;
+
+    private final NamedParameterJdbcTemplate streamingJdbc;
+    /** 只读事务：配置了只读副本时导出查询走副本 */
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final boolean useMatchDay;
+
+    public MatchExportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${app.data.match-day.enabled:true}") boolean useMatchDay) {
+        // 独立的 JdbcTemplate：MySQL 下 fetchSize = Integer.MIN_VALUE 即逐行流式读取
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.setFetchSize(Integer.MIN_VALUE);
+        this.streamingJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.useMatchDay = useMatchDay;
+    }
+
+    /**
+     * 校验参数并生成查询；真正的读库与写出在 {@link Export#writeTo(OutputStream)} 中进行。
+     */
+    public Export prepare(MatchExportRequest req) {
+        String format = req == null || req.getFormat() == null || req.getFormat().isBlank()
+                ? FORMAT_NDJSON : req.getFormat().trim().toLowerCase(Locale.ROOT);
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new BizException("INVALID_ARGUMENT", "format 仅支持 ndjson / csv");
+        }
+        boolean includeStats = req != null && Boolean.TRUE.equals(req.getIncludeStats());
+        boolean includeGames = includeStats || (req != null && Boolean.TRUE.equals(req.getIncludeGames()));
+
+        String dateCol = useMatchDay ? "m.match_day" : "m.match_date";
+        MatchFilterSql filter = MatchFilterSql.of(req == null ? null : req.getFilter(), dateCol, useMatchDay);
+
+        List<Col> cols = new ArrayList<>(MATCH_COLS);
+        StringBuilder from = new StringBuilder(" FROM Matches m " +
+                "LEFT JOIN Teams t1 ON t1.id = m.team1_id " +
+                "LEFT JOIN Teams t2 ON t2.id = m.team2_id ");
+        String orderBy = " ORDER BY m.id";
+        if (includeGames) {
+            cols.addAll(GAME_COLS);
+            from.append("LEFT JOIN Games g ON g.match_id = m.id ");
+            orderBy += ", g.game_number, g.id";
+        }
+        if (includeStats) {
+            cols.addAll(STAT_COLS);
+            from.append("LEFT JOIN PlayerGameStats s ON s.game_id = g.id LEFT JOIN Players p ON p.id = s.player_id ");
+            orderBy += ", s.id";
+        }
+        StringBuilder select = new StringBuilder("SELECT ");
+        for (int i = 0; i < cols.size(); i++) {
+            if (i > 0) select.append(", ");
+            select.append(cols.get(i).sql);
+        }
+        String sql = select + from.toString() + filter.where + orderBy;
+        return new Export(sql, filter.params, cols, format, includeGames, includeStats);
+    }
+
+    public final class Export {
+
+        private final String sql;
+        private final Map<String, Object> params;
+        private final List<Col> cols;
+        private final String format;
+        private final boolean includeGames;
+        private final boolean includeStats;
+
+        private Export(String sql, Map<String, Object> params, List<Col> cols, String format,
+                       boolean includeGames, boolean includeStats) {
+            this.sql = sql;
+            this.params = params;
+            this.cols = cols;
+            this.format = format;
+            this.includeGames = includeGames;
+            this.includeStats = includeStats;
+        }
+
+        public String format() {
+            return format;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            long start = System.currentTimeMillis();
+            long rows;
+            try {
+                Long n = readOnlyTx.execute(status -> {
+                    try {
+                        return FORMAT_CSV.equals(format) ? writeCsv(out) : writeNdjson(out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                rows = n == null ? 0 : n;
+            } catch (UncheckedIOException e) {
+                // 客户端断开等写出异常：还原为 IOException 交给容器处理
+                throw e.getCause();
+            }
+            log.info("[export] format={}, games={}, stats={}, rows={}, costMs={}",
+                    format, includeGames, includeStats, rows, System.currentTimeMillis() - start);
+        }
+
+        private long writeCsv(OutputStream out) throws IOException {
+            Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            for (int i = 0; i < cols.size(); i++) {
+                if (i > 0) w.write(',');
+                w.write(cols.get(i).name);
+            }
+            w.write('\n');
+            long[] rows = {0};
+            streamingJdbc.query(sql, params, rs -> {
+                try {
+                    for (int i = 0; i < cols.size(); i++) {
+                        if (i > 0) w.write(',');
+                        Object v = rs.getObject(i + 1);
+                        if (v != null) writeCsvValue(w, String.valueOf(v));
+                    }
+                    w.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+            w.flush();
+            return rows[0];
+        }
+
+        private long writeNdjson(OutputStream out) throws IOException {
+            JsonGenerator g = objectMapper.getFactory().createGenerator(out);
+            g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            NdjsonFolder folder = new NdjsonFolder(g, includeGames, includeStats);
+            long[] rows = {0};
+            streamingJdbc.query(sql, params, rs -> {
+                try {
+                    folder.accept(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+            folder.finish();
+            g.flush();
+            return rows[0];
+        }
+    }
+
+    /**
+     * 把有序的 (比赛, 对局, 选手数据) 行折叠成每场比赛一行 JSON：比赛 id 变化时收尾上一场，对局 id 变化时收尾上一局。
+     */
+    private static final class NdjsonFolder {
+
+        private final JsonGenerator g;
+        private final boolean includeGames;
+        private final boolean includeStats;
+
+        private Integer matchId;
+        private Integer gameId;
+
+        NdjsonFolder(JsonGenerator g, boolean includeGames, boolean includeStats) {
+            this.g = g;
+            this.includeGames = includeGames;
+            this.includeStats = includeStats;
+        }
+
+        void accept(ResultSet rs) throws SQLException, IOException {
+            int mid = rs.getInt(1);
+            if (matchId == null || matchId != mid) {
+                closeMatch();
+                openMatch(rs);
+                matchId = mid;
+            }
+            if (!includeGames) return;
+
+            int gid = rs.getInt(GAME_BASE);
+            if (rs.wasNull()) return;
+            if (gameId == null || gameId != gid) {
+                closeGame();
+                openGame(rs);
+                gameId = gid;
+            }
+            if (!includeStats) return;
+
+            rs.getInt(STAT_BASE);
+            if (rs.wasNull()) return;
+            writeParticipant(rs);
+        }
+
+        void finish() throws IOException {
+            closeMatch();
+        }
+
+        private void openMatch(ResultSet rs) throws SQLException, IOException {
+            g.writeStartObject();
+            for (int i = 0; i < 5; i++) {
+                field(rs, 1 + i, MATCH_COLS.get(i));
+            }
+            team(rs, "team1", 6);
+            team(rs, "team2", 9);
+            if (includeGames) g.writeArrayFieldStart("games");
+        }
+
+        private void team(ResultSet rs, String name, int idCol) throws SQLException, IOException {
+            g.writeObjectFieldStart(name);
+            intField(rs, "id", idCol);
+            g.writeStringField("name", rs.getString(idCol + 1));
+            g.writeStringField("shortName", rs.getString(idCol + 2));
+            g.writeEndObject();
+        }
+
+        private void closeMatch() throws IOException {
+            if (matchId == null) return;
+            closeGame();
+            if (includeGames) g.writeEndArray();
+            g.writeEndObject();
+            g.writeRaw('\n');
+            matchId = null;
+        }
+
+        private void openGame(ResultSet rs) throws SQLException, IOException {
+            g.writeStartObject();
+            for (int i = 0; i < GAME_COLS.size(); i++) {
+                Col c = GAME_COLS.get(i);
+                // 与比赛详情保持一致：对局胜者字段名为 winnerTeamId
+                String name = "gameWinnerTeamId".equals(c.name) ? "winnerTeamId" : c.name;
+                intField(rs, name, GAME_BASE + i);
+            }
+            if (includeStats) g.writeArrayFieldStart("participants");
+        }
+
+        private void closeGame() throws IOException {
+            if (gameId == null) return;
+            if (includeStats) g.writeEndArray();
+            g.writeEndObject();
+            gameId = null;
+        }
+
+        private void writeParticipant(ResultSet rs) throws SQLException, IOException {
+            g.writeStartObject();
+            for (int i = 1; i < STAT_LINE_OFFSET; i++) {
+                field(rs, STAT_BASE + i, STAT_COLS.get(i));
+            }
+            g.writeObjectFieldStart("stats");
+            for (int i = STAT_LINE_OFFSET; i < STAT_COLS.size(); i++) {
+                field(rs, STAT_BASE + i, STAT_COLS.get(i));
+            }
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+
+        private void field(ResultSet rs, int idx, Col c) throws SQLException, IOException {
+            switch (c.type) {
+                case INT -> intField(rs, c.name, idx);
+                case DOUBLE -> {
+                    double v = rs.getDouble(idx);
+                    if (rs.wasNull()) g.writeNullField(c.name);
+                    else g.writeNumberField(c.name, v);
+                }
+                default -> g.writeStringField(c.name, rs.getString(idx));
+            }
+        }
+
+        private void intField(ResultSet rs, String name, int idx) throws SQLException, IOException {
+            int v = rs.getInt(idx);
+            if (rs.wasNull()) g.writeNullField(name);
+            else g.writeNumberField(name, v);
+        }
+    }
+
+    private static void writeCsvValue(Writer w, String v) throws IOException {
+        boolean quote = v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0;
+        if (!quote) {
+            w.write(v);
+            return;
+        }
+        w.write('"');
+        w.write(v.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    private record Col(String sql, String name, char type) {
+    }
+}
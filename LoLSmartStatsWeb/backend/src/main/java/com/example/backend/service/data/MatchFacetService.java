@@ -0,0 +1,127 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.dto.response.MatchFacets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 比赛搜索分面：赛事 / 阶段 / 队伍三个维度的计数。
+ * <p>
+ * 只用一次 GROUP BY (tournament_name, stage, team1_id, team2_id) 查询（SQL 里只带日期条件），
+ * 再在内存中折叠：每个维度计数时应用其余维度的条件、忽略自身条件，
+ * 这样前端切换某个维度的取值时，看到的就是切换后会返回的比赛数。
+ * 位图索引可用时直接取交集基数，不查库。
+ */
+@Service
+public class MatchFacetService {
+
+    private static final Comparator<MatchFacets.ValueCount> VALUE_ORDER =
+            Comparator.comparingLong(MatchFacets.ValueCount::count).reversed()
+                    .thenComparing(MatchFacets.ValueCount::value);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final MatchBitmapIndex matchBitmapIndex;
+    private final boolean useMatchDay;
+
+    public MatchFacetService(NamedParameterJdbcTemplate jdbc,
+                             MatchBitmapIndex matchBitmapIndex,
+                             @Value("${app.data.match-day.enabled:true}") boolean useMatchDay) {
+        this.jdbc = jdbc;
+        this.matchBitmapIndex = matchBitmapIndex;
+        this.useMatchDay = useMatchDay;
+    }
+
+    public MatchFacets facets(MatchSearchRequest.Filter f) {
+        MatchBitmapIndex.FacetCounts counts = matchBitmapIndex.facets(f);
+        if (counts != null) {
+            return new MatchFacets(toValueCounts(counts.tournaments()), toValueCounts(counts.stages()),
+                    toTeamCounts(counts.teams()));
+        }
+
+        // SQL 只带日期范围：三个分面维度的条件都在折叠时按维度分别应用
+        MatchSearchRequest.Filter dateOnly = new MatchSearchRequest.Filter();
+        if (f != null) dateOnly.setDateRange(f.getDateRange());
+        String dateCol = useMatchDay ? "m.match_day" : "m.match_date";
+        MatchFilterSql filter = MatchFilterSql.of(dateOnly, dateCol, useMatchDay);
+
+        String sql = "SELECT m.tournament_name, m.stage, m.team1_id, m.team2_id, COUNT(*) " +
+                "FROM Matches m " + filter.where +
+                " GROUP BY m.tournament_name, m.stage, m.team1_id, m.team2_id";
+
+        String tournament = f == null ? null : blankToNull(f.getTournamentName());
+        String stage = f == null ? null : blankToNull(f.getStage());
+        Set<Integer> teamIds = f == null || f.getTeamIds() == null || f.getTeamIds().isEmpty()
+                ? null : new HashSet<>(f.getTeamIds());
+
+        Map<String, Long> byTournament = new HashMap<>();
+        Map<String, Long> byStage = new HashMap<>();
+        Map<Integer, Long> byTeam = new HashMap<>();
+
+        jdbc.query(sql, filter.params, rs -> {
+            String t = rs.getString(1);
+            String s = rs.getString(2);
+            int a = rs.getInt(3);
+            Integer team1 = rs.wasNull() ? null : a;
+            int b = rs.getInt(4);
+            Integer team2 = rs.wasNull() ? null : b;
+            long n = rs.getLong(5);
+
+            // 与 SQL 过滤保持一致：库表排序规则不区分大小写
+            boolean tOk = tournament == null || tournament.equalsIgnoreCase(t);
+            boolean sOk = stage == null || stage.equalsIgnoreCase(s);
+            boolean teamOk = teamIds == null
+                    || (team1 != null && teamIds.contains(team1))
+                    || (team2 != null && teamIds.contains(team2));
+
+            if (t != null && sOk && teamOk) byTournament.merge(t, n, Long::sum);
+            if (s != null && tOk && teamOk) byStage.merge(s, n, Long::sum);
+            if (tOk && sOk) {
+                if (team1 != null) byTeam.merge(team1, n, Long::sum);
+                if (team2 != null && !team2.equals(team1)) byTeam.merge(team2, n, Long::sum);
+            }
+        });
+
+        return new MatchFacets(toValueCounts(byTournament), toValueCounts(byStage), toTeamCounts(byTeam));
+    }
+
+    private List<MatchFacets.TeamCount> toTeamCounts(Map<Integer, Long> byTeam) {
+        if (byTeam.isEmpty()) return List.of();
+        Map<Integer, String[]> names = new HashMap<>();
+        jdbc.query("SELECT id, name, short_name FROM Teams WHERE id IN (:ids)",
+                Map.of("ids", byTeam.keySet()),
+                rs -> {
+                    names.put(rs.getInt(1), new String[]{rs.getString(2), rs.getString(3)});
+                });
+        List<MatchFacets.TeamCount> out = new ArrayList<>(byTeam.size());
+        for (Map.Entry<Integer, Long> e : byTeam.entrySet()) {
+            String[] n = names.get(e.getKey());
+            out.add(new MatchFacets.TeamCount(e.getKey(), n == null ? null : n[0], n == null ? null : n[1], e.getValue()));
+        }
+        out.sort(Comparator.comparingLong(MatchFacets.TeamCount::count).reversed()
+                .thenComparing(MatchFacets.TeamCount::id));
+        return out;
+    }
+
+    private static List<MatchFacets.ValueCount> toValueCounts(Map<String, Long> counts) {
+        List<MatchFacets.ValueCount> out = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            out.add(new MatchFacets.ValueCount(e.getKey(), e.getValue()));
+        }
+        out.sort(VALUE_ORDER);
+        return out;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
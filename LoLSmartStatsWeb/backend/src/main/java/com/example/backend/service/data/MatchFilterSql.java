@@ -0,0 +1,68 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.exception.BizException;
+import com.example.backend.util.MatchDateUtil;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MatchSearchRequest.Filter -> Matches（别名 m）上的 WHERE 条件与命名参数，供搜索与导出共用。
+ */
+final class MatchFilterSql {
+
+    /** 以 " WHERE 1=1 " 开头，可继续追加 AND 条件 */
+    final StringBuilder where = new StringBuilder(" WHERE 1=1 ");
+    final Map<String, Object> params = new HashMap<>();
+
+    private MatchFilterSql() {}
+
+    /**
+     * @param dateCol     日期列（m.match_day 或 m.match_date）
+     * @param useMatchDay dateCol 是否为 DATE 列；否则按 varchar 字符串范围比较
+     */
+    static MatchFilterSql of(MatchSearchRequest.Filter f, String dateCol, boolean useMatchDay) {
+        MatchFilterSql out = new MatchFilterSql();
+        if (f == null) return out;
+        StringBuilder where = out.where;
+        Map<String, Object> params = out.params;
+
+        if (f.getTournamentName() != null && !f.getTournamentName().isBlank()) {
+            where.append(" AND m.tournament_name = :tournamentName ");
+            params.put("tournamentName", f.getTournamentName());
+        }
+        if (f.getStage() != null && !f.getStage().isBlank()) {
+            where.append(" AND m.stage = :stage ");
+            params.put("stage", f.getStage());
+        }
+        if (f.getTeamIds() != null && !f.getTeamIds().isEmpty()) {
+            where.append(" AND (m.team1_id IN (:teamIds) OR m.team2_id IN (:teamIds)) ");
+            params.put("teamIds", f.getTeamIds());
+        }
+        if (f.getDateRange() != null) {
+            String from = f.getDateRange().getFrom();
+            String to = f.getDateRange().getTo();
+            // match_day 模式按日期比较（from/to 取日期部分，闭区间）；
+            // 回退模式下 match_date 是 varchar，进行字符串范围过滤（要求前端按 YYYY-MM-DD 或 ISO-8601 统一格式传）
+            if (from != null && !from.isBlank()) {
+                where.append(" AND ").append(dateCol).append(" >= :from ");
+                params.put("from", useMatchDay ? requireDate(from, "dateRange.from") : from);
+            }
+            if (to != null && !to.isBlank()) {
+                where.append(" AND ").append(dateCol).append(" <= :to ");
+                params.put("to", useMatchDay ? requireDate(to, "dateRange.to") : to);
+            }
+        }
+        return out;
+    }
+
+    static LocalDate requireDate(String raw, String field) {
+        LocalDate d = MatchDateUtil.parse(raw);
+        if (d == null) {
+            throw new BizException("INVALID_ARGUMENT", field + " 日期格式无效，请使用 YYYY-MM-DD 或 ISO-8601");
+        }
+        return d;
+    }
+}
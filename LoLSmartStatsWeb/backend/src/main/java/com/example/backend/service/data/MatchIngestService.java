@@ -0,0 +1,468 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchIngestRequest;
+import com.example.backend.exception.BizException;
+import com.example.backend.util.MatchDateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 比赛数据批量导入：一个请求一个事务，全部走 JDBC 批量写入。
+ * <p>
+ * 顺序：按名字解析/创建队伍与选手 -> 按 (赛事, 阶段, 日期, 队伍1, 队伍2) 判重 -> 批量插入比赛（取回自增 id）
+ * -> 批量插入对局（取回自增 id）-> 批量插入选手数据。提交后先 bump 数据版本再发布 {@link MatchDataChangedEvent}，
+ * 让比赛详情缓存、筛选项缓存等按需失效；快照/交手索引/生涯聚合按 id 水位自动追上新行。
+ * 覆盖已有比赛时，旧行在同一事务里先从生涯聚合中减掉再删除，快照与交手索引收到事件后全量重建。
+ */
+@Service
+public class MatchIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchIngestService.class);
+
+    /** IN 列表每段的最大元素数 */
+    private static final int IN_CHUNK = 500;
+
+    private static final String INSERT_MATCH_SQL =
+            "INSERT INTO Matches (match_date, match_day, tournament_name, stage, team1_id, team2_id, winner_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_MATCH_SQL =
+            "UPDATE Matches SET winner_id = ?, match_day = ? WHERE id = ?";
+    private static final String INSERT_GAME_SQL =
+            "INSERT INTO Games (match_id, game_number, duration, blue_team_id, red_team_id, winner_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_STAT_SQL =
+            "INSERT INTO PlayerGameStats (game_id, player_id, team_id, position, champion_name, champion_name_en, " +
+                    "player_level, kills, deaths, assists, kda, kill_participation, total_damage_dealt, " +
+                    "damage_dealt_to_champions, damage_dealt_percentage, total_damage_taken, damage_taken_percentage, " +
+                    "gold_earned, minions_killed, is_mvp) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersionService dataVersionService;
+    private final ReferenceEntityCache referenceEntityCache;
+    private final PlayerAggregateService playerAggregateService;
+    private final String apiKey;
+    private final int batchSize;
+    private final int maxMatches;
+
+    public MatchIngestService(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              DataVersionService dataVersionService,
+                              ReferenceEntityCache referenceEntityCache,
+                              PlayerAggregateService playerAggregateService,
+                              @Value("${app.ingest.api-key:}") String apiKey,
+                              @Value("${app.ingest.batch-size:1000}") int batchSize,
+                              @Value("${app.ingest.max-matches-per-request:5000}") int maxMatches) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.dataVersionService = dataVersionService;
+        this.referenceEntityCache = referenceEntityCache;
+        this.playerAggregateService = playerAggregateService;
+        this.apiKey = apiKey;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxMatches = Math.max(1, maxMatches);
+    }
+
+    /**
+     * 校验导入密钥；未配置 app.ingest.api-key 时导入接口整体关闭。
+     */
+    public void checkKey(String key) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new BizException("FORBIDDEN", "数据导入未启用");
+        }
+        if (key == null || !MessageDigest.isEqual(
+                key.getBytes(StandardCharsets.UTF_8), apiKey.getBytes(StandardCharsets.UTF_8))) {
+            throw new BizException("UNAUTHORIZED", "X-Ingest-Key 无效");
+        }
+    }
+
+    /**
+     * 导入一批比赛。串行执行：按名字 upsert 队伍/选手时避免并发导入重复创建。
+     */
+    public synchronized Map<String, Object> ingest(MatchIngestRequest req) {
+        List<MatchIngestRequest.MatchItem> items = req == null || req.getMatches() == null ? List.of() : req.getMatches();
+        if (items.isEmpty()) throw new BizException("INVALID_ARGUMENT", "matches 不能为空");
+        if (items.size() > maxMatches) {
+            throw new BizException("INVALID_ARGUMENT", "单次最多导入 " + maxMatches + " 场比赛");
+        }
+        for (int i = 0; i < items.size(); i++) {
+            validate(items.get(i), i);
+        }
+        boolean replace = req.getReplaceExisting() != null && req.getReplaceExisting();
+
+        long start = System.currentTimeMillis();
+        Outcome o = transactionTemplate.execute(status -> write(items, replace));
+
+        // 事务提交后再通知各缓存/索引，避免读到未提交的数据。
+        // 先 bump 版本：收到事件后立即刷新的索引（例如比赛位图索引）按版本判断是否需要追加
+        dataVersionService.bump();
+        // 新建的队伍/选手是 JDBC 直接写入的，Hibernate 感知不到：清掉二级缓存里的列表查询结果
+        if (o.teamsCreated > 0 || o.playersCreated > 0) {
+            referenceEntityCache.evictAll();
+        }
+        if (!o.changedMatchIds.isEmpty()) {
+            // 覆盖删除了旧的对局/选手数据行：按水位增量追加的快照/交手索引需要全量重建
+            eventPublisher.publishEvent(new MatchDataChangedEvent(o.changedMatchIds, o.replaced > 0));
+        }
+
+        long costMs = System.currentTimeMillis() - start;
+        log.info("[ingest] matches inserted={}, replaced={}, skipped={}, games={}, stats={}, teamsCreated={}, playersCreated={}, costMs={}",
+                o.inserted, o.replaced, o.skipped, o.games, o.stats, o.teamsCreated, o.playersCreated, costMs);
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("inserted", o.inserted);
+        out.put("replaced", o.replaced);
+        out.put("skipped", o.skipped);
+        out.put("games", o.games);
+        out.put("stats", o.stats);
+        out.put("teamsCreated", o.teamsCreated);
+        out.put("playersCreated", o.playersCreated);
+        out.put("matchIds", o.matchIds);
+        out.put("costMs", costMs);
+        return out;
+    }
+
+    private Outcome write(List<MatchIngestRequest.MatchItem> items, boolean replace) {
+        Outcome o = new Outcome();
+
+        // 1) 队伍、选手：按名字解析，缺的批量创建
+        Map<String, MatchIngestRequest.TeamRef> teamRefs = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Set<String> playerNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (MatchIngestRequest.MatchItem m : items) {
+            addTeamRef(teamRefs, m.getTeam1());
+            addTeamRef(teamRefs, m.getTeam2());
+            for (MatchIngestRequest.GameItem g : games(m)) {
+                addTeamName(teamRefs, g.getBlueTeam());
+                addTeamName(teamRefs, g.getRedTeam());
+                addTeamName(teamRefs, g.getWinner());
+                for (MatchIngestRequest.StatItem s : stats(g)) {
+                    addTeamName(teamRefs, s.getTeam());
+                    playerNames.add(s.getPlayer().trim());
+                }
+            }
+        }
+        Map<String, Integer> teamIds = resolveTeams(teamRefs, o);
+        Map<String, Integer> playerIds = resolvePlayers(playerNames, o);
+
+        // 2) 判重：库中已存在的比赛
+        Map<String, Integer> existing = findExistingMatches(items, teamIds);
+
+        // 3) 比赛：新比赛批量插入；已存在的按 replace 决定跳过或覆盖
+        List<Integer> matchIds = new ArrayList<>(Collections.nCopies(items.size(), (Integer) null));
+        List<Integer> newIndexes = new ArrayList<>();
+        List<Object[]> newRows = new ArrayList<>();
+        List<Integer> replaceIds = new ArrayList<>();
+        List<Object[]> updateRows = new ArrayList<>();
+        boolean[] writeGames = new boolean[items.size()];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            MatchIngestRequest.MatchItem m = items.get(i);
+            Integer t1 = teamIds.get(m.getTeam1().getName().trim());
+            Integer t2 = teamIds.get(m.getTeam2().getName().trim());
+            String key = naturalKey(blankToNull(m.getTournamentName()), blankToNull(m.getStage()),
+                    blankToNull(m.getMatchDate()), t1, t2);
+            Integer winnerId = teamId(teamIds, m.getWinner());
+            LocalDate day = MatchDateUtil.parse(m.getMatchDate());
+            Integer existingId = existing.get(key);
+
+            if (!seen.add(key)) {
+                // 同一批里重复的比赛：只取第一次出现的
+                matchIds.set(i, existingId);
+                o.skipped++;
+            } else if (existingId != null && !replace) {
+                matchIds.set(i, existingId);
+                o.skipped++;
+            } else if (existingId != null) {
+                matchIds.set(i, existingId);
+                replaceIds.add(existingId);
+                updateRows.add(new Object[]{winnerId, day, existingId});
+                writeGames[i] = true;
+                o.replaced++;
+            } else {
+                newIndexes.add(i);
+                newRows.add(new Object[]{blankToNull(m.getMatchDate()), day, blankToNull(m.getTournamentName()),
+                        blankToNull(m.getStage()), t1, t2, winnerId});
+                writeGames[i] = true;
+                o.inserted++;
+            }
+        }
+
+        if (!replaceIds.isEmpty()) {
+            // 旧的选手数据行已计入生涯聚合：删除前在同一事务里减掉，新行之后按水位正常累加
+            playerAggregateService.retractMatches(replaceIds);
+            deleteGamesOf(replaceIds);
+            batchUpdate(UPDATE_MATCH_SQL, updateRows);
+        }
+        List<Integer> newIds = insertReturningKeys(INSERT_MATCH_SQL, newRows);
+        for (int k = 0; k < newIndexes.size(); k++) {
+            matchIds.set(newIndexes.get(k), newIds.get(k));
+        }
+        // 同批重复项回填第一次出现时的 id
+        Map<String, Integer> idByKey = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            MatchIngestRequest.MatchItem m = items.get(i);
+            String key = naturalKey(blankToNull(m.getTournamentName()), blankToNull(m.getStage()), blankToNull(m.getMatchDate()),
+                    teamIds.get(m.getTeam1().getName().trim()), teamIds.get(m.getTeam2().getName().trim()));
+            if (matchIds.get(i) != null) idByKey.putIfAbsent(key, matchIds.get(i));
+            else matchIds.set(i, idByKey.get(key));
+        }
+
+        // 4) 对局
+        List<Object[]> gameRows = new ArrayList<>();
+        List<List<MatchIngestRequest.StatItem>> statsByGame = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (!writeGames[i]) continue;
+            int matchId = matchIds.get(i);
+            o.changedMatchIds.add(matchId);
+            for (MatchIngestRequest.GameItem g : games(items.get(i))) {
+                gameRows.add(new Object[]{matchId, g.getGameNumber(), g.getDuration(),
+                        teamId(teamIds, g.getBlueTeam()), teamId(teamIds, g.getRedTeam()), teamId(teamIds, g.getWinner())});
+                statsByGame.add(stats(g));
+            }
+        }
+        List<Integer> gameIds = insertReturningKeys(INSERT_GAME_SQL, gameRows);
+        o.games = gameIds.size();
+
+        // 5) 选手数据
+        List<Object[]> statRows = new ArrayList<>(batchSize);
+        for (int k = 0; k < gameIds.size(); k++) {
+            for (MatchIngestRequest.StatItem s : statsByGame.get(k)) {
+                statRows.add(new Object[]{gameIds.get(k), playerIds.get(s.getPlayer().trim()), teamId(teamIds, s.getTeam()),
+                        blankToNull(s.getPosition()), blankToNull(s.getChampionName()), blankToNull(s.getChampionNameEn()),
+                        s.getPlayerLevel(), s.getKills(), s.getDeaths(), s.getAssists(), s.getKda(), s.getKillParticipation(),
+                        s.getTotalDamageDealt(), s.getDamageDealtToChampions(), s.getDamageDealtPercentage(),
+                        s.getTotalDamageTaken(), s.getDamageTakenPercentage(), s.getGoldEarned(), s.getMinionsKilled(),
+                        blankToNull(s.getIsMvp())});
+                if (statRows.size() >= batchSize) {
+                    batchUpdate(INSERT_STAT_SQL, statRows);
+                    o.stats += statRows.size();
+                    statRows.clear();
+                }
+            }
+        }
+        if (!statRows.isEmpty()) {
+            batchUpdate(INSERT_STAT_SQL, statRows);
+            o.stats += statRows.size();
+        }
+
+        o.matchIds = matchIds;
+        return o;
+    }
+
+    private Map<String, Integer> resolveTeams(Map<String, MatchIngestRequest.TeamRef> refs, Outcome o) {
+        Map<String, Integer> ids = selectIdsByName("Teams", refs.keySet());
+        List<String> missing = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (MatchIngestRequest.TeamRef t : refs.values()) {
+            String name = t.getName().trim();
+            if (ids.containsKey(name)) continue;
+            missing.add(name);
+            rows.add(new Object[]{name, blankToNull(t.getShortName()), blankToNull(t.getRegion())});
+        }
+        List<Integer> created = insertReturningKeys("INSERT INTO Teams (name, short_name, region) VALUES (?, ?, ?)", rows);
+        for (int i = 0; i < missing.size(); i++) ids.put(missing.get(i), created.get(i));
+        o.teamsCreated = created.size();
+        return ids;
+    }
+
+    private Map<String, Integer> resolvePlayers(Set<String> names, Outcome o) {
+        Map<String, Integer> ids = selectIdsByName("Players", names);
+        List<String> missing = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (String name : names) {
+            if (ids.containsKey(name)) continue;
+            missing.add(name);
+            rows.add(new Object[]{name});
+        }
+        List<Integer> created = insertReturningKeys("INSERT INTO Players (name) VALUES (?)", rows);
+        for (int i = 0; i < missing.size(); i++) ids.put(missing.get(i), created.get(i));
+        o.playersCreated = created.size();
+        return ids;
+    }
+
+    /**
+     * 按名字查已有 id（名字比较忽略大小写，与 MySQL 默认排序规则一致；重名取最小 id）。
+     */
+    private Map<String, Integer> selectIdsByName(String table, Set<String> names) {
+        Map<String, Integer> out = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<String> all = new ArrayList<>(names);
+        for (int from = 0; from < all.size(); from += IN_CHUNK) {
+            List<String> chunk = all.subList(from, Math.min(all.size(), from + IN_CHUNK));
+            String sql = "SELECT id, name FROM " + table + " WHERE name IN (" + placeholders(chunk.size()) + ") ORDER BY id";
+            jdbcTemplate.query(sql, rs -> {
+                out.putIfAbsent(rs.getString(2), rs.getInt(1));
+            }, chunk.toArray());
+        }
+        return out;
+    }
+
+    private Map<String, Integer> findExistingMatches(List<MatchIngestRequest.MatchItem> items, Map<String, Integer> teamIds) {
+        Set<Long> pairs = new LinkedHashSet<>();
+        for (MatchIngestRequest.MatchItem m : items) {
+            Integer t1 = teamIds.get(m.getTeam1().getName().trim());
+            Integer t2 = teamIds.get(m.getTeam2().getName().trim());
+            pairs.add(((long) t1 << 32) | (t2 & 0xffffffffL));
+        }
+        Map<String, Integer> out = new HashMap<>();
+        List<Long> all = new ArrayList<>(pairs);
+        for (int from = 0; from < all.size(); from += IN_CHUNK) {
+            List<Long> chunk = all.subList(from, Math.min(all.size(), from + IN_CHUNK));
+            StringBuilder sql = new StringBuilder(
+                    "SELECT id, tournament_name, stage, match_date, team1_id, team2_id FROM Matches WHERE (team1_id, team2_id) IN (");
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args[i * 2] = (int) (chunk.get(i) >>> 32);
+                args[i * 2 + 1] = (int) chunk.get(i).longValue();
+            }
+            sql.append(") ORDER BY id");
+            jdbcTemplate.query(sql.toString(), rs -> {
+                String key = naturalKey(rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5), rs.getInt(6));
+                out.putIfAbsent(key, rs.getInt(1));
+            }, args);
+        }
+        return out;
+    }
+
+    private void deleteGamesOf(List<Integer> matchIds) {
+        for (int from = 0; from < matchIds.size(); from += IN_CHUNK) {
+            List<Integer> chunk = matchIds.subList(from, Math.min(matchIds.size(), from + IN_CHUNK));
+            String in = placeholders(chunk.size());
+            Object[] args = chunk.toArray();
+            jdbcTemplate.update("DELETE FROM PlayerGameStats WHERE game_id IN (SELECT id FROM Games WHERE match_id IN (" + in + "))", args);
+            jdbcTemplate.update("DELETE FROM Games WHERE match_id IN (" + in + ")", args);
+        }
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+        }
+    }
+
+    /**
+     * 批量插入并按顺序取回自增 id（同一连接、同一事务内）。
+     */
+    private List<Integer> insertReturningKeys(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) return new ArrayList<>();
+        List<Integer> ids = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) con -> {
+            List<Integer> out = new ArrayList<>(rows.size());
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    int to = Math.min(rows.size(), from + batchSize);
+                    for (int i = from; i < to; i++) {
+                        Object[] row = rows.get(i);
+                        for (int c = 0; c < row.length; c++) ps.setObject(c + 1, row[c]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) out.add(keys.getInt(1));
+                    }
+                }
+            }
+            return out;
+        });
+        if (ids == null || ids.size() != rows.size()) {
+            throw new IllegalStateException("generated keys mismatch: expected " + rows.size() + ", got " + (ids == null ? 0 : ids.size()));
+        }
+        return ids;
+    }
+
+    private static void validate(MatchIngestRequest.MatchItem m, int index) {
+        String t1 = m.getTeam1().getName().trim();
+        String t2 = m.getTeam2().getName().trim();
+        if (t1.equalsIgnoreCase(t2)) {
+            throw new BizException("INVALID_ARGUMENT", "matches[" + index + "] 两支队伍相同");
+        }
+        String winner = blankToNull(m.getWinner());
+        if (winner != null && !winner.equalsIgnoreCase(t1) && !winner.equalsIgnoreCase(t2)) {
+            throw new BizException("INVALID_ARGUMENT", "matches[" + index + "].winner 必须是 team1 或 team2");
+        }
+        String date = blankToNull(m.getMatchDate());
+        if (date != null && MatchDateUtil.parse(date) == null) {
+            throw new BizException("INVALID_ARGUMENT", "matches[" + index + "].matchDate 日期格式无效");
+        }
+    }
+
+    private static void addTeamRef(Map<String, MatchIngestRequest.TeamRef> refs, MatchIngestRequest.TeamRef t) {
+        String name = t.getName().trim();
+        MatchIngestRequest.TeamRef cur = refs.get(name);
+        // 只带名字的引用（来自对局/选手数据）不覆盖带简称/赛区的完整引用
+        if (cur == null || (cur.getShortName() == null && cur.getRegion() == null)) refs.put(name, t);
+    }
+
+    private static void addTeamName(Map<String, MatchIngestRequest.TeamRef> refs, String name) {
+        String n = blankToNull(name);
+        if (n == null || refs.containsKey(n)) return;
+        MatchIngestRequest.TeamRef t = new MatchIngestRequest.TeamRef();
+        t.setName(n);
+        refs.put(n, t);
+    }
+
+    private static Integer teamId(Map<String, Integer> teamIds, String name) {
+        String n = blankToNull(name);
+        return n == null ? null : teamIds.get(n);
+    }
+
+    private static List<MatchIngestRequest.GameItem> games(MatchIngestRequest.MatchItem m) {
+        return m.getGames() == null ? List.of() : m.getGames();
+    }
+
+    private static List<MatchIngestRequest.StatItem> stats(MatchIngestRequest.GameItem g) {
+        return g.getStats() == null ? List.of() : g.getStats();
+    }
+
+    private static String naturalKey(String tournamentName, String stage, String matchDate, Integer team1Id, Integer team2Id) {
+        return tournamentName + "\u0001" + stage + "\u0001" + matchDate + "\u0001" + team1Id + "\u0001" + team2Id;
+    }
+
+    private static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    private static final class Outcome {
+        int inserted;
+        int replaced;
+        int skipped;
+        int games;
+        int stats;
+        int teamsCreated;
+        int playersCreated;
+        List<Integer> matchIds;
+        final Set<Integer> changedMatchIds = new HashSet<>();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend.service.data;
+
+import com.example.backend.exception.BizException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 比赛搜索的 keyset 游标：记录上一页最后一行的排序键 (matchDate, id)，对前端是不透明字符串。
+ * <p>
+ * 格式（base64url 编码前）：v1|排序字段|方向|matchDate|id，matchDate 为空时用 "~" 占位。
+ */
+final class MatchSearchCursor {
+
+    /** 按 varchar 的 match_date 排序（match_day 未启用时） */
+    static final String SORT_DATE = "d";
+    /** 按 DATE 列 match_day 排序 */
+    static final String SORT_DAY = "t";
+    static final String SORT_ID = "i";
+
+    private static final String VERSION = "v1";
+    private static final String NULL_MARK = "~";
+
+    private final String sort;
+    private final String dir;
+    private final String matchDate;
+    private final int id;
+
+    MatchSearchCursor(String sort, String dir, String matchDate, int id) {
+        this.sort = sort;
+        this.dir = dir;
+        this.matchDate = matchDate;
+        this.id = id;
+    }
+
+    String sort() { return sort; }
+    String dir() { return dir; }
+    String matchDate() { return matchDate; }
+    int id() { return id; }
+
+    String encode() {
+        String raw = VERSION + "|" + sort + "|" + dir + "|" + (matchDate == null ? NULL_MARK : matchDate) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标并校验与本次请求的排序一致（换了排序字段/方向后旧游标没有意义）。
+     */
+    static MatchSearchCursor decode(String cursor, String expectedSort, String expectedDir) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BizException("INVALID_ARGUMENT", "cursor 无效");
+        }
+        // matchDate 本身可能含 '|' 以外的任意字符，因此从两端切分
+        int first = raw.indexOf('|');
+        int second = first < 0 ? -1 : raw.indexOf('|', first + 1);
+        int third = second < 0 ? -1 : raw.indexOf('|', second + 1);
+        int last = raw.lastIndexOf('|');
+        if (first < 0 || second < 0 || third < 0 || last <= third || !VERSION.equals(raw.substring(0, first))) {
+            throw new BizException("INVALID_ARGUMENT", "cursor 无效");
+        }
+        String sort = raw.substring(first + 1, second);
+        String dir = raw.substring(second + 1, third);
+        String date = raw.substring(third + 1, last);
+        int id;
+        try {
+            id = Integer.parseInt(raw.substring(last + 1));
+        } catch (NumberFormatException e) {
+            throw new BizException("INVALID_ARGUMENT", "cursor 无效");
+        }
+        if (!sort.equals(expectedSort) || !dir.equals(expectedDir)) {
+            throw new BizException("INVALID_ARGUMENT", "cursor 与当前排序不一致，请从第一页重新查询");
+        }
+        return new MatchSearchCursor(sort, dir, NULL_MARK.equals(date) ? null : date, id);
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.backend.service.data;
 
 import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.dto.response.MatchBrief;
+import com.example.backend.dto.response.MatchDetail;
+import com.example.backend.dto.response.TeamBrief;
 import com.example.backend.entity.Game;
 import com.example.backend.entity.Match;
 import com.example.backend.entity.Player;
@@ -10,36 +13,57 @@ import com.example.backend.exception.BizException;
 import com.example.backend.repository.GameRepository;
 import com.example.backend.repository.MatchRepository;
 import com.example.backend.repository.PlayerGameStatRepository;
-import com.example.backend.repository.PlayerRepository;
-import com.example.backend.repository.TeamRepository;
+import com.example.backend.util.MatchDateUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @Service
+@Transactional(readOnly = true)
 public class MatchService {
 
     private final MatchRepository matchRepository;
     private final GameRepository gameRepository;
-    private final TeamRepository teamRepository;
-    private final PlayerRepository playerRepository;
+    private final ReferenceEntityCache referenceEntityCache;
     private final PlayerGameStatRepository playerGameStatRepository;
+    private final HeadToHeadIndex headToHeadIndex;
+    private final MatchDetailCache matchDetailCache;
+    private final MatchFacetService matchFacetService;
+    private final MatchBitmapIndex matchBitmapIndex;
+    private final ObjectMapper objectMapper;
+
+    /** 日期过滤/排序是否走 DATE 列 match_day（迁移回滚时可关掉，退回 varchar 的 match_date） */
+    private final boolean useMatchDay;
 
     @PersistenceContext
     private EntityManager em;
 
     public MatchService(MatchRepository matchRepository,
                         GameRepository gameRepository,
-                        TeamRepository teamRepository,
-                        PlayerRepository playerRepository,
-                        PlayerGameStatRepository playerGameStatRepository) {
+                        ReferenceEntityCache referenceEntityCache,
+                        PlayerGameStatRepository playerGameStatRepository,
+                        HeadToHeadIndex headToHeadIndex,
+                        MatchDetailCache matchDetailCache,
+                        MatchFacetService matchFacetService,
+                        MatchBitmapIndex matchBitmapIndex,
+                        ObjectMapper objectMapper,
+                        @Value("${app.data.match-day.enabled:true}") boolean useMatchDay) {
         this.matchRepository = matchRepository;
         this.gameRepository = gameRepository;
-        this.teamRepository = teamRepository;
-        this.playerRepository = playerRepository;
+        this.referenceEntityCache = referenceEntityCache;
         this.playerGameStatRepository = playerGameStatRepository;
+        this.headToHeadIndex = headToHeadIndex;
+        this.matchDetailCache = matchDetailCache;
+        this.matchFacetService = matchFacetService;
+        this.matchBitmapIndex = matchBitmapIndex;
+        this.objectMapper = objectMapper;
+        this.useMatchDay = useMatchDay;
     }
 
     @SuppressWarnings("unchecked")
@@ -53,66 +77,90 @@ public class MatchService {
         String sortField = req != null && req.getSort() != null ? req.getSort().getField() : null;
         String sortOrder = req != null && req.getSort() != null ? req.getSort().getOrder() : null;
 
+        boolean sortByDate = "matchDate".equalsIgnoreCase(sortField);
+        String dir = "asc".equalsIgnoreCase(sortOrder) ? "ASC" : "DESC";
+        // 日期列：match_day 为 DATE（走 (match_day, id) 索引）；回退时用 varchar 的 match_date 按字符串比较
+        String dateCol = useMatchDay ? "m.match_day" : "m.match_date";
         String orderBy;
-        if ("matchDate".equalsIgnoreCase(sortField)) {
-            // match_date 是 varchar，排序按字符串
-            orderBy = "m.match_date";
+        if (sortByDate) {
+            // id 兜底保证顺序稳定（keyset 翻页依赖）
+            orderBy = dateCol + " " + dir + ", m.id " + dir;
         } else {
-            orderBy = "m.id";
+            orderBy = "m.id " + dir;
         }
-        String dir = "asc".equalsIgnoreCase(sortOrder) ? "ASC" : "DESC";
 
-        StringBuilder where = new StringBuilder(" WHERE 1=1 ");
-        Map<String, Object> params = new HashMap<>();
+        // cursor 不为 null 即进入 keyset 模式（空串表示第一页），此时不使用 page/offset
+        boolean cursorMode = req != null && req.getCursor() != null;
+        String cursorSort = !sortByDate ? MatchSearchCursor.SORT_ID
+                : (useMatchDay ? MatchSearchCursor.SORT_DAY : MatchSearchCursor.SORT_DATE);
+        MatchSearchCursor cursor = cursorMode && !req.getCursor().isBlank()
+                ? MatchSearchCursor.decode(req.getCursor().trim(), cursorSort, dir)
+                : null;
+        // total 需要额外一次全量 COUNT：offset 模式默认返回，cursor 模式默认不返回
+        boolean withTotal = req != null && req.getWithTotal() != null ? req.getWithTotal() : !cursorMode;
+
+        // 过滤/排序/分页优先走内存位图索引，只按 id 回库取当页的行；不支持的条件退回 SQL
+        List<Object[]> rows;
+        Long total = null;
+        MatchBitmapIndex.Page hit = matchBitmapIndex.search(f, sortByDate, "ASC".equals(dir), cursor,
+                cursorMode ? 0 : offset, cursorMode ? pageSize + 1 : pageSize, withTotal);
+        if (hit != null) {
+            rows = loadRowsByIds(hit.ids());
+            total = hit.total();
+        } else {
+            MatchFilterSql filter = MatchFilterSql.of(f, dateCol, useMatchDay);
+            StringBuilder where = filter.where;
+            Map<String, Object> params = filter.params;
+
+            String sqlCount = "SELECT COUNT(1) FROM Matches m " + where;
 
-        if (f != null) {
-            if (f.getTournamentName() != null && !f.getTournamentName().isBlank()) {
-                where.append(" AND m.tournament_name = :tournamentName ");
-                params.put("tournamentName", f.getTournamentName());
+            StringBuilder listWhere = new StringBuilder(where);
+            Map<String, Object> listParams = new HashMap<>(params);
+            if (cursor != null) {
+                appendKeysetCondition(listWhere, listParams, cursor, sortByDate ? dateCol : null, "ASC".equals(dir));
             }
-            if (f.getStage() != null && !f.getStage().isBlank()) {
-                where.append(" AND m.stage = :stage ");
-                params.put("stage", f.getStage());
+
+            String sqlList = "SELECT m.id, m.match_date, m.tournament_name, m.stage, m.team1_id, m.team2_id, m.winner_id, m.match_day " +
+                    "FROM Matches m " + listWhere +
+                    " ORDER BY " + orderBy +
+                    (cursorMode ? " LIMIT :limit" : " LIMIT :limit OFFSET :offset");
+
+            var qList = em.createNativeQuery(sqlList);
+            for (Map.Entry<String, Object> e : listParams.entrySet()) {
+                qList.setParameter(e.getKey(), e.getValue());
             }
-            if (f.getTeamIds() != null && !f.getTeamIds().isEmpty()) {
-                where.append(" AND (m.team1_id IN (:teamIds) OR m.team2_id IN (:teamIds)) ");
-                params.put("teamIds", f.getTeamIds());
+            if (cursorMode) {
+                // 多取一行用于判断是否还有下一页
+                qList.setParameter("limit", pageSize + 1);
+            } else {
+                qList.setParameter("limit", pageSize);
+                qList.setParameter("offset", offset);
             }
-            if (f.getDateRange() != null) {
-                String from = f.getDateRange().getFrom();
-                String to = f.getDateRange().getTo();
-                // match_date 是 varchar，这里进行字符串范围过滤（要求前端按 YYYY-MM-DD 或 ISO-8601 统一格式传）
-                if (from != null && !from.isBlank()) {
-                    where.append(" AND m.match_date >= :from ");
-                    params.put("from", from);
-                }
-                if (to != null && !to.isBlank()) {
-                    where.append(" AND m.match_date <= :to ");
-                    params.put("to", to);
+
+            if (withTotal) {
+                var qCount = em.createNativeQuery(sqlCount);
+                for (Map.Entry<String, Object> e : params.entrySet()) {
+                    qCount.setParameter(e.getKey(), e.getValue());
                 }
+                Number totalN = (Number) qCount.getSingleResult();
+                total = totalN == null ? 0 : totalN.longValue();
             }
-        }
-
-        String sqlList = "SELECT m.id, m.match_date, m.tournament_name, m.stage, m.team1_id, m.team2_id, m.winner_id " +
-                "FROM Matches m " + where +
-                " ORDER BY " + orderBy + " " + dir +
-                " LIMIT :limit OFFSET :offset";
 
-        String sqlCount = "SELECT COUNT(1) FROM Matches m " + where;
-
-        var qList = em.createNativeQuery(sqlList);
-        var qCount = em.createNativeQuery(sqlCount);
-        for (Map.Entry<String, Object> e : params.entrySet()) {
-            qList.setParameter(e.getKey(), e.getValue());
-            qCount.setParameter(e.getKey(), e.getValue());
+            rows = qList.getResultList();
         }
-        qList.setParameter("limit", pageSize);
-        qList.setParameter("offset", offset);
-
-        Number totalN = (Number) qCount.getSingleResult();
-        long total = totalN == null ? 0 : totalN.longValue();
 
-        List<Object[]> rows = qList.getResultList();
+        String nextCursor = null;
+        if (cursorMode && rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Object[] lastRow = rows.get(rows.size() - 1);
+            int lastId = ((Number) lastRow[0]).intValue();
+            // 位图索引按 match_date 解析出的比赛日排序（不依赖 match_day 回填），游标的排序键也取索引里的值
+            Object lastDate = hit != null && sortByDate ? hit.dayOf(lastId)
+                    : (useMatchDay ? lastRow[7] : lastRow[1]);
+            nextCursor = new MatchSearchCursor(cursorSort, dir,
+                    lastDate == null ? null : String.valueOf(lastDate),
+                    lastId).encode();
+        }
 
         // 预加载队伍映射，避免 N+1
         Set<Integer> teamIds = new HashSet<>();
@@ -122,14 +170,16 @@ public class MatchService {
             if (t1 != null) teamIds.add(t1);
             if (t2 != null) teamIds.add(t2);
         }
-        Map<Integer, Team> teamMap = new HashMap<>();
-        if (!teamIds.isEmpty()) {
-            for (Team t : teamRepository.findAllById(teamIds)) {
-                teamMap.put(t.getId(), t);
-            }
+        Map<Integer, Team> teamMap = referenceEntityCache.teams(teamIds);
+
+        // 整页一次 GROUP BY 统计对局数，避免逐行 countByMatchId
+        Set<Integer> matchIds = new HashSet<>();
+        for (Object[] r : rows) {
+            if (r[0] != null) matchIds.add(((Number) r[0]).intValue());
         }
+        Map<Integer, Long> gamesCountMap = countGamesByMatchIds(matchIds);
 
-        List<Map<String, Object>> items = new ArrayList<>();
+        List<MatchBrief> items = new ArrayList<>(rows.size());
         for (Object[] r : rows) {
             Integer matchId = r[0] == null ? null : ((Number) r[0]).intValue();
             String matchDate = r[1] == null ? null : String.valueOf(r[1]);
@@ -139,127 +189,221 @@ public class MatchService {
             Integer team2Id = r[5] == null ? null : ((Number) r[5]).intValue();
             Integer winnerId = r[6] == null ? null : ((Number) r[6]).intValue();
 
-            Map<String, Object> m = new HashMap<>();
-            m.put("matchId", matchId);
-            m.put("matchDate", matchDate);
-            m.put("tournamentName", tournamentName);
-            m.put("stage", stage);
-            m.put("winnerTeamId", winnerId);
-
-            m.put("team1", toTeamBrief(teamMap.get(team1Id), team1Id));
-            m.put("team2", toTeamBrief(teamMap.get(team2Id), team2Id));
-
-            long gamesCount = matchId == null ? 0 : gameRepository.countByMatchId(matchId);
-            m.put("gamesCount", gamesCount);
-
-            items.add(m);
+            long gamesCount = matchId == null ? 0 : gamesCountMap.getOrDefault(matchId, 0L);
+            items.add(new MatchBrief(matchId, matchDate, tournamentName, stage, winnerId,
+                    teamBrief(teamMap.get(team1Id), team1Id),
+                    teamBrief(teamMap.get(team2Id), team2Id),
+                    gamesCount));
         }
 
         Map<String, Object> out = new HashMap<>();
         out.put("items", items);
-        out.put("page", page);
         out.put("pageSize", pageSize);
-        out.put("total", total);
+        if (cursorMode) {
+            out.put("nextCursor", nextCursor);
+            out.put("hasMore", nextCursor != null);
+        } else {
+            out.put("page", page);
+        }
+        if (total != null) out.put("total", total);
+        if (req != null && Boolean.TRUE.equals(req.getWithFacets())) {
+            out.put("facets", matchFacetService.facets(f));
+        }
         return out;
     }
 
-    public Map<String, Object> detail(Integer matchId) {
+    /**
+     * 按 id 取搜索列表所需的列，并按 ids 的顺序返回（期间被删除的比赛直接略过）。
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> loadRowsByIds(int[] ids) {
+        if (ids.length == 0) return new ArrayList<>();
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) idList.add(id);
+        List<Object[]> found = em.createNativeQuery(
+                        "SELECT m.id, m.match_date, m.tournament_name, m.stage, m.team1_id, m.team2_id, m.winner_id, m.match_day " +
+                                "FROM Matches m WHERE m.id IN (:ids)")
+                .setParameter("ids", idList)
+                .getResultList();
+        Map<Integer, Object[]> byId = new HashMap<>(found.size() * 2);
+        for (Object[] r : found) byId.put(((Number) r[0]).intValue(), r);
+        List<Object[]> rows = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Object[] r = byId.get(id);
+            if (r != null) rows.add(r);
+        }
+        return rows;
+    }
+
+    /**
+     * keyset 条件：取排序键严格位于游标之后的行；dateCol 为 null 表示按 id 排序。
+     * MySQL 中 NULL 在 ASC 时排最前、DESC 时排最后，日期为空的行需要单独处理。
+     */
+    private static void appendKeysetCondition(StringBuilder where, Map<String, Object> params,
+                                              MatchSearchCursor cursor, String dateCol, boolean asc) {
+        params.put("cursorId", cursor.id());
+        String idCmp = asc ? ">" : "<";
+        if (dateCol == null) {
+            where.append(" AND m.id ").append(idCmp).append(" :cursorId ");
+            return;
+        }
+        if (cursor.matchDate() == null) {
+            if (asc) {
+                where.append(" AND ((").append(dateCol).append(" IS NULL AND m.id > :cursorId) OR ")
+                        .append(dateCol).append(" IS NOT NULL) ");
+            } else {
+                where.append(" AND (").append(dateCol).append(" IS NULL AND m.id < :cursorId) ");
+            }
+            return;
+        }
+        if (MatchSearchCursor.SORT_DAY.equals(cursor.sort())) {
+            LocalDate day = MatchDateUtil.parse(cursor.matchDate());
+            if (day == null) throw new BizException("INVALID_ARGUMENT", "cursor 无效");
+            params.put("cursorDate", day);
+        } else {
+            params.put("cursorDate", cursor.matchDate());
+        }
+        String dateCmp = asc ? ">" : "<";
+        where.append(" AND (").append(dateCol).append(" ").append(dateCmp).append(" :cursorDate")
+                .append(" OR (").append(dateCol).append(" = :cursorDate AND m.id ").append(idCmp).append(" :cursorId)")
+                .append(asc ? "" : " OR " + dateCol + " IS NULL")
+                .append(") ");
+    }
+
+    /**
+     * 比赛详情的 JSON 字节（即响应中 data 部分），优先读序列化结果缓存。
+     */
+    public byte[] detailJson(Integer matchId) {
+        if (matchId == null) throw new BizException("INVALID_ARGUMENT", "matchId 不能为空");
+        return matchDetailCache.get(matchId,
+                id -> MatchDetailJsonWriter.write(objectMapper.getFactory(), detail(id)));
+    }
+
+    public MatchDetail detail(Integer matchId) {
         if (matchId == null) throw new BizException("INVALID_ARGUMENT", "matchId 不能为空");
 
         Match match = matchRepository.findById(matchId)
                 .orElseThrow(() -> new BizException("NOT_FOUND", "比赛不存在"));
 
+        // 固定条数查询：比赛 -> 两支队伍 -> 全部对局 -> 全部对局的选手数据 -> 涉及的选手，与 BO 局数无关
+        Set<Integer> teamIds = new HashSet<>();
+        if (match.getTeam1Id() != null) teamIds.add(match.getTeam1Id());
+        if (match.getTeam2Id() != null) teamIds.add(match.getTeam2Id());
+        Map<Integer, Team> teamMap = referenceEntityCache.teams(teamIds);
+
         // teams
-        Map<String, Object> teams = new HashMap<>();
-        teams.put("team1", toTeamFull(teamRepository.findById(match.getTeam1Id()).orElse(null), match.getTeam1Id()));
-        teams.put("team2", toTeamFull(teamRepository.findById(match.getTeam2Id()).orElse(null), match.getTeam2Id()));
+        MatchDetail.Teams teams = new MatchDetail.Teams(
+                teamInfo(teamMap.get(match.getTeam1Id()), match.getTeam1Id()),
+                teamInfo(teamMap.get(match.getTeam2Id()), match.getTeam2Id()));
 
         // games
         List<Game> games = gameRepository.findByMatchIdOrderByGameNumberAsc(matchId);
-        List<Map<String, Object>> gameItems = new ArrayList<>();
 
-        for (Game g : games) {
-            List<PlayerGameStat> stats = playerGameStatRepository.findByGameId(g.getId());
-
-            // 批量加载 playerName
-            Set<Integer> playerIds = new HashSet<>();
-            for (PlayerGameStat s : stats) {
+        // 所有对局的 stats 一次 IN 查询，再按 gameId 分组
+        List<Integer> gameIds = new ArrayList<>();
+        for (Game g : games) gameIds.add(g.getId());
+        Map<Integer, List<PlayerGameStat>> statsByGame = new HashMap<>();
+        Set<Integer> playerIds = new HashSet<>();
+        if (!gameIds.isEmpty()) {
+            for (PlayerGameStat s : playerGameStatRepository.findByGameIdIn(gameIds)) {
+                statsByGame.computeIfAbsent(s.getGameId(), k -> new ArrayList<>()).add(s);
                 if (s.getPlayerId() != null) playerIds.add(s.getPlayerId());
             }
-            Map<Integer, String> playerNameMap = new HashMap<>();
-            if (!playerIds.isEmpty()) {
-                for (Player p : playerRepository.findAllById(playerIds)) {
-                    playerNameMap.put(p.getId(), p.getName());
-                }
-            }
+        }
+
+        // 批量加载 playerName
+        Map<Integer, String> playerNameMap = new HashMap<>();
+        for (Player p : referenceEntityCache.players(playerIds).values()) {
+            playerNameMap.put(p.getId(), p.getName());
+        }
 
-            List<Map<String, Object>> participants = new ArrayList<>();
+        List<MatchDetail.GameDetail> gameItems = new ArrayList<>(games.size());
+
+        for (Game g : games) {
+            List<PlayerGameStat> stats = statsByGame.getOrDefault(g.getId(), List.of());
+
+            List<MatchDetail.Participant> participants = new ArrayList<>(stats.size());
             for (PlayerGameStat s : stats) {
-                Map<String, Object> p = new HashMap<>();
-                p.put("playerId", s.getPlayerId());
-                p.put("playerName", playerNameMap.get(s.getPlayerId()));
-                p.put("teamId", s.getTeamId());
-                p.put("position", s.getPosition());
-                p.put("championName", s.getChampionName());
-                p.put("championNameEn", s.getChampionNameEn());
-
-                Map<String, Object> st = new HashMap<>();
-                st.put("kills", s.getKills());
-                st.put("deaths", s.getDeaths());
-                st.put("assists", s.getAssists());
-                st.put("kda", s.getKda());
-                st.put("killParticipation", s.getKillParticipation());
-                st.put("totalDamageDealt", s.getTotalDamageDealt());
-                st.put("damageDealtToChampions", s.getDamageDealtToChampions());
-                st.put("damageDealtPercentage", s.getDamageDealtPercentage());
-                st.put("totalDamageTaken", s.getTotalDamageTaken());
-                st.put("damageTakenPercentage", s.getDamageTakenPercentage());
-                st.put("goldEarned", s.getGoldEarned());
-                st.put("minionsKilled", s.getMinionsKilled());
-                st.put("isMvp", s.getIsMvp());
-                p.put("stats", st);
-
-                participants.add(p);
+                MatchDetail.StatLine st = new MatchDetail.StatLine(
+                        s.getKills(), s.getDeaths(), s.getAssists(),
+                        s.getKda(), s.getKillParticipation(),
+                        s.getTotalDamageDealt(), s.getDamageDealtToChampions(), s.getDamageDealtPercentage(),
+                        s.getTotalDamageTaken(), s.getDamageTakenPercentage(),
+                        s.getGoldEarned(), s.getMinionsKilled(), s.getIsMvp());
+                participants.add(new MatchDetail.Participant(
+                        s.getPlayerId(), playerNameMap.get(s.getPlayerId()), s.getTeamId(),
+                        s.getPosition(), s.getChampionName(), s.getChampionNameEn(), st));
             }
 
-            Map<String, Object> gg = new HashMap<>();
-            gg.put("gameId", g.getId());
-            gg.put("gameNumber", g.getGameNumber());
-            gg.put("duration", g.getDuration());
-            gg.put("blueTeamId", g.getBlueTeamId());
-            gg.put("redTeamId", g.getRedTeamId());
-            gg.put("winnerTeamId", g.getWinnerId());
-            gg.put("participants", participants);
-            gameItems.add(gg);
+            gameItems.add(new MatchDetail.GameDetail(g.getId(), g.getGameNumber(), g.getDuration(),
+                    g.getBlueTeamId(), g.getRedTeamId(), g.getWinnerId(), participants));
+        }
+
+        MatchDetail.MatchInfo matchInfo = new MatchDetail.MatchInfo(match.getId(), match.getMatchDate(),
+                match.getTournamentName(), match.getStage(), match.getTeam1Id(), match.getTeam2Id(), match.getWinnerId());
+        return new MatchDetail(matchInfo, teams, gameItems);
+    }
+
+    /**
+     * 两队交手记录：直接查内存索引，结果按请求中的 team1/team2 视角返回。
+     */
+    public Map<String, Object> headToHead(Integer team1Id, Integer team2Id) {
+        if (team1Id == null || team2Id == null) {
+            throw new BizException("INVALID_ARGUMENT", "team1Id/team2Id 不能为空");
         }
+        if (team1Id.equals(team2Id)) {
+            throw new BizException("INVALID_ARGUMENT", "team1Id 与 team2Id 不能相同");
+        }
+
+        Map<Integer, Team> teamMap = referenceEntityCache.teams(List.of(team1Id, team2Id));
 
-        Map<String, Object> matchObj = new HashMap<>();
-        matchObj.put("id", match.getId());
-        matchObj.put("matchDate", match.getMatchDate());
-        matchObj.put("tournamentName", match.getTournamentName());
-        matchObj.put("stage", match.getStage());
-        matchObj.put("team1Id", match.getTeam1Id());
-        matchObj.put("team2Id", match.getTeam2Id());
-        matchObj.put("winnerTeamId", match.getWinnerId());
+        HeadToHeadIndex.Record r = headToHeadIndex.get(team1Id, team2Id);
+
+        Map<String, Object> team1 = toTeamBrief(teamMap.get(team1Id), team1Id);
+        team1.put("seriesWins", r == null ? 0 : r.seriesWinsOf(team1Id));
+        team1.put("gameWins", r == null ? 0 : r.gameWinsOf(team1Id));
+        Map<String, Object> team2 = toTeamBrief(teamMap.get(team2Id), team2Id);
+        team2.put("seriesWins", r == null ? 0 : r.seriesWinsOf(team2Id));
+        team2.put("gameWins", r == null ? 0 : r.gameWinsOf(team2Id));
 
         Map<String, Object> out = new HashMap<>();
-        out.put("match", matchObj);
-        out.put("teams", teams);
-        out.put("games", gameItems);
+        out.put("team1", team1);
+        out.put("team2", team2);
+        out.put("series", r == null ? 0 : r.series());
+        out.put("games", r == null ? 0 : r.games());
+        Double avg = r == null ? null : r.avgDuration();
+        out.put("avgGameDuration", avg == null ? null : Math.round(avg * 10) / 10.0);
+        if (r != null && r.lastMatchId() > 0) {
+            Map<String, Object> last = new HashMap<>();
+            last.put("matchId", r.lastMatchId());
+            last.put("matchDate", r.lastMatchDate());
+            out.put("lastMeeting", last);
+        } else {
+            out.put("lastMeeting", null);
+        }
         return out;
     }
 
-    private static Map<String, Object> toTeamFull(Team t, Integer fallbackId) {
-        Map<String, Object> out = new HashMap<>();
-        out.put("id", t == null ? fallbackId : t.getId());
-        if (t != null) {
-            out.put("name", t.getName());
-            out.put("shortName", t.getShortName());
-            out.put("region", t.getRegion());
+    private Map<Integer, Long> countGamesByMatchIds(Set<Integer> matchIds) {
+        Map<Integer, Long> out = new HashMap<>();
+        if (matchIds.isEmpty()) return out;
+        for (Object[] r : gameRepository.countGroupByMatchIdIn(matchIds)) {
+            if (r[0] == null) continue;
+            out.put(((Number) r[0]).intValue(), r[1] == null ? 0L : ((Number) r[1]).longValue());
         }
         return out;
     }
 
+    private static MatchDetail.TeamInfo teamInfo(Team t, Integer fallbackId) {
+        if (t == null) return new MatchDetail.TeamInfo(fallbackId, null, null, null, false);
+        return new MatchDetail.TeamInfo(t.getId(), t.getName(), t.getShortName(), t.getRegion(), true);
+    }
+
+    private static TeamBrief teamBrief(Team t, Integer fallbackId) {
+        if (t == null) return new TeamBrief(fallbackId, null, null, false);
+        return new TeamBrief(t.getId(), t.getName(), t.getShortName(), true);
+    }
+
     private static Map<String, Object> toTeamBrief(Team t, Integer fallbackId) {
         Map<String, Object> out = new HashMap<>();
         out.put("id", t == null ? fallbackId : t.getId());
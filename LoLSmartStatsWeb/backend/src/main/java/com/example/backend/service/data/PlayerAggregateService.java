@@ -0,0 +1,345 @@
+package com.example.backend.service.data;
+
+import com.example.backend.entity.PlayerAggregate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 维护 player_aggregates：按 PlayerGameStats.id 水位增量累加 career / tournament / champion 三个维度。
+ * <p>
+ * 每批在一个事务里完成：锁水位行 -> 读水位之后的新行 -> ON DUPLICATE KEY 累加 -> 推进水位，
+ * 多实例同时跑也不会重复累加。导入覆盖删除已累加的行时，在同一事务里用 {@link #retractMatches} 先减掉；
+ * 已处理行的其它后续修改（例如补录胜者、修正击杀数）不会回溯，由 {@link #recompute} 按水位内的全部行重算收敛：
+ * 每隔 app.data.player-aggregates.full-rebuild-interval-ms 自动执行一次，也可通过导入接口手动触发。
+ */
+@Service
+public class PlayerAggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerAggregateService.class);
+
+    static final String WATERMARK_NAME = "player_aggregates";
+
+    private static final String SELECT_COLUMNS =
+            "SELECT s.id, s.player_id, s.team_id, s.champion_name, s.kills, s.deaths, s.assists, s.kda, " +
+                    "s.damage_dealt_percentage, s.gold_earned, s.minions_killed, s.is_mvp, g.winner_id, m.tournament_name " +
+                    "FROM PlayerGameStats s " +
+                    "LEFT JOIN Games g ON g.id = s.game_id " +
+                    "LEFT JOIN Matches m ON m.id = g.match_id ";
+
+    private static final String LOAD_SQL = SELECT_COLUMNS + "WHERE s.id > ? ORDER BY s.id LIMIT ?";
+
+    private static final String RECOMPUTE_SQL = SELECT_COLUMNS + "WHERE s.id > ? AND s.id <= ? ORDER BY s.id LIMIT ?";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO player_aggregates (player_id, scope_type, scope_key, games, wins, kills, deaths, assists, " +
+                    "kda_sum, kda_games, damage_share_sum, damage_share_games, gold_sum, cs_sum, mvp_count, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE games = games + VALUES(games), wins = wins + VALUES(wins), " +
+                    "kills = kills + VALUES(kills), deaths = deaths + VALUES(deaths), assists = assists + VALUES(assists), " +
+                    "kda_sum = kda_sum + VALUES(kda_sum), kda_games = kda_games + VALUES(kda_games), " +
+                    "damage_share_sum = damage_share_sum + VALUES(damage_share_sum), " +
+                    "damage_share_games = damage_share_games + VALUES(damage_share_games), " +
+                    "gold_sum = gold_sum + VALUES(gold_sum), cs_sum = cs_sum + VALUES(cs_sum), " +
+                    "mvp_count = mvp_count + VALUES(mvp_count), updated_at = VALUES(updated_at)";
+
+    private static final String SUBTRACT_SQL =
+            "UPDATE player_aggregates SET games = games - ?, wins = wins - ?, kills = kills - ?, deaths = deaths - ?, " +
+                    "assists = assists - ?, kda_sum = kda_sum - ?, kda_games = kda_games - ?, " +
+                    "damage_share_sum = damage_share_sum - ?, damage_share_games = damage_share_games - ?, " +
+                    "gold_sum = gold_sum - ?, cs_sum = cs_sum - ?, mvp_count = mvp_count - ?, updated_at = ? " +
+                    "WHERE player_id = ? AND scope_type = ? AND scope_key = ?";
+
+    /** IN 列表每段的最大元素数 */
+    private static final int IN_CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long fullRebuildIntervalMs;
+
+    /** 上次重算完成的时刻；启动时不重算，从启动时刻起计时 */
+    private volatile long lastRecomputeAt = System.currentTimeMillis();
+
+    public PlayerAggregateService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.data.player-aggregates.enabled:true}") boolean enabled,
+                                  @Value("${app.data.player-aggregates.batch-size:20000}") int batchSize,
+                                  @Value("${app.data.player-aggregates.full-rebuild-interval-ms:86400000}") long fullRebuildIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.fullRebuildIntervalMs = fullRebuildIntervalMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(initialDelayString = "${app.data.player-aggregates.initial-delay-ms:0}",
+            fixedDelayString = "${app.data.player-aggregates.interval-ms:60000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            if (fullRebuildIntervalMs > 0 && System.currentTimeMillis() - lastRecomputeAt >= fullRebuildIntervalMs) {
+                recompute();
+            }
+            refresh();
+        } catch (Exception e) {
+            log.warn("[player-agg] refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 处理到当前最大 id 为止；返回本次处理的源行数。
+     */
+    public synchronized int refresh() {
+        int total = 0;
+        while (true) {
+            Integer n = transactionTemplate.execute(status -> processBatch());
+            int processed = n == null ? 0 : n;
+            total += processed;
+            if (processed < batchSize) break;
+        }
+        if (total > 0) log.info("[player-agg] processed rows={}", total);
+        return total;
+    }
+
+    /**
+     * 按水位内（id 不超过当前水位）的全部源行重算聚合并整体替换，水位不变；返回重算的源行数。
+     * <p>
+     * 在一个事务里完成：锁水位行 -> 分批读全部行在内存里累加 -> 清空表 -> 批量写入。
+     * 持锁期间增量累加与导入覆盖的扣减都在等待，读侧在提交前仍看到旧数据，不会出现空表。
+     */
+    public synchronized int recompute() {
+        long startedAt = System.currentTimeMillis();
+        Integer n = transactionTemplate.execute(status -> {
+            long upTo = lockWatermark();
+            Map<String, Acc> all = new LinkedHashMap<>();
+            long after = 0;
+            int total = 0;
+            while (true) {
+                long[] maxId = {after};
+                int[] rows = {0};
+                jdbcTemplate.query(RECOMPUTE_SQL, rs -> {
+                    rows[0]++;
+                    maxId[0] = rs.getLong(1);
+                    accumulate(rs, all);
+                }, after, upTo, batchSize);
+                total += rows[0];
+                after = maxId[0];
+                if (rows[0] < batchSize) break;
+            }
+
+            jdbcTemplate.update("DELETE FROM player_aggregates");
+            Timestamp now = Timestamp.from(Instant.now());
+            List<Object[]> args = new ArrayList<>(Math.min(all.size(), batchSize));
+            for (Acc a : all.values()) {
+                args.add(upsertArgs(a, now));
+                if (args.size() >= batchSize) {
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+                    args.clear();
+                }
+            }
+            if (!args.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+            return total;
+        });
+        lastRecomputeAt = System.currentTimeMillis();
+        int total = n == null ? 0 : n;
+        log.info("[player-agg] recomputed rows={}, costMs={}", total, lastRecomputeAt - startedAt);
+        return total;
+    }
+
+    private int processBatch() {
+        long after = lockWatermark();
+
+        Map<String, Acc> deltas = new LinkedHashMap<>();
+        long[] maxId = {after};
+        int[] rows = {0};
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            rows[0]++;
+            maxId[0] = Math.max(maxId[0], rs.getLong(1));
+            accumulate(rs, deltas);
+        }, after, batchSize);
+
+        if (rows[0] == 0) return 0;
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Acc a : deltas.values()) args.add(upsertArgs(a, now));
+        if (!args.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        jdbcTemplate.update("UPDATE aggregate_watermarks SET last_id = ?, updated_at = ? WHERE name = ?",
+                maxId[0], now, WATERMARK_NAME);
+        return rows[0];
+    }
+
+    /**
+     * 从聚合中减掉这些比赛已累加过（id 不超过水位）的选手数据行。必须在调用方的事务里、删除这些行之前调用：
+     * 锁住水位行直到事务结束，期间增量累加不会处理这些行，提交后它们已被删除。
+     *
+     * @return 减掉的源行数
+     */
+    public int retractMatches(Collection<Integer> matchIds) {
+        if (matchIds == null || matchIds.isEmpty()) return 0;
+        long upTo = lockWatermark();
+        if (upTo == 0) return 0;
+
+        Map<String, Acc> deltas = new LinkedHashMap<>();
+        int[] rows = {0};
+        List<Integer> all = new ArrayList<>(matchIds);
+        for (int from = 0; from < all.size(); from += IN_CHUNK) {
+            List<Integer> chunk = all.subList(from, Math.min(all.size(), from + IN_CHUNK));
+            Object[] args = new Object[chunk.size() + 1];
+            for (int i = 0; i < chunk.size(); i++) args[i] = chunk.get(i);
+            args[chunk.size()] = upTo;
+            jdbcTemplate.query(SELECT_COLUMNS + "WHERE g.match_id IN (" + placeholders(chunk.size()) + ") AND s.id <= ?",
+                    rs -> {
+                        rows[0]++;
+                        accumulate(rs, deltas);
+                    }, args);
+        }
+        if (deltas.isEmpty()) return rows[0];
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        Set<Integer> players = new HashSet<>();
+        for (Acc a : deltas.values()) {
+            args.add(new Object[]{a.games, a.wins, a.kills, a.deaths, a.assists, a.kdaSum, a.kdaGames,
+                    a.damageShareSum, a.damageShareGames, a.goldSum, a.csSum, a.mvpCount, now,
+                    a.playerId, a.scopeType, a.scopeKey});
+            players.add(a.playerId);
+        }
+        jdbcTemplate.batchUpdate(SUBTRACT_SQL, args);
+        // 减到 0 局的维度（例如只在被替换的比赛里用过的英雄）直接删除
+        List<Integer> playerList = new ArrayList<>(players);
+        for (int from = 0; from < playerList.size(); from += IN_CHUNK) {
+            List<Integer> chunk = playerList.subList(from, Math.min(playerList.size(), from + IN_CHUNK));
+            jdbcTemplate.update("DELETE FROM player_aggregates WHERE games <= 0 AND player_id IN (" + placeholders(chunk.size()) + ")",
+                    chunk.toArray());
+        }
+        log.info("[player-agg] retracted rows={}, matches={}", rows[0], matchIds.size());
+        return rows[0];
+    }
+
+    /**
+     * 确保水位行存在并加行锁（持有到当前事务结束），返回当前水位。
+     */
+    private long lockWatermark() {
+        jdbcTemplate.update("INSERT IGNORE INTO aggregate_watermarks (name, last_id) VALUES (?, 0)", WATERMARK_NAME);
+        Long lastId = jdbcTemplate.queryForObject(
+                "SELECT last_id FROM aggregate_watermarks WHERE name = ? FOR UPDATE", Long.class, WATERMARK_NAME);
+        return lastId == null ? 0 : lastId;
+    }
+
+    /**
+     * 把一行（列顺序见 SELECT_COLUMNS）累加到 career / tournament / champion 三个维度。
+     */
+    private static void accumulate(ResultSet rs, Map<String, Acc> deltas) throws SQLException {
+        int playerId = rs.getInt(2);
+        if (rs.wasNull()) return;
+
+        int teamId = rs.getInt(3);
+        boolean teamNull = rs.wasNull();
+        String champion = rs.getString(4);
+        int kills = rs.getInt(5);
+        int deaths = rs.getInt(6);
+        int assists = rs.getInt(7);
+        double kda = rs.getDouble(8);
+        boolean kdaNull = rs.wasNull();
+        double damageShare = rs.getDouble(9);
+        boolean damageShareNull = rs.wasNull();
+        long gold = rs.getLong(10);
+        long cs = rs.getLong(11);
+        boolean mvp = PlayerStatSnapshot.isMvpFlag(rs.getString(12));
+        int winnerId = rs.getInt(13);
+        boolean win = !rs.wasNull() && !teamNull && winnerId == teamId;
+        String tournament = rs.getString(14);
+
+        List<Acc> targets = new ArrayList<>(3);
+        targets.add(deltas.computeIfAbsent(key(playerId, PlayerAggregate.SCOPE_CAREER, ""),
+                k -> new Acc(playerId, PlayerAggregate.SCOPE_CAREER, "")));
+        if (tournament != null && !tournament.isBlank()) {
+            targets.add(deltas.computeIfAbsent(key(playerId, PlayerAggregate.SCOPE_TOURNAMENT, tournament),
+                    k -> new Acc(playerId, PlayerAggregate.SCOPE_TOURNAMENT, tournament)));
+        }
+        if (champion != null && !champion.isBlank()) {
+            targets.add(deltas.computeIfAbsent(key(playerId, PlayerAggregate.SCOPE_CHAMPION, champion),
+                    k -> new Acc(playerId, PlayerAggregate.SCOPE_CHAMPION, champion)));
+        }
+        for (Acc a : targets) {
+            a.games++;
+            if (win) a.wins++;
+            a.kills += kills;
+            a.deaths += deaths;
+            a.assists += assists;
+            if (!kdaNull) {
+                a.kdaSum += kda;
+                a.kdaGames++;
+            }
+            if (!damageShareNull) {
+                a.damageShareSum += damageShare;
+                a.damageShareGames++;
+            }
+            a.goldSum += gold;
+            a.csSum += cs;
+            if (mvp) a.mvpCount++;
+        }
+    }
+
+    private static Object[] upsertArgs(Acc a, Timestamp now) {
+        return new Object[]{a.playerId, a.scopeType, a.scopeKey, a.games, a.wins, a.kills, a.deaths, a.assists,
+                a.kdaSum, a.kdaGames, a.damageShareSum, a.damageShareGames, a.goldSum, a.csSum, a.mvpCount, now};
+    }
+
+    private static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+
+    private static String key(int playerId, String scopeType, String scopeKey) {
+        return playerId + "\u0001" + scopeType + "\u0001" + scopeKey;
+    }
+
+    private static final class Acc {
+        final int playerId;
+        final String scopeType;
+        final String scopeKey;
+        int games;
+        int wins;
+        long kills;
+        long deaths;
+        long assists;
+        double kdaSum;
+        int kdaGames;
+        double damageShareSum;
+        int damageShareGames;
+        long goldSum;
+        long csSum;
+        int mvpCount;
+
+        Acc(int playerId, String scopeType, String scopeKey) {
+            this.playerId = playerId;
+            this.scopeType = scopeType;
+            this.scopeKey = scopeKey;
+        }
+    }
+}
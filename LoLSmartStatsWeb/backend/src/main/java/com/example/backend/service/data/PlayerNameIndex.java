@@ -0,0 +1,232 @@
+package com.example.backend.service.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 选手名的内存 trigram 索引，替代 LIKE '%q%' 全表扫描。
+ * <p>
+ * 名字先做 NFKC 规范化 + 小写折叠；长度 >= 3 的查询取各 trigram 倒排表求交再校验子串，
+ * 更短的查询直接线性扫描（选手表规模下仍是亚毫秒级）。
+ * Players 的版本（{@link DataVersionService}）变化时整体重建，读者无锁读取 volatile 引用。
+ */
+@Component
+public class PlayerNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerNameIndex.class);
+
+    /** 匹配等级：越小越靠前 */
+    static final int RANK_EXACT = 0;
+    static final int RANK_PREFIX = 1;
+    static final int RANK_SUBSTRING = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersionService dataVersionService;
+    private final boolean enabled;
+
+    private volatile Index index;
+
+    public PlayerNameIndex(JdbcTemplate jdbcTemplate,
+                           DataVersionService dataVersionService,
+                           @Value("${app.data.player-name-index.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataVersionService = dataVersionService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 搜索并分页，结果按 完全匹配 > 前缀 > 子串 排序，同级按名字长度、id。
+     */
+    public Result search(String q, int offset, int limit) {
+        Index idx = index;
+        if (idx == null) {
+            refresh();
+            idx = index;
+        }
+
+        String nq = normalize(q);
+        int[] hits = nq.length() < 3 ? idx.scan(nq) : idx.lookup(nq);
+
+        // 排序键：rank(2bit) | 名字长度 | 原始位置（位置本身按 id 升序）
+        long[] keys = new long[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            int pos = hits[i];
+            String name = idx.normNames[pos];
+            int rank = name.equals(nq) ? RANK_EXACT : (name.startsWith(nq) ? RANK_PREFIX : RANK_SUBSTRING);
+            keys[i] = ((long) rank << 56) | ((long) Math.min(name.length(), 0xffff) << 32) | pos;
+        }
+        Arrays.sort(keys);
+
+        int from = Math.min(Math.max(0, offset), keys.length);
+        int to = Math.min(keys.length, from + Math.max(0, limit));
+        List<Hit> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int pos = (int) keys[i];
+            items.add(new Hit(idx.ids[pos], idx.names[pos]));
+        }
+        return new Result(items, keys.length);
+    }
+
+    @Scheduled(initialDelayString = "${app.data.player-name-index.initial-delay-ms:0}",
+            fixedDelayString = "${app.data.player-name-index.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("[player-index] refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Players 版本有变化才重建。
+     */
+    public synchronized void refresh() {
+        String version = dataVersionService.current().players();
+        Index cur = index;
+        if (cur != null && cur.version.equals(version)) return;
+
+        long start = System.currentTimeMillis();
+        List<Integer> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, name FROM Players ORDER BY id", rs -> {
+            ids.add(rs.getInt(1));
+            names.add(rs.getString(2));
+        });
+        Index built = Index.build(ids, names, version);
+        index = built;
+        log.info("[player-index] built players={}, trigrams={}, costMs={}",
+                built.ids.length, built.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    static String normalize(String s) {
+        if (s == null) return "";
+        return Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static final class Index {
+        final int[] ids;
+        final String[] names;
+        final String[] normNames;
+        /** trigram -> 升序的位置列表 */
+        final Map<Long, int[]> postings;
+        /** 构建时 Players 的数据版本 */
+        final String version;
+
+        private Index(int[] ids, String[] names, String[] normNames, Map<Long, int[]> postings, String version) {
+            this.ids = ids;
+            this.names = names;
+            this.normNames = normNames;
+            this.postings = postings;
+            this.version = version;
+        }
+
+        static Index build(List<Integer> idList, List<String> nameList, String version) {
+            int n = idList.size();
+            int[] ids = new int[n];
+            String[] names = new String[n];
+            String[] normNames = new String[n];
+            Map<Long, IntList> lists = new HashMap<>();
+            for (int pos = 0; pos < n; pos++) {
+                ids[pos] = idList.get(pos);
+                names[pos] = nameList.get(pos);
+                String nn = normalize(names[pos]);
+                normNames[pos] = nn;
+                for (int i = 0; i + 3 <= nn.length(); i++) {
+                    IntList l = lists.computeIfAbsent(trigram(nn, i), k -> new IntList());
+                    // 同一个名字里重复出现的 trigram 只记一次（位置递增，比较末尾即可）
+                    if (l.size == 0 || l.data[l.size - 1] != pos) l.add(pos);
+                }
+            }
+            Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+            for (Map.Entry<Long, IntList> e : lists.entrySet()) {
+                postings.put(e.getKey(), e.getValue().toArray());
+            }
+            return new Index(ids, names, normNames, postings, version);
+        }
+
+        int[] scan(String nq) {
+            IntList out = new IntList();
+            for (int pos = 0; pos < normNames.length; pos++) {
+                if (normNames[pos].contains(nq)) out.add(pos);
+            }
+            return out.toArray();
+        }
+
+        int[] lookup(String nq) {
+            // 从最短的倒排表开始求交，最后逐个校验子串（trigram 全命中不代表连续出现）
+            int grams = nq.length() - 2;
+            int[][] lists = new int[grams][];
+            for (int i = 0; i < grams; i++) {
+                int[] l = postings.get(trigram(nq, i));
+                if (l == null) return new int[0];
+                lists[i] = l;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+            int[] cur = lists[0];
+            for (int i = 1; i < lists.length && cur.length > 0; i++) {
+                cur = intersect(cur, lists[i]);
+            }
+            IntList out = new IntList();
+            for (int pos : cur) {
+                if (normNames[pos].contains(nq)) out.add(pos);
+            }
+            return out.toArray();
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            IntList out = new IntList();
+            int i = 0, j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) i++;
+                else if (a[i] > b[j]) j++;
+                else {
+                    out.add(a[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return out.toArray();
+        }
+    }
+
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    public record Hit(int id, String name) {
+    }
+
+    public record Result(List<Hit> items, long total) {
+    }
+}
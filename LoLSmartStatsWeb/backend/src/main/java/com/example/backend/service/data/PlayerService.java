@@ -1,42 +1,130 @@
 package com.example.backend.service.data;
 
 import com.example.backend.entity.Player;
+import com.example.backend.entity.PlayerAggregate;
+import com.example.backend.exception.BizException;
+import com.example.backend.repository.PlayerAggregateRepository;
 import com.example.backend.repository.PlayerRepository;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@Transactional(readOnly = true)
 public class PlayerService {
 
     private final PlayerRepository playerRepository;
+    private final PlayerAggregateRepository playerAggregateRepository;
+    private final PlayerNameIndex playerNameIndex;
 
-    public PlayerService(PlayerRepository playerRepository) {
+    public PlayerService(PlayerRepository playerRepository,
+                         PlayerAggregateRepository playerAggregateRepository,
+                         PlayerNameIndex playerNameIndex) {
         this.playerRepository = playerRepository;
+        this.playerAggregateRepository = playerAggregateRepository;
+        this.playerNameIndex = playerNameIndex;
     }
 
     public Map<String, Object> search(String q, int page, int pageSize) {
         int p = Math.max(1, page);
         int ps = Math.max(1, pageSize);
-        var pageable = PageRequest.of(p - 1, ps);
 
-        var res = playerRepository.findByNameContainingIgnoreCase(q, pageable);
-        List<Map<String, Object>> items = res.getContent().stream().map(pl -> {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", pl.getId());
-            m.put("name", pl.getName());
-            return m;
-        }).toList();
+        List<Map<String, Object>> items = new ArrayList<>();
+        long total;
+        if (playerNameIndex.isEnabled()) {
+            // 走内存 trigram 索引：完全匹配 > 前缀 > 子串
+            PlayerNameIndex.Result res = playerNameIndex.search(q, (p - 1) * ps, ps);
+            for (PlayerNameIndex.Hit h : res.items()) {
+                items.add(toPlayerBrief(h.id(), h.name()));
+            }
+            total = res.total();
+        } else {
+            var res = playerRepository.findByNameContainingIgnoreCase(q, PageRequest.of(p - 1, ps));
+            for (Player pl : res.getContent()) {
+                items.add(toPlayerBrief(pl.getId(), pl.getName()));
+            }
+            total = res.getTotalElements();
+        }
 
         Map<String, Object> out = new HashMap<>();
         out.put("items", items);
         out.put("page", p);
         out.put("pageSize", ps);
-        out.put("total", res.getTotalElements());
+        out.put("total", total);
         return out;
     }
-}
 
+    /**
+     * 选手生涯数据：直接读物化的 player_aggregates（按 player_id 取），不做现场聚合。
+     */
+    public Map<String, Object> stats(Integer playerId) {
+        if (playerId == null) throw new BizException("INVALID_ARGUMENT", "playerId 不能为空");
+        Player player = playerRepository.findById(playerId)
+                .orElseThrow(() -> new BizException("NOT_FOUND", "选手不存在"));
+
+        Map<String, Object> career = null;
+        List<Map<String, Object>> byTournament = new ArrayList<>();
+        List<Map<String, Object>> byChampion = new ArrayList<>();
+        for (PlayerAggregate a : playerAggregateRepository.findByPlayerId(playerId)) {
+            if (PlayerAggregate.SCOPE_CAREER.equals(a.getScopeType())) {
+                career = toStatLine(a);
+            } else if (PlayerAggregate.SCOPE_TOURNAMENT.equals(a.getScopeType())) {
+                Map<String, Object> m = toStatLine(a);
+                m.put("tournamentName", a.getScopeKey());
+                byTournament.add(m);
+            } else if (PlayerAggregate.SCOPE_CHAMPION.equals(a.getScopeType())) {
+                Map<String, Object> m = toStatLine(a);
+                m.put("championName", a.getScopeKey());
+                byChampion.add(m);
+            }
+        }
+        Comparator<Map<String, Object>> byGamesDesc = Comparator.comparing(m -> -((Number) m.get("games")).intValue());
+        byTournament.sort(byGamesDesc);
+        byChampion.sort(byGamesDesc);
+
+        Map<String, Object> playerObj = new HashMap<>();
+        playerObj.put("id", player.getId());
+        playerObj.put("name", player.getName());
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("player", playerObj);
+        out.put("career", career == null ? toStatLine(new PlayerAggregate()) : career);
+        out.put("byTournament", byTournament);
+        out.put("byChampion", byChampion);
+        return out;
+    }
+
+    private static Map<String, Object> toPlayerBrief(Integer id, String name) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id", id);
+        m.put("name", name);
+        return m;
+    }
+
+    private static Map<String, Object> toStatLine(PlayerAggregate a) {
+        int games = a.getGames();
+        Map<String, Object> m = new HashMap<>();
+        m.put("games", games);
+        m.put("wins", a.getWins());
+        m.put("winRate", games == 0 ? null : round4((double) a.getWins() / games));
+        m.put("kills", a.getKills());
+        m.put("deaths", a.getDeaths());
+        m.put("assists", a.getAssists());
+        m.put("avgKda", a.getKdaGames() == 0 ? null : round4(a.getKdaSum() / a.getKdaGames()));
+        m.put("avgDamageShare", a.getDamageShareGames() == 0 ? null : round4(a.getDamageShareSum() / a.getDamageShareGames()));
+        m.put("avgGold", games == 0 ? null : round4((double) a.getGoldSum() / games));
+        m.put("avgCs", games == 0 ? null : round4((double) a.getCsSum() / games));
+        m.put("mvpCount", a.getMvpCount());
+        return m;
+    }
+
+    private static double round4(double v) {
+        return Math.round(v * 10000.0) / 10000.0;
+    }
+}
@@ -0,0 +1,569 @@
+package com.example.backend.service.data;
+
+import com.example.backend.util.MatchDateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PlayerGameStats 的内存列式快照，供统计类接口直接扫描，避免逐行查 MySQL。
+ * <p>
+ * - 每列一个原始类型数组（int[] kills、float[] kda ...），英雄/位置/赛事/阶段做字典编码；
+ * - 已关联 Games（胜负、matchId）和 Matches（赛事、阶段、日期），扫描时无需再 join；日期直接由 match_date
+ *   经 {@link MatchDateUtil} 解析，不依赖 match_day 回填进度；
+ * - 启动后全量构建，之后按 PlayerGameStats.id 水位增量追加新行（新 game_id 的数据都是新行）；
+ * - Games / Matches 的已有行被修改（updated_at 晚于上次加载时的最大值）时，按 id 重写已加载行的胜负、赛事、阶段、日期；
+ *   改动行数超过 batch-size 或导入覆盖删除旧行时立即全量重建。
+ * <p>
+ * 并发：单写多读。写线程只在数组尾部追加或扩容出新数组，重写已加载行前先复制被改的列（已发布的数组不再修改），
+ * 读线程拿到的 {@link Snapshot} 只读 [0, size)，通过 volatile 发布保证可见性，读路径无锁。
+ */
+@Component
+public class PlayerStatSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerStatSnapshot.class);
+
+    /** 日期为空时 day 列的取值 */
+    static final int NO_DAY = Integer.MIN_VALUE;
+    /** win 列：胜 / 负 / 对局没有胜者信息 */
+    static final byte WIN = 1;
+    static final byte LOSS = 0;
+    static final byte WIN_UNKNOWN = -1;
+
+    private static final String LOAD_SQL =
+            "SELECT s.id, s.game_id, g.match_id, s.player_id, s.team_id, s.position, s.champion_name, s.champion_name_en, " +
+                    "s.kills, s.deaths, s.assists, s.kda, s.kill_participation, s.damage_dealt_to_champions, " +
+                    "s.damage_dealt_percentage, s.gold_earned, s.minions_killed, s.is_mvp, " +
+                    "g.winner_id, m.tournament_name, m.stage, m.match_date " +
+                    "FROM PlayerGameStats s " +
+                    "LEFT JOIN Games g ON g.id = s.game_id " +
+                    "LEFT JOIN Matches m ON m.id = g.match_id " +
+                    "WHERE s.id > ? ORDER BY s.id LIMIT ?";
+
+    /** 已加载行中随 Games / Matches 变化的列 */
+    private static final String RESYNC_COLUMNS =
+            "SELECT s.id, s.team_id, g.match_id, g.winner_id, m.tournament_name, m.stage, m.match_date ";
+
+    private static final String RESYNC_GAMES_SQL = RESYNC_COLUMNS +
+            "FROM Games g " +
+            "JOIN PlayerGameStats s ON s.game_id = g.id " +
+            "LEFT JOIN Matches m ON m.id = g.match_id " +
+            "WHERE g.updated_at > ? AND s.id <= ? LIMIT ?";
+
+    private static final String RESYNC_MATCHES_SQL = RESYNC_COLUMNS +
+            "FROM Matches m " +
+            "JOIN Games g ON g.match_id = m.id " +
+            "JOIN PlayerGameStats s ON s.game_id = g.id " +
+            "WHERE m.updated_at > ? AND s.id <= ? LIMIT ?";
+
+    private static final String MARKERS_SQL =
+            "SELECT (SELECT MAX(updated_at) FROM Games), (SELECT MAX(updated_at) FROM Matches)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long fullRebuildIntervalMs;
+
+    /** 仅在 synchronized 方法内访问 */
+    private Builder builder;
+    private long lastFullBuildAt;
+    private boolean rebuildRequested;
+
+    private volatile Snapshot current = Snapshot.EMPTY;
+
+    public PlayerStatSnapshot(JdbcTemplate jdbcTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${app.data.snapshot.enabled:true}") boolean enabled,
+                              @Value("${app.data.snapshot.batch-size:50000}") int batchSize,
+                              @Value("${app.data.snapshot.full-rebuild-interval-ms:21600000}") long fullRebuildIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.fullRebuildIntervalMs = fullRebuildIntervalMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 当前快照（可能尚未加载，见 {@link Snapshot#isLoaded()}）。
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * 返回已加载的快照；首次调用时若定时任务还没跑完，则同步构建一次。
+     * 快照未启用时不会有定时刷新，调用方应先检查 {@link #isEnabled()} 并走 SQL。
+     *
+     * @throws IllegalStateException 快照未启用
+     */
+    public Snapshot require() {
+        if (!enabled) {
+            throw new IllegalStateException("player stat snapshot is disabled (app.data.snapshot.enabled=false)");
+        }
+        Snapshot s = current;
+        if (s.isLoaded()) return s;
+        refresh();
+        return current;
+    }
+
+    @Scheduled(initialDelayString = "${app.data.snapshot.initial-delay-ms:0}",
+            fixedDelayString = "${app.data.snapshot.refresh-interval-ms:30000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("[snapshot] refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 导入覆盖删除了已加载的行：增量追加无法回退，立即全量重建。
+     */
+    @EventListener
+    public void onMatchDataChanged(MatchDataChangedEvent event) {
+        if (!enabled || !event.rowsRemoved()) return;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("[snapshot] rebuild after change failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 已加载过时立即全量重建；尚未加载则什么都不做（首次刷新本来就是全量）。
+     */
+    public synchronized void rebuild() {
+        if (builder == null) return;
+        rebuildRequested = true;
+        refresh();
+    }
+
+    /**
+     * 重写被修改过的已加载行并增量追加水位之后的新行；首次调用、要求重建、改动过多或到达全量重建间隔时整体重建。
+     */
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        boolean full = builder == null || rebuildRequested
+                || (fullRebuildIntervalMs > 0 && now - lastFullBuildAt >= fullRebuildIntervalMs);
+        // 先取标记再读数据：两者之间的修改下次还会被读到。用严格大于，一次导入写下的同一时间戳的大批行不会每轮都重读；
+        // 与标记同一毫秒、取标记之后才写入的修改会漏掉，由定时全量重建兜底
+        long[] markers = jdbcTemplate.queryForObject(MARKERS_SQL,
+                (rs, i) -> new long[]{millis(rs.getTimestamp(1)), millis(rs.getTimestamp(2))});
+
+        Set<Integer> resynced = new HashSet<>();
+        if (!full && !resync(builder, resynced)) {
+            log.info("[snapshot] too many changed rows, rebuilding");
+            full = true;
+        }
+        Builder b = full ? new Builder() : builder;
+
+        int before = b.size;
+        while (true) {
+            int start = b.size;
+            jdbcTemplate.query(LOAD_SQL, rs -> { b.append(rs); }, b.maxStatId, batchSize);
+            if (b.size - start < batchSize) break;
+        }
+        b.gamesUpdatedAt = markers[0];
+        b.matchesUpdatedAt = markers[1];
+
+        if (full) {
+            builder = b;
+            lastFullBuildAt = now;
+            rebuildRequested = false;
+            current = b.publish(current.version + 1);
+            log.info("[snapshot] full build rows={}, champions={}, positions={}, approxBytes={}, costMs={}",
+                    b.size, b.champions.size(), b.positions.size(), b.approxBytes(), System.currentTimeMillis() - now);
+        } else if (b.size > before || b.dictChanged || b.detached) {
+            current = b.publish(current.version + 1);
+            log.debug("[snapshot] appended rows={}, resynced matches={}, total={}", b.size - before, resynced.size(), b.size);
+            if (b.size > before || !resynced.isEmpty()) {
+                // 新追加或被重写的选手数据所属比赛：通知按比赛缓存的内容失效
+                Set<Integer> matchIds = new HashSet<>(resynced);
+                for (int i = before; i < b.size; i++) matchIds.add(b.matchId[i]);
+                eventPublisher.publishEvent(new MatchDataChangedEvent(matchIds));
+            }
+        }
+    }
+
+    /**
+     * 读出上次标记之后被修改过的 Games / Matches 关联的已加载行，逐行按新值重写（值没变的行跳过）。
+     * 实际改动的行所属比赛放进 changedMatchIds；关联行数超过 batch-size 时不做任何修改并返回 false。
+     */
+    private boolean resync(Builder b, Set<Integer> changedMatchIds) {
+        if (b.size == 0) return true;
+        List<Resync> rows = new ArrayList<>();
+        int limit = batchSize + 1;
+        jdbcTemplate.query(RESYNC_GAMES_SQL, rs -> { rows.add(Resync.of(rs)); },
+                new Timestamp(b.gamesUpdatedAt), b.maxStatId, limit);
+        if (rows.size() > batchSize) return false;
+        jdbcTemplate.query(RESYNC_MATCHES_SQL, rs -> { rows.add(Resync.of(rs)); },
+                new Timestamp(b.matchesUpdatedAt), b.maxStatId, limit);
+        if (rows.size() > batchSize) return false;
+
+        for (Resync r : rows) {
+            // 行按 id 顺序追加，statId 在 [0, size) 内有序
+            int i = Arrays.binarySearch(b.statId, 0, b.size, r.statId());
+            if (i < 0) continue;
+            if (b.rewrite(i, r)) {
+                changedMatchIds.add(b.matchId[i]);
+            }
+        }
+        return true;
+    }
+
+    private static long millis(Timestamp ts) {
+        return ts == null ? 0 : ts.getTime();
+    }
+
+    private static int dayOf(String matchDate) {
+        LocalDate d = MatchDateUtil.parse(matchDate);
+        return d == null ? NO_DAY : (int) d.toEpochDay();
+    }
+
+    /**
+     * 一行已加载数据在 Games / Matches 上的最新取值。
+     */
+    private record Resync(int statId, Integer teamId, int matchId, Integer winnerId,
+                          String tournament, String stage, int day) {
+
+        static Resync of(ResultSet rs) throws SQLException {
+            int statId = rs.getInt(1);
+            int team = rs.getInt(2);
+            Integer teamId = rs.wasNull() ? null : team;
+            int matchId = rs.getInt(3);
+            int winner = rs.getInt(4);
+            Integer winnerId = rs.wasNull() ? null : winner;
+            return new Resync(statId, teamId, matchId, winnerId, rs.getString(5), rs.getString(6), dayOf(rs.getString(7)));
+        }
+    }
+
+    static boolean isMvpFlag(String v) {
+        if (v == null) return false;
+        String s = v.trim();
+        return "1".equals(s) || "true".equalsIgnoreCase(s) || "yes".equalsIgnoreCase(s)
+                || "y".equalsIgnoreCase(s) || "mvp".equalsIgnoreCase(s) || "是".equals(s);
+    }
+
+    /**
+     * 不可变视图：只读 [0, size)。字段包内可见，统计引擎直接按列扫描。
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(0, 0, new Builder(), false);
+
+        /** 进程内递增的发布序号，只用于本进程的缓存失效 */
+        final long version;
+        final int size;
+        final boolean loaded;
+        /** 加载到的数据在库里的位置：最大 statId 与 Games / Matches 的 updated_at 标记 */
+        final int maxStatId;
+        final long gamesUpdatedAt;
+        final long matchesUpdatedAt;
+
+        final int[] statId;
+        final int[] gameId;
+        final int[] matchId;
+        final int[] playerId;
+        final int[] teamId;
+        final int[] kills;
+        final int[] deaths;
+        final int[] assists;
+        final int[] damageToChampions;
+        final int[] gold;
+        final int[] minionsKilled;
+        /** 为空时为 NaN */
+        final float[] kda;
+        final float[] killParticipation;
+        final float[] damagePercentage;
+        /** 字典编码，-1 表示空 */
+        final int[] champion;
+        final int[] position;
+        final int[] tournament;
+        final int[] stage;
+        /** epochDay，空为 NO_DAY */
+        final int[] day;
+        final byte[] win;
+        final boolean[] mvp;
+
+        /** 字典：code -> 值 */
+        final String[] championNames;
+        final String[] championNamesEn;
+        final String[] positionNames;
+        final String[] tournamentNames;
+        final String[] stageNames;
+
+        private Snapshot(long version, int size, Builder b, boolean loaded) {
+            this.version = version;
+            this.size = size;
+            this.loaded = loaded;
+            this.maxStatId = b.maxStatId;
+            this.gamesUpdatedAt = b.gamesUpdatedAt;
+            this.matchesUpdatedAt = b.matchesUpdatedAt;
+            this.statId = b.statId;
+            this.gameId = b.gameId;
+            this.matchId = b.matchId;
+            this.playerId = b.playerId;
+            this.teamId = b.teamId;
+            this.kills = b.kills;
+            this.deaths = b.deaths;
+            this.assists = b.assists;
+            this.damageToChampions = b.damageToChampions;
+            this.gold = b.gold;
+            this.minionsKilled = b.minionsKilled;
+            this.kda = b.kda;
+            this.killParticipation = b.killParticipation;
+            this.damagePercentage = b.damagePercentage;
+            this.champion = b.champion;
+            this.position = b.position;
+            this.tournament = b.tournament;
+            this.stage = b.stage;
+            this.day = b.day;
+            this.win = b.win;
+            this.mvp = b.mvp;
+            this.championNames = b.champions.values();
+            this.championNamesEn = b.championNamesEn.toArray(new String[0]);
+            this.positionNames = b.positions.values();
+            this.tournamentNames = b.tournaments.values();
+            this.stageNames = b.stages.values();
+        }
+
+        public boolean isLoaded() { return loaded; }
+        public long getVersion() { return version; }
+
+        /**
+         * 由库中数据推出的快照标识（行数、最大 statId、Games / Matches 的 updated_at 标记）：
+         * 不同实例或重启后加载到同样的数据时相同，可用于对外的 ETag；{@link #getVersion()} 是进程内序号，不能对外。
+         */
+        public String fingerprint() {
+            return size + "." + maxStatId + "." + gamesUpdatedAt + "." + matchesUpdatedAt;
+        }
+        public int getSize() { return size; }
+
+        public String[] positionNames() { return positionNames.clone(); }
+        public String[] championNames() { return championNames.clone(); }
+        public String[] championNamesEn() { return championNamesEn.clone(); }
+
+        /** 字典查找，不存在返回 -1 */
+        int tournamentCode(String name) { return indexOf(tournamentNames, name); }
+        int stageCode(String name) { return indexOf(stageNames, name); }
+        int positionCode(String name) { return indexOf(positionNames, name); }
+
+        private static int indexOf(String[] dict, String v) {
+            if (v == null) return -1;
+            for (int i = 0; i < dict.length; i++) {
+                if (v.equals(dict[i])) return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 写端：持有可增长的列数组与字典。
+     */
+    private static final class Builder {
+        int size;
+        int maxStatId;
+        boolean dictChanged;
+        /** 上次加载时 Games / Matches 的最大 updated_at（epoch 毫秒） */
+        long gamesUpdatedAt;
+        long matchesUpdatedAt;
+        /** 会被重写的列自上次发布后是否已复制过 */
+        boolean detached;
+
+        int[] statId = new int[0];
+        int[] gameId = new int[0];
+        int[] matchId = new int[0];
+        int[] playerId = new int[0];
+        int[] teamId = new int[0];
+        int[] kills = new int[0];
+        int[] deaths = new int[0];
+        int[] assists = new int[0];
+        int[] damageToChampions = new int[0];
+        int[] gold = new int[0];
+        int[] minionsKilled = new int[0];
+        float[] kda = new float[0];
+        float[] killParticipation = new float[0];
+        float[] damagePercentage = new float[0];
+        int[] champion = new int[0];
+        int[] position = new int[0];
+        int[] tournament = new int[0];
+        int[] stage = new int[0];
+        int[] day = new int[0];
+        byte[] win = new byte[0];
+        boolean[] mvp = new boolean[0];
+
+        final Dict champions = new Dict();
+        final List<String> championNamesEn = new ArrayList<>();
+        final Dict positions = new Dict();
+        final Dict tournaments = new Dict();
+        final Dict stages = new Dict();
+
+        void append(ResultSet rs) throws SQLException {
+            ensureCapacity(size + 1);
+            int i = size;
+
+            statId[i] = rs.getInt(1);
+            gameId[i] = rs.getInt(2);
+            matchId[i] = rs.getInt(3);
+            playerId[i] = rs.getInt(4);
+            teamId[i] = rs.getInt(5);
+            boolean teamNull = rs.wasNull();
+            position[i] = code(positions, rs.getString(6));
+
+            String championName = rs.getString(7);
+            String championNameEn = rs.getString(8);
+            int c = code(champions, championName);
+            if (c >= 0) {
+                if (c == championNamesEn.size()) championNamesEn.add(championNameEn);
+                else if (championNamesEn.get(c) == null && championNameEn != null) {
+                    championNamesEn.set(c, championNameEn);
+                    dictChanged = true;
+                }
+            }
+            champion[i] = c;
+
+            kills[i] = rs.getInt(9);
+            deaths[i] = rs.getInt(10);
+            assists[i] = rs.getInt(11);
+            kda[i] = floatOrNaN(rs, 12);
+            killParticipation[i] = floatOrNaN(rs, 13);
+            damageToChampions[i] = rs.getInt(14);
+            damagePercentage[i] = floatOrNaN(rs, 15);
+            gold[i] = rs.getInt(16);
+            minionsKilled[i] = rs.getInt(17);
+            mvp[i] = isMvpFlag(rs.getString(18));
+
+            int winnerId = rs.getInt(19);
+            if (rs.wasNull() || teamNull) win[i] = WIN_UNKNOWN;
+            else win[i] = winnerId == teamId[i] ? WIN : LOSS;
+
+            tournament[i] = code(tournaments, rs.getString(20));
+            stage[i] = code(stages, rs.getString(21));
+            day[i] = dayOf(rs.getString(22));
+
+            maxStatId = Math.max(maxStatId, statId[i]);
+            size++;
+        }
+
+        /**
+         * 按最新取值重写第 i 行；有变化返回 true。第一次修改前先复制这几列，已发布的快照看到的数组保持不变。
+         */
+        boolean rewrite(int i, Resync r) {
+            byte w = r.winnerId() == null || r.teamId() == null ? WIN_UNKNOWN
+                    : r.winnerId().equals(r.teamId()) ? WIN : LOSS;
+            int t = code(tournaments, r.tournament());
+            int s = code(stages, r.stage());
+            if (matchId[i] == r.matchId() && win[i] == w && tournament[i] == t && stage[i] == s && day[i] == r.day()) {
+                return false;
+            }
+            if (!detached) {
+                matchId = matchId.clone();
+                win = win.clone();
+                tournament = tournament.clone();
+                stage = stage.clone();
+                day = day.clone();
+                detached = true;
+            }
+            matchId[i] = r.matchId();
+            win[i] = w;
+            tournament[i] = t;
+            stage[i] = s;
+            day[i] = r.day();
+            return true;
+        }
+
+        Snapshot publish(long version) {
+            dictChanged = false;
+            detached = false;
+            return new Snapshot(version, size, this, true);
+        }
+
+        private int code(Dict dict, String v) {
+            if (v == null || v.isBlank()) return -1;
+            int before = dict.size();
+            int c = dict.code(v);
+            if (dict.size() != before) dictChanged = true;
+            return c;
+        }
+
+        private static float floatOrNaN(ResultSet rs, int col) throws SQLException {
+            float v = rs.getFloat(col);
+            return rs.wasNull() ? Float.NaN : v;
+        }
+
+        private void ensureCapacity(int need) {
+            if (need <= statId.length) return;
+            int cap = Math.max(need, Math.max(1024, statId.length + (statId.length >> 1)));
+            statId = Arrays.copyOf(statId, cap);
+            gameId = Arrays.copyOf(gameId, cap);
+            matchId = Arrays.copyOf(matchId, cap);
+            playerId = Arrays.copyOf(playerId, cap);
+            teamId = Arrays.copyOf(teamId, cap);
+            kills = Arrays.copyOf(kills, cap);
+            deaths = Arrays.copyOf(deaths, cap);
+            assists = Arrays.copyOf(assists, cap);
+            damageToChampions = Arrays.copyOf(damageToChampions, cap);
+            gold = Arrays.copyOf(gold, cap);
+            minionsKilled = Arrays.copyOf(minionsKilled, cap);
+            kda = Arrays.copyOf(kda, cap);
+            killParticipation = Arrays.copyOf(killParticipation, cap);
+            damagePercentage = Arrays.copyOf(damagePercentage, cap);
+            champion = Arrays.copyOf(champion, cap);
+            position = Arrays.copyOf(position, cap);
+            tournament = Arrays.copyOf(tournament, cap);
+            stage = Arrays.copyOf(stage, cap);
+            day = Arrays.copyOf(day, cap);
+            win = Arrays.copyOf(win, cap);
+            mvp = Arrays.copyOf(mvp, cap);
+        }
+
+        long approxBytes() {
+            // 19 个 int/float 列 + byte + boolean
+            return (long) statId.length * (19 * 4 + 2);
+        }
+    }
+
+    /**
+     * 字符串字典：值 -> 连续 code。
+     */
+    private static final class Dict {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String v) {
+            Integer c = codes.get(v);
+            if (c != null) return c;
+            int n = values.size();
+            codes.put(v, n);
+            values.add(v);
+            return n;
+        }
+
+        int size() { return values.size(); }
+
+        String[] values() { return values.toArray(new String[0]); }
+    }
+}
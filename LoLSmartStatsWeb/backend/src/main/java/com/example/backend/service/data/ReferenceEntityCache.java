@@ -0,0 +1,74 @@
+package com.example.backend.service.data;
+
+import com.example.backend.entity.Player;
+import com.example.backend.entity.Team;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Team / Player 的批量按 id 读取：先查 Hibernate 二级缓存（区域 ref-teams / ref-players，见 ehcache.xml），
+ * 只有未命中的 id 才合并成一次 IN 查询回库。
+ * <p>
+ * 不走 JpaRepository.findAllById：那是一条 JPQL 查询，不经过实体缓存。
+ * 导入等绕过 Hibernate 的写入在提交后调用 {@link #evictAll()}。
+ */
+@Component
+public class ReferenceEntityCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceEntityCache.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public ReferenceEntityCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public Map<Integer, Team> teams(Collection<Integer> ids) {
+        return load(Team.class, ids, Team::getId);
+    }
+
+    public Map<Integer, Player> players(Collection<Integer> ids) {
+        return load(Player.class, ids, Player::getId);
+    }
+
+    /**
+     * 清空队伍/选手的实体缓存与查询缓存（例如导入新建了队伍/选手之后）。
+     */
+    public void evictAll() {
+        SessionFactory sf = entityManagerFactory.unwrap(SessionFactory.class);
+        sf.getCache().evictEntityData(Team.class);
+        sf.getCache().evictEntityData(Player.class);
+        sf.getCache().evictQueryRegions();
+        log.debug("[ref-cache] evicted teams/players and query regions");
+    }
+
+    private <T> Map<Integer, T> load(Class<T> type, Collection<Integer> ids, Function<T, Integer> idOf) {
+        Map<Integer, T> out = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return out;
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        if (distinct.isEmpty()) return out;
+        List<T> found = em.unwrap(Session.class).byMultipleIds(type).multiLoad(distinct);
+        for (T e : found) {
+            if (e != null) out.put(idOf.apply(e), e);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.backend.service.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按 (赛事, 阶段) 预先算好的筛选项集合：该范围内出现过的队伍、选手、英雄、位置、阶段、赛事。
+ * <p>
+ * 由 {@link PlayerStatSnapshot} 一次扫描构建，key 支持通配（只给赛事 / 只给阶段）；
+ * 快照版本变化后在下一次查询时重建。带日期范围的查询无法预建，走一次带过滤的快照扫描。
+ */
+@Component
+public class ScopedOptionsIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ScopedOptionsIndex.class);
+
+    /** 通配：不限赛事 / 不限阶段 */
+    static final int ANY = -1;
+
+    private volatile Built built;
+
+    /**
+     * 不带日期范围的范围查询：直接取预建集合。tCode/sCode 为快照字典编码，ANY 表示不限。
+     */
+    public Entry lookup(PlayerStatSnapshot.Snapshot snap, int tCode, int sCode) {
+        Built b = built;
+        if (b == null || b.version != snap.version) b = rebuild(snap);
+        Entry e = b.entries.get(key(tCode, sCode));
+        return e == null ? Entry.EMPTY : e;
+    }
+
+    /**
+     * 带日期范围（闭区间 epochDay）的查询：过滤扫描快照。
+     */
+    public Entry scan(PlayerStatSnapshot.Snapshot snap, int tCode, int sCode, int fromDay, int toDay) {
+        Entry e = new Entry();
+        int[] tournament = snap.tournament;
+        int[] stage = snap.stage;
+        int[] day = snap.day;
+        for (int i = 0; i < snap.size; i++) {
+            if (tCode != ANY && tournament[i] != tCode) continue;
+            if (sCode != ANY && stage[i] != sCode) continue;
+            int d = day[i];
+            if (d == PlayerStatSnapshot.NO_DAY || d < fromDay || d > toDay) continue;
+            e.add(snap, i);
+        }
+        return e;
+    }
+
+    private synchronized Built rebuild(PlayerStatSnapshot.Snapshot snap) {
+        Built cur = built;
+        if (cur != null && cur.version == snap.version) return cur;
+
+        long start = System.currentTimeMillis();
+        Map<Long, Entry> entries = new HashMap<>();
+        int[] tournament = snap.tournament;
+        int[] stage = snap.stage;
+        for (int i = 0; i < snap.size; i++) {
+            int t = tournament[i];
+            int s = stage[i];
+            // 每行计入 (t,s)、(t,*)、(*,s) 三个 key；全局 (*,*) 不需要，走未限定范围的路径
+            if (t >= 0) entries.computeIfAbsent(key(t, ANY), k -> new Entry()).add(snap, i);
+            if (s >= 0) entries.computeIfAbsent(key(ANY, s), k -> new Entry()).add(snap, i);
+            if (t >= 0 && s >= 0) entries.computeIfAbsent(key(t, s), k -> new Entry()).add(snap, i);
+        }
+        Built b = new Built(snap.version, entries);
+        built = b;
+        log.info("[scoped-options] built keys={}, rows={}, costMs={}",
+                entries.size(), snap.size, System.currentTimeMillis() - start);
+        return b;
+    }
+
+    private static long key(int tCode, int sCode) {
+        return ((long) (tCode + 1) << 32) | ((sCode + 1) & 0xffffffffL);
+    }
+
+    private record Built(long version, Map<Long, Entry> entries) {
+    }
+
+    /**
+     * 某个范围内出现过的取值集合。队伍/选手按 id、其余按快照字典编码置位；发布后只读。
+     */
+    public static final class Entry {
+
+        static final Entry EMPTY = new Entry();
+
+        final BitSet teams = new BitSet();
+        final BitSet players = new BitSet();
+        final BitSet champions = new BitSet();
+        final BitSet positions = new BitSet();
+        final BitSet tournaments = new BitSet();
+        final BitSet stages = new BitSet();
+
+        private void add(PlayerStatSnapshot.Snapshot snap, int i) {
+            if (snap.teamId[i] > 0) teams.set(snap.teamId[i]);
+            if (snap.playerId[i] > 0) players.set(snap.playerId[i]);
+            if (snap.champion[i] >= 0) champions.set(snap.champion[i]);
+            if (snap.position[i] >= 0) positions.set(snap.position[i]);
+            if (snap.tournament[i] >= 0) tournaments.set(snap.tournament[i]);
+            if (snap.stage[i] >= 0) stages.set(snap.stage[i]);
+        }
+
+        public boolean hasTeam(Integer id) { return id != null && id > 0 && teams.get(id); }
+        public boolean hasPlayer(Integer id) { return id != null && id > 0 && players.get(id); }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.backend.util;
+
+import java.nio.charset.StandardCharsets;
+
+public final class ETagUtil {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETagUtil() {}
+
+    /**
+     * 由版本串生成弱 ETag：W/"<64 位 FNV-1a 十六进制>"。
+     */
+    public static String weak(String raw) {
+        long h = FNV_OFFSET;
+        for (byte b : raw.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= FNV_PRIME;
+        }
+        return "W/\"" + Long.toHexString(h) + "\"";
+    }
+
+    /**
+     * If-None-Match 是否命中（弱比较，支持逗号分隔的多个值和 *）。
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) return false;
+        String target = opaque(etag);
+        for (String part : ifNoneMatch.split(",")) {
+            String v = part.trim();
+            if ("*".equals(v) || opaque(v).equals(target)) return true;
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,18 +1,31 @@
 package com.example.backend.util;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.util.Map;
+
 /**
  * 简单 JSON 工具类：用于 SSE token/file_meta 解析等。
+ * <p>
+ * MAPPER 全局共享（ObjectMapper 配置完成后线程安全），不要在热路径上 JsonMapper.builder().build()。
  */
 public final class JsonUtil {
 
     private static final ObjectMapper MAPPER = JsonMapper.builder().build();
 
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
     private JsonUtil() {}
 
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
     public static <T> T read(String json, Class<T> clazz) {
         try {
             return MAPPER.readValue(json, clazz);
@@ -29,6 +42,13 @@ public final class JsonUtil {
         }
     }
 
+    /**
+     * 解析为 Map；与 read 不同，失败时抛出异常（调用方需要区分"解析失败"做降级）。
+     */
+    public static Map<String, Object> readMap(String json) throws IOException {
+        return MAPPER.readValue(json, MAP_TYPE);
+    }
+
     public static String write(Object obj) {
         try {
             return MAPPER.writeValueAsString(obj);
@@ -36,5 +56,45 @@ public final class JsonUtil {
             return "{}";
         }
     }
-}
 
+    /**
+     * 从 token 事件 {"delta": "..."} 中直接流式取出顶层 delta，不构建中间 Map。
+     * <p>
+     * 返回 null 表示没有 delta 字段（或值为 null）；标量按文本返回，对象/数组返回其 JSON。
+     * 顶层不是对象或 JSON 不合法时抛 IOException，由调用方决定降级方式。
+     */
+    public static String extractDelta(String json) throws IOException {
+        try (JsonParser p = MAPPER.getFactory().createParser(json)) {
+            return readDelta(p);
+        }
+    }
+
+    /**
+     * 同 {@link #extractDelta(String)}，直接在 UTF-8 字节上解析（SSE 原始帧转发时不先解码成字符串）。
+     */
+    public static String extractDelta(byte[] json, int offset, int len) throws IOException {
+        try (JsonParser p = MAPPER.getFactory().createParser(json, offset, len)) {
+            return readDelta(p);
+        }
+    }
+
+    private static String readDelta(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("not a JSON object");
+        }
+        JsonToken t;
+        while ((t = p.nextToken()) == JsonToken.FIELD_NAME) {
+            boolean isDelta = "delta".equals(p.currentName());
+            JsonToken v = p.nextToken();
+            if (!isDelta) {
+                p.skipChildren();
+                continue;
+            }
+            if (v == JsonToken.VALUE_NULL) return null;
+            if (v.isScalarValue()) return p.getText();
+            return MAPPER.readTree(p).toString();
+        }
+        if (t != JsonToken.END_OBJECT) throw new IOException("malformed JSON object");
+        return null;
+    }
+}
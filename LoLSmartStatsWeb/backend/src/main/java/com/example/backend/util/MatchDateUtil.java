@@ -0,0 +1,48 @@
+package com.example.backend.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 比赛日期解析：把 Matches.match_date（varchar，历史数据格式不统一）规整为 LocalDate。
+ * 支持 2026-01-15 / 2026/1/15 / 2026.01.15 / 2026年1月15日 / 20260115，以及后面带时间的写法；
+ * 纯数字 10/13 位按 epoch 秒/毫秒处理（按数据库时区 Asia/Shanghai 取日期）。
+ */
+public final class MatchDateUtil {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private static final Pattern YMD = Pattern.compile("^(\\d{4})\\s*[-/.年]\\s*(\\d{1,2})\\s*[-/.月]\\s*(\\d{1,2})");
+    private static final Pattern COMPACT = Pattern.compile("^(\\d{4})(\\d{2})(\\d{2})(?!\\d)");
+    private static final Pattern EPOCH = Pattern.compile("^\\d{10}(\\d{3})?$");
+
+    private MatchDateUtil() {}
+
+    /**
+     * 解析失败返回 null。
+     */
+    public static LocalDate parse(String raw) {
+        if (raw == null) return null;
+        String s = raw.trim();
+        if (s.isEmpty()) return null;
+        try {
+            if (EPOCH.matcher(s).matches()) {
+                long v = Long.parseLong(s);
+                Instant instant = s.length() == 13 ? Instant.ofEpochMilli(v) : Instant.ofEpochSecond(v);
+                return instant.atZone(ZONE).toLocalDate();
+            }
+            Matcher m = YMD.matcher(s);
+            if (!m.find()) {
+                m = COMPACT.matcher(s);
+                if (!m.find()) return null;
+            }
+            return LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)));
+        } catch (DateTimeException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 单连接池模式（未配置 replica）：只读事务在真正执行语句前不从池里借连接。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DataSourceConfigTest {
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlyTransactionWithoutStatementsBorrowsNoConnection() {
+        assertThat(dataSource).isNotSameAs(primaryDataSource);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        int[] active = new int[2];
+        tx.executeWithoutResult(status -> {
+            // 内存命中：事务已开始但没有任何语句
+            active[0] = primaryDataSource.getHikariPoolMXBean().getActiveConnections();
+            new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+            active[1] = primaryDataSource.getHikariPoolMXBean().getActiveConnections();
+        });
+        assertThat(active[0]).isZero();
+        assertThat(active[1]).isEqualTo(1);
+        assertThat(primaryDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+}
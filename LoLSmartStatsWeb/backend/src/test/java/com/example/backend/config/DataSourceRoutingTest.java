@@ -0,0 +1,83 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.response.MatchDetail;
+import com.example.backend.entity.User;
+import com.example.backend.service.auth.UserService;
+import com.example.backend.service.data.MatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 读写分离：primary / replica 指向两个不同的内存库，按数据落在哪个库判断请求走了哪个连接池。
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:routing_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class DataSourceRoutingTest {
+
+    private static final int REPLICA_ONLY_MATCH_ID = 900001;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private UserService userService;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        Integer tables = replica.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'matches'", Integer.class);
+        if (tables != null && tables > 0) return;
+        // ddl-auto 只在 primary 上建表；复制一份表结构（不含数据）到 replica
+        List<String> ddl = primary.queryForList("SCRIPT NODATA", String.class);
+        for (String sql : ddl) {
+            if (sql.startsWith("CREATE USER")) continue;
+            replica.execute(sql);
+        }
+    }
+
+    @Test
+    void readOnlyMatchReadIsServedByReplica() {
+        replica.update("INSERT INTO Matches (id, tournament_name, stage, match_date) VALUES (?, ?, ?, ?)",
+                REPLICA_ONLY_MATCH_ID, "Replica Cup", "Final", "2026-10-01");
+
+        MatchDetail detail = matchService.detail(REPLICA_ONLY_MATCH_ID);
+        assertThat(detail.match().tournamentName()).isEqualTo("Replica Cup");
+
+        Integer onPrimary = primary.queryForObject("SELECT COUNT(*) FROM Matches WHERE id = ?", Integer.class, REPLICA_ONLY_MATCH_ID);
+        assertThat(onPrimary).isZero();
+    }
+
+    @Test
+    void userWriteIsServedByPrimary() {
+        User u = userService.register("routing@example.com", "secret-123", "routing");
+
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, u.getId())).isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, u.getId())).isZero();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend.dto.response;
+
+import com.example.backend.util.JsonUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比赛列表项改为 record 之后，输出的 JSON 必须与原先逐项拼 Map 的结果一致（字段顺序除外）。
+ */
+class MatchBriefSerializationTest {
+
+    private final ObjectMapper mapper = JsonUtil.mapper();
+
+    @Test
+    void existingTeamWithNamesMatchesMapOutput() throws Exception {
+        assertSame(brief(new TeamBrief(1, "T1", "T1", true), new TeamBrief(9, "Bilibili Gaming", "BLG", true)),
+                legacy(legacyTeam(1, "T1", "T1", true), legacyTeam(9, "Bilibili Gaming", "BLG", true)));
+    }
+
+    @Test
+    void existingTeamWithNullNamesKeepsNullKeys() throws Exception {
+        String json = mapper.writeValueAsString(new TeamBrief(3, null, null, true));
+        assertThat(mapper.readTree(json).has("name")).isTrue();
+        assertThat(mapper.readTree(json).has("shortName")).isTrue();
+
+        assertSame(brief(new TeamBrief(3, null, null, true), new TeamBrief(4, "JDG", null, true)),
+                legacy(legacyTeam(3, null, null, true), legacyTeam(4, "JDG", null, true)));
+    }
+
+    @Test
+    void missingTeamOnlyHasId() throws Exception {
+        assertThat(mapper.writeValueAsString(new TeamBrief(7, null, null, false))).isEqualTo("{\"id\":7}");
+
+        assertSame(brief(new TeamBrief(7, null, null, false), new TeamBrief(null, null, null, false)),
+                legacy(legacyTeam(7, null, null, false), legacyTeam(null, null, null, false)));
+    }
+
+    private void assertSame(MatchBrief brief, Map<String, Object> legacy) throws Exception {
+        JsonNode actual = mapper.readTree(mapper.writeValueAsString(brief));
+        JsonNode expected = mapper.readTree(mapper.writeValueAsString(legacy));
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private static MatchBrief brief(TeamBrief team1, TeamBrief team2) {
+        return new MatchBrief(345, "2024-11-02", "Worlds 2024", "Finals", null, team1, team2, 3L);
+    }
+
+    /** 改造前 MatchService.search 拼出的列表项 */
+    private static Map<String, Object> legacy(Map<String, Object> team1, Map<String, Object> team2) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("matchId", 345);
+        m.put("matchDate", "2024-11-02");
+        m.put("tournamentName", "Worlds 2024");
+        m.put("stage", "Finals");
+        m.put("winnerTeamId", null);
+        m.put("team1", team1);
+        m.put("team2", team2);
+        m.put("gamesCount", 3L);
+        return m;
+    }
+
+    /** 改造前的 toTeamBrief：队伍存在时 name/shortName 原样放入（可能为 null），不存在时只有 id */
+    private static Map<String, Object> legacyTeam(Integer id, String name, String shortName, boolean found) {
+        Map<String, Object> out = new HashMap<>();
+        out.put("id", id);
+        if (found) {
+            out.put("name", name);
+            out.put("shortName", shortName);
+        }
+        return out;
+    }
+}
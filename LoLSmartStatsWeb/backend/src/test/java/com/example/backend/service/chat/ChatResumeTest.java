@@ -0,0 +1,135 @@
+package com.example.backend.service.chat;
+
+import com.example.backend.controller.ChatController;
+import com.example.backend.exception.BizException;
+import com.example.backend.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static com.example.backend.service.chat.ChatTurnTest.collect;
+import static com.example.backend.service.chat.ChatTurnTest.token;
+import static com.example.backend.service.chat.ChatTurnTest.tokens;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 断线续传：ChatService.resume 的校验，以及 GET /api/v1/chat/stream/{turnId} 按 Last-Event-ID 补发。
+ */
+class ChatResumeTest {
+
+    private ChatTurnRegistry registry;
+    private ChatService chatService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ChatTurnRegistry(4, 120000, 60000);
+        // resume 只用到登记表，agent 与落库依赖不参与
+        chatService = new ChatService(null, null, registry, "raw", 0, 200, 2048);
+        mvc = MockMvcBuilders.standaloneSetup(new ChatController(chatService, null))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void resumeAfterN() {
+        registry.create("t-after", "s1", "u1", "k").connect(tokens(3));
+
+        assertThat(collect(chatService.resume("u1", "t-after", 1))).containsExactly(token(2), token(3));
+    }
+
+    @Test
+    void resumeOverHttpUsesLastEventIdHeader() throws Exception {
+        registry.create("t-http", "s1", "u1", "k").connect(tokens(3));
+
+        MvcResult started = mvc.perform(get("/api/v1/chat/stream/t-http")
+                        .header("Last-Event-ID", "2")
+                        .principal(user("u1")))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Turn-Id", "t-http"))
+                .andReturn();
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string(token(3)));
+    }
+
+    @Test
+    void resumeAfterTheTurnFinished() {
+        ChatTurn turn = registry.create("t-done", "s1", "u1", "k");
+        turn.connect(tokens(4));
+        turn.markPersisted();
+        assertThat(turn.finished()).isTrue();
+
+        assertThat(collect(chatService.resume("u1", "t-done", 2))).containsExactly(token(3), token(4));
+        assertThat(collect(chatService.resume("u1", "t-done", 4))).isEmpty();
+    }
+
+    @Test
+    void resumeBehindTheBufferIsConflict() {
+        // replay-limit=4：10 帧之后只剩 7..10
+        registry.create("t-gap", "s1", "u1", "k").connect(tokens(10));
+
+        assertThat(collect(chatService.resume("u1", "t-gap", 6))).hasSize(4);
+        assertThatThrownBy(() -> chatService.resume("u1", "t-gap", 5))
+                .isInstanceOf(BizException.class)
+                .extracting("code").isEqualTo("CONFLICT");
+    }
+
+    @Test
+    void resumeAheadOfTheLastFrameIsConflict() throws Exception {
+        registry.create("t-ahead", "s1", "u1", "k").connect(tokens(3));
+
+        assertThat(collect(chatService.resume("u1", "t-ahead", 3))).isEmpty();
+        assertThatThrownBy(() -> chatService.resume("u1", "t-ahead", 4))
+                .isInstanceOf(BizException.class)
+                .extracting("code").isEqualTo("CONFLICT");
+        mvc.perform(get("/api/v1/chat/stream/t-ahead").header("Last-Event-ID", "99").principal(user("u1")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error.code").value("CONFLICT"));
+    }
+
+    @Test
+    void otherUserGetsNotFound() throws Exception {
+        registry.create("t-owned", "s1", "u1", "k").connect(tokens(2));
+
+        assertThatThrownBy(() -> chatService.resume("u2", "t-owned", 0))
+                .isInstanceOf(BizException.class)
+                .extracting("code").isEqualTo("NOT_FOUND");
+        assertThatThrownBy(() -> chatService.resume("u1", "t-missing", 0))
+                .isInstanceOf(BizException.class)
+                .extracting("code").isEqualTo("NOT_FOUND");
+
+        mvc.perform(get("/api/v1/chat/stream/t-owned").principal(user("u2")))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error.code").value("NOT_FOUND"));
+        // 匿名用户按 sessionId 区分，同样拿不到登录用户的一轮
+        mvc.perform(get("/api/v1/chat/stream/t-owned").param("sessionId", "s1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void badLastEventIdIsRejected() throws Exception {
+        registry.create("t-bad", "s1", "u1", "k").connect(tokens(1));
+
+        mvc.perform(get("/api/v1/chat/stream/t-bad").header("Last-Event-ID", "abc").principal(user("u1")))
+                .andExpect(status().isBadRequest());
+        assertThatThrownBy(() -> chatService.resume("u1", "t-bad", -1))
+                .isInstanceOf(BizException.class)
+                .extracting("code").isEqualTo("INVALID_ARGUMENT");
+    }
+
+    private static TestingAuthenticationToken user(String name) {
+        return new TestingAuthenticationToken(name, null, "ROLE_USER");
+    }
+}
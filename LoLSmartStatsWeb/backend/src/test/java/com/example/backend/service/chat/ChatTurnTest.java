@@ -0,0 +1,126 @@
+package com.example.backend.service.chat;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatTurnTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void framesAfterNReplayTheRestWithIds() {
+        ChatTurn turn = turn(16);
+        turn.connect(tokens(5));
+
+        List<String> frames = collect(turn.frames(2));
+        assertThat(frames).containsExactly(token(3), token(4), token(5));
+        assertThat(collect(turn.frames(0))).hasSize(5);
+        assertThat(collect(turn.frames(5))).isEmpty();
+    }
+
+    @Test
+    void resumeJoinsLiveFramesAfterTheBacklog() {
+        ChatTurn turn = turn(16);
+        Sinks.Many<SseFrame> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        turn.connect(upstream.asFlux());
+        upstream.tryEmitNext(frame(1));
+        upstream.tryEmitNext(frame(2));
+
+        List<String> got = new CopyOnWriteArrayList<>();
+        turn.frames(1).map(ChatTurnTest::text).subscribe(got::add);
+        assertThat(turn.subscribers()).isEqualTo(1);
+
+        upstream.tryEmitNext(frame(3));
+        upstream.tryEmitComplete();
+        assertThat(got).containsExactly(token(2), token(3));
+        assertThat(turn.finished()).isTrue();
+        assertThat(turn.subscribers()).isZero();
+    }
+
+    @Test
+    void gapAfterTheBufferRollsOver() {
+        ChatTurn turn = turn(3);
+        turn.connect(tokens(10));
+
+        // 缓冲里只剩 8、9、10
+        assertThat(turn.canResumeFrom(7)).isTrue();
+        assertThat(turn.canResumeFrom(6)).isFalse();
+        assertThat(turn.canResumeFrom(0)).isFalse();
+        assertThat(collect(turn.frames(7))).containsExactly(token(8), token(9), token(10));
+
+        List<String> gap = collect(turn.frames(2));
+        assertThat(gap).hasSize(1);
+        assertThat(gap.get(0))
+                .startsWith("event: error\ndata: ")
+                .contains("\"code\":\"RESUME_GAP\"")
+                .contains("\"turnId\":\"t1\"")
+                .doesNotStartWith("id: ");
+    }
+
+    @Test
+    void canResumeFromBeforeAnyFrame() {
+        ChatTurn turn = turn(3);
+        assertThat(turn.canResumeFrom(0)).isTrue();
+        assertThat(turn.canResumeFrom(1)).isFalse();
+        assertThat(turn.finished()).isFalse();
+    }
+
+    @Test
+    void resumeAfterTheTurnFinished() {
+        ChatTurn turn = turn(16);
+        turn.connect(tokens(4));
+        assertThat(turn.finished()).isTrue();
+
+        assertThat(collect(turn.frames(3))).containsExactly(token(4));
+        assertThat(collect(turn.frames(4))).isEmpty();
+    }
+
+    @Test
+    void releasedOnceFinishedPersistedAndUnwatched() {
+        List<ChatTurn> released = new ArrayList<>();
+        ChatTurn turn = new ChatTurn("t1", "s1", "u1", "k", 16, released::add);
+        turn.connect(tokens(2));
+        collect(turn.frames(0));
+        assertThat(released).isEmpty();
+
+        turn.markPersisted();
+        assertThat(released).containsExactly(turn);
+        turn.markPersisted();
+        assertThat(released).hasSize(1);
+    }
+
+    static ChatTurn turn(int replayLimit) {
+        return new ChatTurn("t1", "s1", "u1", "k", replayLimit, t -> {});
+    }
+
+    static Flux<SseFrame> tokens(int n) {
+        return Flux.fromStream(IntStream.rangeClosed(1, n).mapToObj(ChatTurnTest::frame));
+    }
+
+    static SseFrame frame(int i) {
+        return SseFrame.of("token", "{\"delta\":\"t" + i + "\"}");
+    }
+
+    /** 第 i 帧写给前端的样子（上游第 i 个 token 的序号也是 i） */
+    static String token(int i) {
+        return "id: " + i + "\nevent: token\ndata: {\"delta\":\"t" + i + "\"}\n\n";
+    }
+
+    static List<String> collect(Flux<byte[]> frames) {
+        return frames.map(ChatTurnTest::text).collectList().block(TIMEOUT);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
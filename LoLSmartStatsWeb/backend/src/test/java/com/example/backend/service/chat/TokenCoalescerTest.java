@@ -0,0 +1,103 @@
+package com.example.backend.service.chat;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 事件用字符串表示："t:xx" 为 delta=xx 的 token，其余为非 token 事件。
+ */
+class TokenCoalescerTest {
+
+    private static final TokenCoalescer.Policy POLICY = new TokenCoalescer.Policy(Duration.ofMillis(100), 2048);
+
+    @Test
+    void disabledPolicyPassesSourceThrough() {
+        Flux<String> source = Flux.just("t:a", "t:b");
+        assertThat(coalesce(source, TokenCoalescer.Policy.NONE)).isSameAs(source);
+    }
+
+    @Test
+    void nonTokenEventsFlushPendingTokensAndKeepOrder() {
+        StepVerifier.withVirtualTime(() -> coalesce(
+                        Flux.just("t:a", "t:b", "file_meta", "t:c", "t:d", "t:e", "done"), POLICY))
+                .expectNext("t:ab", "file_meta", "t:cde", "done")
+                .verifyComplete();
+    }
+
+    @Test
+    void tokenWithoutDeltaIsNotMerged() {
+        StepVerifier.withVirtualTime(() -> coalesce(Flux.just("t:a", "t:", "t:b", "t:c"), POLICY))
+                .expectNext("t:a", "t:", "t:bc")
+                .verifyComplete();
+    }
+
+    @Test
+    void singleTokenIsPassedThroughUnchanged() {
+        StepVerifier.withVirtualTime(() -> coalesce(Flux.just("done", "t:only", "error"), POLICY))
+                .expectNext("done", "t:only", "error")
+                .verifyComplete();
+    }
+
+    @Test
+    void splitsOnceMaxCharsIsReached() {
+        TokenCoalescer.Policy policy = new TokenCoalescer.Policy(Duration.ofMillis(100), 4);
+        // 累计达到 4 个字符的那个 token 是本帧最后一个，之后重新计数
+        StepVerifier.withVirtualTime(() -> coalesce(Flux.just("t:ab", "t:cd", "t:e", "t:f", "t:ghi", "t:j"), policy))
+                .expectNext("t:abcd", "t:efghi", "t:j")
+                .verifyComplete();
+    }
+
+    @Test
+    void nonTokenResetsTheCharCount() {
+        TokenCoalescer.Policy policy = new TokenCoalescer.Policy(Duration.ofMillis(100), 4);
+        StepVerifier.withVirtualTime(() -> coalesce(Flux.just("t:abc", "done", "t:d", "t:e"), policy))
+                .expectNext("t:abc", "done", "t:de")
+                .verifyComplete();
+    }
+
+    @Test
+    void flushesAfterMaxDelay() {
+        TestPublisher<String> upstream = TestPublisher.create();
+        StepVerifier.withVirtualTime(() -> coalesce(upstream.flux(), POLICY))
+                .expectSubscription()
+                .then(() -> upstream.next("t:a", "t:b"))
+                .expectNoEvent(Duration.ofMillis(99))
+                .then(() -> upstream.next("t:c"))
+                // 从这批第一个 token 起算，到点发出已攒的全部
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("t:abc")
+                .then(() -> upstream.next("t:d"))
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> upstream.next("t:e", "done"))
+                // 非 token 不等计时，立即带出手上的 token
+                .expectNext("t:de", "done")
+                .then(() -> upstream.next("t:f"))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("t:f")
+                .then(upstream::complete)
+                .verifyComplete();
+    }
+
+    @Test
+    void pendingTokensAreFlushedOnComplete() {
+        TestPublisher<String> upstream = TestPublisher.create();
+        StepVerifier.withVirtualTime(() -> coalesce(upstream.flux(), POLICY))
+                .expectSubscription()
+                .then(() -> upstream.next("t:a", "t:b"))
+                .then(upstream::complete)
+                .expectNext("t:ab")
+                .verifyComplete();
+    }
+
+    private static Flux<String> coalesce(Flux<String> source, TokenCoalescer.Policy policy) {
+        return TokenCoalescer.coalesce(source, policy,
+                s -> s.startsWith("t:") && s.length() > 2 ? s.substring(2) : null,
+                d -> "t:" + d);
+    }
+}
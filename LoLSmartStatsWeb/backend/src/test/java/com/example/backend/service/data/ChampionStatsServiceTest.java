@@ -0,0 +1,80 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.ChampionStatsRequest;
+import com.example.backend.dto.request.DataOptionsRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChampionStatsServiceTest {
+
+    @Autowired
+    private ChampionStatsService championStatsService;
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private PlayerStatSnapshot playerStatSnapshot;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void disabledSnapshotFallsBackToSqlWithSameResult() {
+        matchIngestService.ingest(request(false,
+                match("Champion Cup", "Groups", "2026-05-01", "Champion A", "Champion B", "Champion A",
+                        game(1, "Champion A", "Champion B", "Champion A",
+                                stat("champion_a_mid", "Champion A", "Ahri", 5, 1, 7),
+                                stat("champion_b_mid", "Champion B", "Syndra", 1, 5, 2)),
+                        game(2, "Champion A", "Champion B", "Champion B",
+                                stat("champion_a_mid", "Champion A", "Ahri", 2, 3, 1),
+                                stat("champion_b_mid", "Champion B", "Orianna", 4, 2, 3)))));
+        playerStatSnapshot.refresh();
+
+        PlayerStatSnapshot disabled = new PlayerStatSnapshot(jdbcTemplate, eventPublisher, false, 1000, 0);
+        ChampionStatsService sqlOnly = new ChampionStatsService(disabled, dataVersionService, jdbcTemplate, 4);
+
+        ChampionStatsRequest req = scoped("Champion Cup");
+        Map<String, Object> fromSnapshot = championStatsService.stats(req);
+        Map<String, Object> fromSql = sqlOnly.stats(req);
+
+        assertThat(disabled.current().isLoaded()).isFalse();
+        assertThat(fromSql.get("totalGames")).isEqualTo(2);
+        assertThat(fromSql).isEqualTo(fromSnapshot);
+
+        List<Map<String, Object>> champions = (List<Map<String, Object>>) fromSql.get("champions");
+        assertThat(champions.get(0).get("name")).isEqualTo("Ahri");
+        assertThat(champions.get(0).get("picks")).isEqualTo(2);
+        assertThat(champions.get(0).get("winRate")).isEqualTo(0.5);
+    }
+
+    private static ChampionStatsRequest scoped(String tournament) {
+        DataOptionsRequest.Scope scope = new DataOptionsRequest.Scope();
+        scope.setTournamentName(tournament);
+        ChampionStatsRequest req = new ChampionStatsRequest();
+        req.setScope(scope);
+        return req;
+    }
+}
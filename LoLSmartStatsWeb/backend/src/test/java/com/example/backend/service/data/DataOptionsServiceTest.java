@@ -0,0 +1,112 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.DataOptionsRequest;
+import com.example.backend.dto.response.DataOptionItems;
+import com.example.backend.repository.PlayerGameStatRepository;
+import com.example.backend.repository.PlayerRepository;
+import com.example.backend.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DataOptionsServiceTest {
+
+    @Autowired
+    private DataOptionsService dataOptionsService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlayerStatSnapshot playerStatSnapshot;
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private PlayerGameStatRepository playerGameStatRepository;
+
+    @Autowired
+    private ScopedOptionsIndex scopedOptionsIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void teamWrittenOutsideHibernateShowsUpAfterVersionChange() {
+        DataOptionsRequest req = new DataOptionsRequest();
+        req.setNeed(List.of("teams"));
+        List<DataOptionItems.TeamItem> before = (List<DataOptionItems.TeamItem>) dataOptionsService.options(req).get("teams");
+        assertThat(before).extracting(DataOptionItems.TeamItem::name).doesNotContain("Crawler Team");
+
+        // 模拟爬虫直接写库：查询缓存的时间戳区域不会因此失效
+        jdbcTemplate.update("INSERT INTO Teams (name, short_name, region) VALUES (?, ?, ?)", "Crawler Team", "CRW", "LPL");
+        // 跳过探针节流，让下一次 current() 真正查库
+        dataVersionService.bump();
+
+        List<DataOptionItems.TeamItem> after = (List<DataOptionItems.TeamItem>) dataOptionsService.options(req).get("teams");
+        assertThat(after).extracting(DataOptionItems.TeamItem::name).contains("Crawler Team");
+    }
+
+    @Test
+    void snapshotBackedETagDoesNotDependOnProcessLocalVersion() {
+        matchIngestService.ingest(request(false,
+                match("ETag Cup", "Groups", "2026-10-01", "ETag A", "ETag B", "ETag A",
+                        game(1, "ETag A", "ETag B", "ETag A",
+                                stat("etag_a_mid", "ETag A", "Ahri", 5, 1, 7)))));
+        playerStatSnapshot.refresh();
+        // 本进程的快照多发布几次，模拟运行了一段时间的实例
+        playerStatSnapshot.rebuild();
+        playerStatSnapshot.rebuild();
+
+        // 刚启动的另一个实例：同样的库，发布序号从头开始
+        PlayerStatSnapshot restarted = new PlayerStatSnapshot(jdbcTemplate, eventPublisher, true, 1000, 0);
+        restarted.refresh();
+        assertThat(restarted.current().getVersion()).isNotEqualTo(playerStatSnapshot.current().getVersion());
+        DataOptionsService other = new DataOptionsService(teamRepository, playerRepository, playerGameStatRepository,
+                restarted, dataVersionService, scopedOptionsIndex);
+
+        DataOptionsRequest global = new DataOptionsRequest();
+        global.setNeed(List.of("positions", "champions"));
+        assertThat(other.etag(global)).isEqualTo(dataOptionsService.etag(global));
+
+        DataOptionsRequest.Scope scope = new DataOptionsRequest.Scope();
+        scope.setTournamentName("ETag Cup");
+        DataOptionsRequest scoped = new DataOptionsRequest();
+        scoped.setNeed(List.of("champions"));
+        scoped.setScope(scope);
+        assertThat(other.etag(scoped)).isEqualTo(dataOptionsService.etag(scoped));
+
+        // 数据变了，ETag 随之变化
+        String before = dataOptionsService.etag(global);
+        matchIngestService.ingest(request(false,
+                match("ETag Cup", "Groups", "2026-10-02", "ETag A", "ETag B", "ETag B",
+                        game(1, "ETag A", "ETag B", "ETag B",
+                                stat("etag_a_mid", "ETag A", "Zed", 2, 3, 1)))));
+        playerStatSnapshot.refresh();
+        assertThat(dataOptionsService.etag(global)).isNotEqualTo(before);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.backend.service.data;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HeadToHeadIndexTest {
+
+    @Autowired
+    private HeadToHeadIndex headToHeadIndex;
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void winnerFilledInLaterIsPickedUp() throws InterruptedException {
+        matchIngestService.ingest(request(false,
+                match("H2H Cup", "Final", "2026-07-01", "H2H A", "H2H B", null,
+                        game(1, "H2H A", "H2H B", null,
+                                stat("h2h_a_mid", "H2H A", "Ahri", 5, 1, 7)),
+                        game(2, "H2H A", "H2H B", null,
+                                stat("h2h_a_mid", "H2H A", "Ahri", 2, 2, 2)))));
+        headToHeadIndex.refresh();
+        int a = teamId("H2H A");
+        int b = teamId("H2H B");
+
+        HeadToHeadIndex.Record before = headToHeadIndex.get(a, b);
+        assertThat(before.series()).isEqualTo(1);
+        assertThat(before.games()).isEqualTo(2);
+        assertThat(before.seriesWinsOf(a)).isZero();
+        assertThat(before.gameWinsOf(a)).isZero();
+
+        // 爬虫事后补录胜者（updated_at 为毫秒精度，与导入错开）
+        Thread.sleep(5);
+        jdbcTemplate.update("UPDATE Matches SET winner_id = ? WHERE tournament_name = ?", a, "H2H Cup");
+        jdbcTemplate.update("UPDATE Games SET winner_id = ? WHERE match_id IN (SELECT id FROM Matches WHERE tournament_name = ?)",
+                a, "H2H Cup");
+        headToHeadIndex.refresh();
+
+        HeadToHeadIndex.Record after = headToHeadIndex.get(a, b);
+        assertThat(after.series()).isEqualTo(1);
+        assertThat(after.games()).isEqualTo(2);
+        assertThat(after.seriesWinsOf(a)).isEqualTo(1);
+        assertThat(after.gameWinsOf(a)).isEqualTo(2);
+        assertThat(after.gameWinsOf(b)).isZero();
+
+        // 未启用时直接查库，结果与索引一致
+        HeadToHeadIndex disabled = new HeadToHeadIndex(jdbcTemplate, eventPublisher, false, 1000, 0);
+        assertThat(disabled.get(b, a)).isEqualTo(after);
+    }
+
+    private int teamId(String name) {
+        return jdbcTemplate.queryForObject("SELECT id FROM Teams WHERE name = ?", Integer.class, name);
+    }
+}
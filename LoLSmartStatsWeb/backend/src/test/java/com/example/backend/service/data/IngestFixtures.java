@@ -0,0 +1,68 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchIngestRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试数据：按导入接口的请求结构拼比赛 -> 对局 -> 选手数据。
+ */
+final class IngestFixtures {
+
+    private IngestFixtures() {}
+
+    static MatchIngestRequest request(boolean replaceExisting, MatchIngestRequest.MatchItem... matches) {
+        MatchIngestRequest req = new MatchIngestRequest();
+        req.setMatches(List.of(matches));
+        req.setReplaceExisting(replaceExisting);
+        return req;
+    }
+
+    static MatchIngestRequest.MatchItem match(String tournament, String stage, String date,
+                                              String team1, String team2, String winner,
+                                              MatchIngestRequest.GameItem... games) {
+        MatchIngestRequest.MatchItem m = new MatchIngestRequest.MatchItem();
+        m.setTournamentName(tournament);
+        m.setStage(stage);
+        m.setMatchDate(date);
+        m.setTeam1(team(team1));
+        m.setTeam2(team(team2));
+        m.setWinner(winner);
+        m.setGames(new ArrayList<>(List.of(games)));
+        return m;
+    }
+
+    static MatchIngestRequest.GameItem game(int number, String blue, String red, String winner,
+                                            MatchIngestRequest.StatItem... stats) {
+        MatchIngestRequest.GameItem g = new MatchIngestRequest.GameItem();
+        g.setGameNumber(number);
+        g.setDuration(1800);
+        g.setBlueTeam(blue);
+        g.setRedTeam(red);
+        g.setWinner(winner);
+        g.setStats(new ArrayList<>(List.of(stats)));
+        return g;
+    }
+
+    static MatchIngestRequest.StatItem stat(String player, String team, String champion, int kills, int deaths, int assists) {
+        MatchIngestRequest.StatItem s = new MatchIngestRequest.StatItem();
+        s.setPlayer(player);
+        s.setTeam(team);
+        s.setPosition("MID");
+        s.setChampionName(champion);
+        s.setKills(kills);
+        s.setDeaths(deaths);
+        s.setAssists(assists);
+        s.setKda(deaths == 0 ? kills + assists : (double) (kills + assists) / deaths);
+        s.setGoldEarned(10000);
+        s.setMinionsKilled(200);
+        return s;
+    }
+
+    private static MatchIngestRequest.TeamRef team(String name) {
+        MatchIngestRequest.TeamRef t = new MatchIngestRequest.TeamRef();
+        t.setName(name);
+        return t;
+    }
+}
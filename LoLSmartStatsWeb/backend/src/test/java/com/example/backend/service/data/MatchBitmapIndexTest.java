@@ -0,0 +1,165 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.DataOptionsRequest;
+import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.dto.response.MatchBrief;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MatchBitmapIndexTest {
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private MatchBitmapIndex matchBitmapIndex;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> ids = new ArrayList<>();
+
+    @BeforeEach
+    void insertCrawlerRows() {
+        // 爬虫直接写库：只有 varchar 的 match_date，match_day 尚未回填
+        String tournament = "Crawl Cup " + System.nanoTime();
+        for (String date : List.of("2026-05-01", "2026/05/02", "2026-05-03 18:00")) {
+            jdbcTemplate.update("INSERT INTO Matches (match_date, tournament_name, stage) VALUES (?, ?, ?)",
+                    date, tournament, "Groups");
+            ids.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM Matches", Integer.class));
+        }
+        dataVersionService.bump();
+        matchBitmapIndex.refresh();
+    }
+
+    @Test
+    void dateRangeUsesMatchDateBeforeBackfill() {
+        MatchSearchRequest req = search(tournamentOf(ids.get(0)));
+        DataOptionsRequest.DateRange range = new DataOptionsRequest.DateRange();
+        range.setFrom("2026-05-02");
+        range.setTo("2026-05-03");
+        req.getFilter().setDateRange(range);
+
+        assertThat(matchIds(matchService.search(req))).containsExactlyInAnyOrder(ids.get(1), ids.get(2));
+    }
+
+    @Test
+    void keysetPagesByDateDescWithoutSkipsOrRepeats() {
+        // 回填只进行了一部分：排序与游标都不能依赖 match_day
+        jdbcTemplate.update("UPDATE Matches SET match_day = ? WHERE id = ?", Date.valueOf("2026-05-02"), ids.get(1));
+        dataVersionService.bump();
+        matchBitmapIndex.refresh();
+
+        MatchSearchRequest req = search(tournamentOf(ids.get(0)));
+        MatchSearchRequest.Sort sort = new MatchSearchRequest.Sort();
+        sort.setField("matchDate");
+        sort.setOrder("desc");
+        req.setSort(sort);
+        req.setPageSize(1);
+        req.setCursor("");
+
+        List<Integer> seen = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> page = matchService.search(req);
+            seen.addAll(matchIds(page));
+            String next = (String) page.get("nextCursor");
+            if (next == null) break;
+            req.setCursor(next);
+        }
+        assertThat(seen).containsExactly(ids.get(2), ids.get(1), ids.get(0));
+    }
+
+    @Test
+    void datePagingWalksDaysInOrderWithUndatedRowsAtTheEdge() {
+        String tournament = tournamentOf(ids.get(0));
+        jdbcTemplate.update("INSERT INTO Matches (match_date, tournament_name, stage) VALUES (?, ?, ?)",
+                "TBD", tournament, "Groups");
+        int undated = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Matches", Integer.class);
+        // 与已有一行同一天：同日内按 id
+        jdbcTemplate.update("INSERT INTO Matches (match_date, tournament_name, stage) VALUES (?, ?, ?)",
+                "2026-05-02", tournament, "Groups");
+        int sameDay = jdbcTemplate.queryForObject("SELECT MAX(id) FROM Matches", Integer.class);
+        dataVersionService.bump();
+        matchBitmapIndex.refresh();
+
+        List<Integer> asc = List.of(undated, ids.get(0), ids.get(1), sameDay, ids.get(2));
+        assertThat(pagesByDate(tournament, "asc", false)).isEqualTo(asc);
+        assertThat(pagesByDate(tournament, "asc", true)).isEqualTo(asc);
+        List<Integer> desc = List.of(ids.get(2), sameDay, ids.get(1), ids.get(0), undated);
+        assertThat(pagesByDate(tournament, "desc", false)).isEqualTo(desc);
+        assertThat(pagesByDate(tournament, "desc", true)).isEqualTo(desc);
+    }
+
+    @Test
+    void editsToExistingRowsAreReindexed() {
+        String oldName = tournamentOf(ids.get(0));
+        String newName = oldName + " Renamed";
+        jdbcTemplate.update("UPDATE Matches SET tournament_name = ? WHERE id = ?", newName, ids.get(0));
+        // 跳过探针节流；版本中的 updated_at 标记让索引发现已有行的修改
+        dataVersionService.bump();
+        matchBitmapIndex.refresh();
+
+        assertThat(matchIds(matchService.search(search(newName)))).containsExactly(ids.get(0));
+        assertThat(matchIds(matchService.search(search(oldName)))).containsExactlyInAnyOrder(ids.get(1), ids.get(2));
+    }
+
+    /** 每页 2 条翻到底：keyset 模式跟 nextCursor，否则按 page 递增 */
+    private List<Integer> pagesByDate(String tournament, String order, boolean keyset) {
+        MatchSearchRequest req = search(tournament);
+        MatchSearchRequest.Sort sort = new MatchSearchRequest.Sort();
+        sort.setField("matchDate");
+        sort.setOrder(order);
+        req.setSort(sort);
+        req.setPageSize(2);
+        if (keyset) req.setCursor("");
+
+        List<Integer> seen = new ArrayList<>();
+        for (int page = 1; page <= 5; page++) {
+            req.setPage(page);
+            Map<String, Object> result = matchService.search(req);
+            List<Integer> got = matchIds(result);
+            seen.addAll(got);
+            if (keyset) {
+                String next = (String) result.get("nextCursor");
+                if (next == null) break;
+                req.setCursor(next);
+            } else if (got.isEmpty()) {
+                break;
+            }
+        }
+        return seen;
+    }
+
+    private String tournamentOf(int id) {
+        return jdbcTemplate.queryForObject("SELECT tournament_name FROM Matches WHERE id = ?", String.class, id);
+    }
+
+    private static MatchSearchRequest search(String tournament) {
+        MatchSearchRequest.Filter f = new MatchSearchRequest.Filter();
+        f.setTournamentName(tournament);
+        MatchSearchRequest req = new MatchSearchRequest();
+        req.setFilter(f);
+        return req;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> matchIds(Map<String, Object> result) {
+        return ((List<MatchBrief>) result.get("items")).stream().map(MatchBrief::matchId).toList();
+    }
+}
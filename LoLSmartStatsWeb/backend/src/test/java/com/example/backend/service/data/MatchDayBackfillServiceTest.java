@@ -0,0 +1,52 @@
+package com.example.backend.service.data;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MatchDayBackfillServiceTest {
+
+    @Autowired
+    private MatchDayBackfillService matchDayBackfillService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void matchDayFollowsMatchDate() throws InterruptedException {
+        // 爬虫直接写库：一行只有 match_date，一行 match_day 与 match_date 不一致
+        int fresh = insert("Backfill Cup", "2026/8/1", null);
+        int stale = insert("Backfill Cup", "2026-08-05", LocalDate.of(2026, 8, 4));
+        matchDayBackfillService.backfill();
+        assertThat(matchDay(fresh)).isEqualTo(LocalDate.of(2026, 8, 1));
+        assertThat(matchDay(stale)).isEqualTo(LocalDate.of(2026, 8, 5));
+
+        // 已扫描过的行事后被改日期（updated_at 为毫秒精度，与上一轮错开）
+        Thread.sleep(5);
+        jdbcTemplate.update("UPDATE Matches SET match_date = ? WHERE id = ?", "2026年8月3日", fresh);
+        jdbcTemplate.update("UPDATE Matches SET match_date = ? WHERE id = ?", "TBD", stale);
+        matchDayBackfillService.backfill();
+        assertThat(matchDay(fresh)).isEqualTo(LocalDate.of(2026, 8, 3));
+        assertThat(matchDay(stale)).isNull();
+    }
+
+    private int insert(String tournament, String matchDate, LocalDate matchDay) {
+        jdbcTemplate.update("INSERT INTO Matches (tournament_name, stage, match_date, match_day) VALUES (?, ?, ?, ?)",
+                tournament, "Groups", matchDate, matchDay == null ? null : Date.valueOf(matchDay));
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM Matches", Integer.class);
+    }
+
+    private LocalDate matchDay(int id) {
+        Date d = jdbcTemplate.queryForObject("SELECT match_day FROM Matches WHERE id = ?", Date.class, id);
+        return d == null ? null : d.toLocalDate();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.dto.response.MatchBrief;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MatchIngestServiceTest {
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private MatchBitmapIndex matchBitmapIndex;
+
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+
+    @Autowired
+    private PlayerStatSnapshot playerStatSnapshot;
+
+    @Autowired
+    private HeadToHeadIndex headToHeadIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestedMatchIsSearchableImmediately() {
+        // 位图索引已加载、版本探针在节流窗口内：导入后的刷新必须看到 bump 之后的新版本
+        matchBitmapIndex.refresh();
+
+        Map<String, Object> out = matchIngestService.ingest(request(false,
+                match("Ingest Cup", "Final", "2026-03-01", "Ingest Red", "Ingest Blue", "Ingest Red",
+                        game(1, "Ingest Red", "Ingest Blue", "Ingest Red",
+                                stat("ingest_mid", "Ingest Red", "Ahri", 5, 1, 7)))));
+        assertThat(out.get("inserted")).isEqualTo(1);
+        Integer matchId = ((List<Integer>) out.get("matchIds")).get(0);
+
+        MatchSearchRequest.Filter f = new MatchSearchRequest.Filter();
+        f.setTournamentName("Ingest Cup");
+        MatchSearchRequest req = new MatchSearchRequest();
+        req.setFilter(f);
+
+        Map<String, Object> result = matchService.search(req);
+        List<MatchBrief> items = (List<MatchBrief>) result.get("items");
+        assertThat(items).extracting(MatchBrief::matchId).containsExactly(matchId);
+        assertThat(items.get(0).gamesCount()).isEqualTo(1);
+        assertThat(result.get("total")).isEqualTo(1L);
+    }
+
+    @Test
+    void replaceDoesNotDoubleCountReplacedRows() {
+        matchIngestService.ingest(request(false,
+                match("Replace Cup", "Final", "2026-04-01", "Replace A", "Replace B", "Replace A",
+                        game(1, "Replace A", "Replace B", "Replace A",
+                                stat("replace_mid", "Replace A", "Ahri", 3, 1, 2)),
+                        game(2, "Replace A", "Replace B", "Replace A",
+                                stat("replace_mid", "Replace A", "Ahri", 4, 0, 1)))));
+        // 旧行已经被聚合、快照、交手索引处理过
+        playerAggregateService.refresh();
+        playerStatSnapshot.refresh();
+        headToHeadIndex.refresh();
+
+        // 覆盖为只有一局、换了英雄
+        Map<String, Object> out = matchIngestService.ingest(request(true,
+                match("Replace Cup", "Final", "2026-04-01", "Replace A", "Replace B", "Replace B",
+                        game(1, "Replace A", "Replace B", "Replace B",
+                                stat("replace_mid", "Replace A", "Syndra", 10, 2, 5)))));
+        assertThat(out.get("replaced")).isEqualTo(1);
+        playerAggregateService.refresh();
+
+        int playerId = jdbcTemplate.queryForObject("SELECT id FROM Players WHERE name = ?", Integer.class, "replace_mid");
+        Map<String, Object> career = jdbcTemplate.queryForMap(
+                "SELECT games, wins, kills FROM player_aggregates WHERE player_id = ? AND scope_type = 'career'", playerId);
+        assertThat(((Number) career.get("games")).intValue()).isEqualTo(1);
+        assertThat(((Number) career.get("wins")).intValue()).isZero();
+        assertThat(((Number) career.get("kills")).longValue()).isEqualTo(10);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM player_aggregates WHERE player_id = ? AND scope_type = 'champion' AND scope_key = 'Ahri'",
+                Integer.class, playerId)).isZero();
+
+        PlayerStatSnapshot.Snapshot snap = playerStatSnapshot.current();
+        int rows = 0;
+        int kills = 0;
+        for (int i = 0; i < snap.size; i++) {
+            if (snap.playerId[i] == playerId) {
+                rows++;
+                kills += snap.kills[i];
+            }
+        }
+        assertThat(rows).isEqualTo(1);
+        assertThat(kills).isEqualTo(10);
+
+        int teamA = jdbcTemplate.queryForObject("SELECT id FROM Teams WHERE name = ?", Integer.class, "Replace A");
+        int teamB = jdbcTemplate.queryForObject("SELECT id FROM Teams WHERE name = ?", Integer.class, "Replace B");
+        HeadToHeadIndex.Record h2h = headToHeadIndex.get(teamA, teamB);
+        assertThat(h2h.series()).isEqualTo(1);
+        assertThat(h2h.games()).isEqualTo(1);
+        assertThat(h2h.seriesWinsOf(teamB)).isEqualTo(1);
+        assertThat(h2h.gameWinsOf(teamA)).isZero();
+    }
+}
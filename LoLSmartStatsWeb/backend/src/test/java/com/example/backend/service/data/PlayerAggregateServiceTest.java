@@ -0,0 +1,70 @@
+package com.example.backend.service.data;
+
+import com.example.backend.entity.PlayerAggregate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PlayerAggregateServiceTest {
+
+    @Autowired
+    private PlayerAggregateService playerAggregateService;
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void appendsNewRowsAndRecomputeConvergesEditedRows() {
+        matchIngestService.ingest(request(false,
+                match("Aggregate Cup", "Groups", "2026-09-01", "Aggregate A", "Aggregate B", "Aggregate A",
+                        game(1, "Aggregate A", "Aggregate B", "Aggregate A",
+                                stat("aggregate_mid", "Aggregate A", "Ahri", 3, 1, 2)))));
+        playerAggregateService.refresh();
+        int playerId = jdbcTemplate.queryForObject("SELECT id FROM Players WHERE name = ?", Integer.class, "aggregate_mid");
+        assertThat(career(playerId)).containsEntry("games", 1).containsEntry("wins", 1).containsEntry("kills", 3L);
+
+        // 增量：新比赛的行追加进来
+        matchIngestService.ingest(request(false,
+                match("Aggregate Cup", "Groups", "2026-09-02", "Aggregate A", "Aggregate B", "Aggregate B",
+                        game(1, "Aggregate A", "Aggregate B", "Aggregate B",
+                                stat("aggregate_mid", "Aggregate A", "Syndra", 4, 2, 1)))));
+        playerAggregateService.refresh();
+        assertThat(career(playerId)).containsEntry("games", 2).containsEntry("wins", 1).containsEntry("kills", 7L);
+
+        // 爬虫直接修正已累加的行：增量不会回溯
+        jdbcTemplate.update("UPDATE PlayerGameStats SET kills = 10 WHERE player_id = ? AND champion_name = ?", playerId, "Ahri");
+        playerAggregateService.refresh();
+        assertThat(career(playerId)).containsEntry("kills", 7L);
+
+        // 重算后收敛，且之后的增量不会重复计入
+        assertThat(playerAggregateService.recompute()).isGreaterThanOrEqualTo(2);
+        assertThat(career(playerId)).containsEntry("games", 2).containsEntry("wins", 1).containsEntry("kills", 14L);
+        assertThat(playerAggregateService.refresh()).isZero();
+        assertThat(career(playerId)).containsEntry("games", 2).containsEntry("kills", 14L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT kills FROM player_aggregates WHERE player_id = ? AND scope_type = ? AND scope_key = ?",
+                Long.class, playerId, PlayerAggregate.SCOPE_CHAMPION, "Ahri")).isEqualTo(10L);
+    }
+
+    private Map<String, Object> career(int playerId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT games, wins, kills FROM player_aggregates WHERE player_id = ? AND scope_type = ? AND scope_key = ?",
+                (rs, i) -> Map.of("games", rs.getInt(1), "wins", rs.getInt(2), "kills", rs.getLong(3)),
+                playerId, PlayerAggregate.SCOPE_CAREER, "");
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.backend.service.data;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PlayerStatSnapshotTest {
+
+    @Autowired
+    private PlayerStatSnapshot playerStatSnapshot;
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void editsToLoadedGamesAndMatchesAreResynced() throws InterruptedException {
+        Map<String, Object> out = matchIngestService.ingest(request(false,
+                match("Snapshot Cup", "Groups", "2026-06-01", "Snapshot A", "Snapshot B", null,
+                        game(1, "Snapshot A", "Snapshot B", null,
+                                stat("snapshot_a_mid", "Snapshot A", "Ahri", 5, 1, 7)))));
+        int matchId = ((List<Integer>) out.get("matchIds")).get(0);
+        // 模拟回填之前的存量行：match_day 为空
+        jdbcTemplate.update("UPDATE Matches SET match_day = NULL WHERE id = ?", matchId);
+        playerStatSnapshot.refresh();
+
+        PlayerStatSnapshot.Snapshot before = playerStatSnapshot.current();
+        int row = rowOf(before, matchId);
+        assertThat(before.day[row]).isEqualTo((int) LocalDate.of(2026, 6, 1).toEpochDay());
+        assertThat(before.win[row]).isEqualTo(PlayerStatSnapshot.WIN_UNKNOWN);
+
+        // 爬虫事后补录胜者、修正日期和阶段（updated_at 为毫秒精度，与导入错开）
+        Thread.sleep(5);
+        Integer teamA = jdbcTemplate.queryForObject("SELECT id FROM Teams WHERE name = ?", Integer.class, "Snapshot A");
+        jdbcTemplate.update("UPDATE Games SET winner_id = ? WHERE match_id = ?", teamA, matchId);
+        jdbcTemplate.update("UPDATE Matches SET match_date = ?, stage = ? WHERE id = ?", "2026-06-02", "Playoffs", matchId);
+        playerStatSnapshot.refresh();
+
+        PlayerStatSnapshot.Snapshot after = playerStatSnapshot.current();
+        assertThat(after.version).isGreaterThan(before.version);
+        assertThat(after.win[row]).isEqualTo(PlayerStatSnapshot.WIN);
+        assertThat(after.day[row]).isEqualTo((int) LocalDate.of(2026, 6, 2).toEpochDay());
+        assertThat(after.stageNames[after.stage[row]]).isEqualTo("Playoffs");
+        // 已发布的快照不被原地修改
+        assertThat(before.win[row]).isEqualTo(PlayerStatSnapshot.WIN_UNKNOWN);
+        assertThat(before.stageNames[before.stage[row]]).isEqualTo("Groups");
+
+        // 没有新的修改：不再重读、不再发布新版本
+        playerStatSnapshot.refresh();
+        assertThat(playerStatSnapshot.current().version).isEqualTo(after.version);
+    }
+
+    @Test
+    void requireFailsWhenDisabled() {
+        PlayerStatSnapshot disabled = new PlayerStatSnapshot(jdbcTemplate, eventPublisher, false, 1000, 0);
+        assertThatThrownBy(disabled::require).isInstanceOf(IllegalStateException.class);
+        assertThat(disabled.current().isLoaded()).isFalse();
+    }
+
+    private static int rowOf(PlayerStatSnapshot.Snapshot snap, int matchId) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < snap.size; i++) {
+            if (snap.matchId[i] == matchId) rows.add(i);
+        }
+        assertThat(rows).hasSize(1);
+        return rows.get(0);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.backend.service.data;
+
+import com.example.backend.dto.request.DataOptionsRequest;
+import com.example.backend.dto.request.MatchSearchRequest;
+import com.example.backend.repository.ChatMessageRepository;
+import com.example.backend.repository.ChatSessionRepository;
+import com.example.backend.repository.GameRepository;
+import com.example.backend.repository.PlayerAggregateRepository;
+import com.example.backend.repository.PlayerGameStatRepository;
+import com.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.example.backend.service.data.IngestFixtures.game;
+import static com.example.backend.service.data.IngestFixtures.match;
+import static com.example.backend.service.data.IngestFixtures.request;
+import static com.example.backend.service.data.IngestFixtures.stat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * 对真实执行的查询跑 EXPLAIN，核对执行计划确实用到了索引（{@link IndexVerifier} 只看索引是否存在）。
+ * <p>
+ * 用 H2 的 QUERY_STATISTICS 记下调用期间实际发出的 SQL（Hibernate 生成的或服务里的 native SQL），
+ * 再逐条 EXPLAIN，要求目标表至少有一处访问走了以期望列开头的索引。H2 的优化器与 MySQL 不同，
+ * 这里只覆盖两边都应当走索引的等值 / IN / 范围 / MAX 查询；全表加载（快照、位图索引的首次加载）
+ * 与 LIKE '%..%' 这类本来就扫表的查询不在此列。增量刷新的 updated_at > ? AND id <= ? 同时有两个范围条件，
+ * H2 不按参数值估算范围大小、总是选主键，MySQL 按实际值估算会选 updated_at，这类也不在此校验。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    /** 计划里每处表访问形如 FROM "public"."games" "g1_0"，紧跟一段注释写明所用索引（全表扫描为 public.games.tableScan） */
+    private static final String TABLE_ACCESS = "\"public\"\\.\"%s\"(?:\\s+\"[^\"]+\")?\\s*/\\*\\s*public\\.([\\w.]+)";
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private PlayerGameStatRepository playerGameStatRepository;
+
+    @Autowired
+    private PlayerAggregateRepository playerAggregateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MatchIngestService matchIngestService;
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private DataOptionsService dataOptionsService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private HeadToHeadIndex headToHeadIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        int matchId = ingestOne("Plan Repo");
+        int gameId = jdbcTemplate.queryForObject("SELECT id FROM Games WHERE match_id = ?", Integer.class, matchId);
+        Instant now = Instant.now();
+
+        assertIndexed(() -> gameRepository.findByMatchIdOrderByGameNumberAsc(matchId), "Games", "match_id");
+        assertIndexed(() -> gameRepository.countByMatchId(matchId), "Games", "match_id");
+        assertIndexed(() -> gameRepository.countGroupByMatchIdIn(List.of(matchId, matchId + 1)), "Games", "match_id");
+        assertIndexed(() -> playerGameStatRepository.findByGameId(gameId), "PlayerGameStats", "game_id");
+        assertIndexed(() -> playerGameStatRepository.findByGameIdIn(List.of(gameId, gameId + 1)), "PlayerGameStats", "game_id");
+        assertIndexed(() -> playerAggregateRepository.findByPlayerId(1), "player_aggregates", "player_id");
+
+        assertIndexed(() -> userRepository.findByEmail("plan@example.com"), "users", "email");
+        assertIndexed(() -> userRepository.existsByEmail("plan@example.com"), "users", "email");
+
+        PageRequest page = PageRequest.of(0, 20);
+        assertIndexed(() -> chatSessionRepository.findByUserIdOrderByUpdatedAtDesc("u", page), "chat_sessions", "user_id");
+        assertIndexed(() -> chatSessionRepository.findByUserIdAndStatusOrderByUpdatedAtDesc("u", "active", page),
+                "chat_sessions", "user_id");
+        assertIndexed(() -> chatSessionRepository.findByUserIdAndUpdatedAtBetweenOrderByUpdatedAtDesc("u", now, now, page),
+                "chat_sessions", "user_id");
+        assertIndexed(() -> chatSessionRepository.findByUserIdAndStatusAndUpdatedAtBetweenOrderByUpdatedAtDesc(
+                "u", "active", now, now, page), "chat_sessions", "user_id");
+        assertIndexed(() -> chatMessageRepository.findBySessionIdOrderByCreatedAtAsc("s", page), "chat_messages", "session_id");
+        assertIndexed(() -> chatMessageRepository.findFirstBySessionIdAndTurnIdAndRole("s", "t", "assistant"),
+                "chat_messages", "session_id", "turn_id");
+        assertIndexed(() -> chatMessageRepository.findFirstBySessionIdAndReportFileIdIsNotNullAndReportFileId("s", "f"),
+                "chat_messages", "session_id", "report_file_id");
+        assertIndexed(() -> chatMessageRepository.findFirstByReportFileId("f"), "chat_messages", "report_file_id");
+    }
+
+    @Test
+    void serviceQueriesUseIndexes() throws InterruptedException {
+        // 导入：按名字查队伍 / 选手，按 (team1_id, team2_id) 找已有比赛
+        List<String> ingest = selectsDuring(() -> ingestOne("Plan Ingest"));
+        assertIndexed(only(ingest, "name in"), "Teams", "name");
+        assertIndexed(only(ingest, "name in"), "Players", "name");
+        assertIndexed(only(ingest, "(team1_id, team2_id) in"), "Matches", "team1_id");
+
+        // 版本探针：MAX(updated_at)；bump 让探针跳过节流窗口真正查库
+        assertIndexed(selectsDuring(() -> {
+            dataVersionService.bump();
+            dataVersionService.current();
+        }), "Matches", "updated_at");
+
+        // 交手索引增量：改动过的比赛按队伍对重算
+        int matchId = ingestOne("Plan H2H");
+        headToHeadIndex.refresh();
+        Thread.sleep(5);
+        jdbcTemplate.update("UPDATE Matches SET winner_id = team2_id WHERE id = ?", matchId);
+        List<String> h2h = selectsDuring(headToHeadIndex::refresh);
+        assertIndexed(only(h2h, "(team1_id, team2_id) in"), "Matches", "team1_id");
+        assertIndexed(only(h2h, "from games where match_id in"), "Games", "match_id");
+
+        // 筛选项：DISTINCT tournament_name / stage
+        DataOptionsRequest options = new DataOptionsRequest();
+        options.setNeed(List.of("tournaments", "stages"));
+        List<String> distinct = selectsDuring(() -> dataOptionsService.options(options));
+        assertIndexed(only(distinct, "tournament_name"), "Matches", "tournament_name");
+        assertIndexed(only(distinct, "distinct stage"), "Matches", "stage");
+
+        // 搜索：位图索引命中后按 id 回库取当页
+        MatchSearchRequest search = new MatchSearchRequest();
+        assertIndexed(only(selectsDuring(() -> matchService.search(search)), "m.id in"), "Matches", "id");
+    }
+
+    @Test
+    void searchFallbackFiltersUseIndexes() {
+        // 位图索引不可用时 MatchService 按 MatchFilterSql 拼 SQL；与其 COUNT / 列表查询同形
+        MatchSearchRequest.Filter byTournament = new MatchSearchRequest.Filter();
+        byTournament.setTournamentName("Plan Cup");
+        byTournament.setStage("Final");
+        assertIndexed(fallbackSql(byTournament, "m.id DESC"), "Matches", "tournament_name");
+
+        MatchSearchRequest.Filter byDay = new MatchSearchRequest.Filter();
+        DataOptionsRequest.DateRange range = new DataOptionsRequest.DateRange();
+        range.setFrom("2026-01-01");
+        range.setTo("2026-02-01");
+        byDay.setDateRange(range);
+        assertIndexed(fallbackSql(byDay, "m.match_day DESC, m.id DESC"), "Matches", "match_day");
+    }
+
+    private int ingestOne(String tag) {
+        Map<String, Object> out = matchIngestService.ingest(request(false,
+                match(tag + " Cup", "Final", "2026-05-01", tag + " Red", tag + " Blue", tag + " Red",
+                        game(1, tag + " Red", tag + " Blue", tag + " Red",
+                                stat(tag + " mid", tag + " Red", "Ahri", 3, 1, 4)))));
+        @SuppressWarnings("unchecked")
+        List<Integer> ids = (List<Integer>) out.get("matchIds");
+        return ids.get(0);
+    }
+
+    private List<String> fallbackSql(MatchSearchRequest.Filter f, String orderBy) {
+        MatchFilterSql filter = MatchFilterSql.of(f, "m.match_day", true);
+        String where = filter.where.toString().replaceAll(":\\w+", "?");
+        return List.of(
+                "SELECT COUNT(1) FROM Matches m " + where,
+                "SELECT m.id, m.match_date, m.tournament_name, m.stage, m.team1_id, m.team2_id, m.winner_id, m.match_day " +
+                        "FROM Matches m " + where + " ORDER BY " + orderBy + " LIMIT ?");
+    }
+
+    private void assertIndexed(Runnable action, String table, String... leadingAnyOf) {
+        assertIndexed(selectsDuring(action), table, leadingAnyOf);
+    }
+
+    /**
+     * 每条涉及 table 的 SELECT：计划中至少有一处对 table 的访问走了以 leadingAnyOf 之一开头的索引。
+     */
+    private void assertIndexed(List<String> selects, String table, String... leadingAnyOf) {
+        Pattern from = Pattern.compile("\\b(from|join)\\s+" + table.toLowerCase(Locale.ROOT) + "\\b");
+        List<String> checked = new ArrayList<>();
+        for (String sql : selects) {
+            if (!from.matcher(sql.toLowerCase(Locale.ROOT)).find()) continue;
+            checked.add(sql);
+            String plan = explain(sql);
+            List<String> leading = leadingColumns(plan, table.toLowerCase(Locale.ROOT));
+            boolean ok = false;
+            for (String want : leadingAnyOf) {
+                ok |= leading.contains(normalize(want));
+            }
+            if (!ok) {
+                fail("no index led by %s on %s (used: %s)%nSQL: %s%nPLAN: %s",
+                        List.of(leadingAnyOf), table, leading, sql, plan);
+            }
+        }
+        assertThat(checked).as("SELECT on %s", table).isNotEmpty();
+    }
+
+    /**
+     * 调用期间发出的 SELECT（H2 QUERY_STATISTICS 记录的原始 SQL，参数仍是 ?）。
+     */
+    private List<String> selectsDuring(Runnable action) {
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        List<String> sql;
+        try {
+            action.run();
+            sql = jdbcTemplate.queryForList("SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS", String.class);
+        } finally {
+            jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        }
+        List<String> selects = new ArrayList<>();
+        for (String s : sql) {
+            String lower = s.trim().toLowerCase(Locale.ROOT);
+            if (lower.startsWith("select") && !lower.contains("information_schema")) selects.add(s);
+        }
+        return selects;
+    }
+
+    private static List<String> only(List<String> selects, String fragment) {
+        List<String> out = new ArrayList<>();
+        for (String s : selects) {
+            if (s.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").contains(fragment)) out.add(s);
+        }
+        return out;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + sql);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+    }
+
+    /**
+     * 计划里对 table 的每处访问所用索引的首列；全表扫描记为 "tableScan"。
+     */
+    private List<String> leadingColumns(String plan, String table) {
+        List<String> out = new ArrayList<>();
+        Matcher m = Pattern.compile(String.format(TABLE_ACCESS, Pattern.quote(table))).matcher(plan);
+        while (m.find()) {
+            String index = m.group(1);
+            if (index.endsWith(".tableScan")) {
+                out.add("tableScan");
+                continue;
+            }
+            List<String> cols = jdbcTemplate.queryForList(
+                    "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS " +
+                            "WHERE LOWER(TABLE_NAME) = ? AND LOWER(INDEX_NAME) = ? ORDER BY ORDINAL_POSITION",
+                    String.class, table, index.toLowerCase(Locale.ROOT));
+            out.add(cols.isEmpty() ? index : normalize(cols.get(0)));
+        }
+        return out;
+    }
+
+    /** 测试库按字段名建列（userId），线上按下划线（user_id），比较时忽略下划线 */
+    private static String normalize(String column) {
+        return column.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
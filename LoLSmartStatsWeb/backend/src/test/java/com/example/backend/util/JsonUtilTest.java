@@ -0,0 +1,98 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonUtilTest {
+
+    @Test
+    void plainDelta() throws IOException {
+        assertThat(JsonUtil.extractDelta("{\"delta\":\"hello\"}")).isEqualTo("hello");
+        assertThat(bytes("{\"delta\":\"hello\"}")).isEqualTo("hello");
+    }
+
+    @Test
+    void escapedDelta() throws IOException {
+        String json = "{\"delta\":\"say \\\"hi\\\"\\n\\tC:\\\\dir\\/x\"}";
+        assertThat(JsonUtil.extractDelta(json)).isEqualTo("say \"hi\"\n\tC:\\dir/x");
+        assertThat(bytes(json)).isEqualTo("say \"hi\"\n\tC:\\dir/x");
+    }
+
+    @Test
+    void unicodeDelta() throws IOException {
+        // \\u 转义、原始 UTF-8 多字节字符、代理对（emoji）
+        String escaped = "{\"delta\":\"\\u4f60\\u597d \\ud83d\\ude00\"}";
+        String raw = "{\"delta\":\"你好 😀\"}";
+        assertThat(JsonUtil.extractDelta(escaped)).isEqualTo("你好 😀");
+        assertThat(bytes(escaped)).isEqualTo("你好 😀");
+        assertThat(JsonUtil.extractDelta(raw)).isEqualTo("你好 😀");
+        assertThat(bytes(raw)).isEqualTo("你好 😀");
+    }
+
+    @Test
+    void deltaNotFirstField() throws IOException {
+        String json = "{\"id\":1,\"meta\":{\"delta\":\"nested\",\"list\":[1,{\"delta\":\"x\"}]},\"tags\":[\"a\"],\"delta\":\"top\",\"after\":true}";
+        assertThat(JsonUtil.extractDelta(json)).isEqualTo("top");
+        assertThat(bytes(json)).isEqualTo("top");
+    }
+
+    @Test
+    void missingOrNullDelta() throws IOException {
+        assertThat(JsonUtil.extractDelta("{}")).isNull();
+        assertThat(JsonUtil.extractDelta("{\"text\":\"hello\",\"meta\":{\"delta\":\"nested\"}}")).isNull();
+        assertThat(JsonUtil.extractDelta("{\"delta\":null}")).isNull();
+        assertThat(bytes("{\"text\":\"hello\"}")).isNull();
+    }
+
+    @Test
+    void nonStringDelta() throws IOException {
+        assertThat(JsonUtil.extractDelta("{\"delta\":42}")).isEqualTo("42");
+        assertThat(JsonUtil.extractDelta("{\"delta\":true}")).isEqualTo("true");
+        assertThat(JsonUtil.extractDelta("{\"delta\":{\"a\":[1,2]}}")).isEqualTo("{\"a\":[1,2]}");
+        assertThat(JsonUtil.extractDelta("{\"delta\":[\"x\",null]}")).isEqualTo("[\"x\",null]");
+    }
+
+    @Test
+    void nonObjectPayloadThrows() {
+        for (String json : new String[]{"[\"delta\"]", "\"delta\"", "42", "null", ""}) {
+            assertThatThrownBy(() -> JsonUtil.extractDelta(json)).as(json).isInstanceOf(IOException.class);
+            assertThatThrownBy(() -> bytes(json)).as(json).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void malformedObjectThrows() {
+        assertThatThrownBy(() -> JsonUtil.extractDelta("{\"text\":\"a\"")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> JsonUtil.extractDelta("{\"text\" \"a\"}")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> bytes("{\"text\":")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void byteOverloadOnlyReadsGivenRange() throws IOException {
+        // SSE 帧里 data 行前后还有别的字节：只解析 [offset, offset + len)
+        String frame = "event: token\ndata: {\"delta\":\"你好\"}\n\n";
+        byte[] all = frame.getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = "event: token\ndata: ".getBytes(StandardCharsets.UTF_8);
+        byte[] payload = "{\"delta\":\"你好\"}".getBytes(StandardCharsets.UTF_8);
+        assertThat(JsonUtil.extractDelta(all, prefix.length, payload.length)).isEqualTo("你好");
+
+        // 范围截断在对象中间：视为不合法
+        assertThatThrownBy(() -> JsonUtil.extractDelta(all, prefix.length, payload.length - 2))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static String bytes(String json) throws IOException {
+        // 前后加上无关字节，确认 offset/length 生效
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        byte[] buf = new byte[body.length + 8];
+        Arrays.fill(buf, (byte) 'x');
+        System.arraycopy(body, 0, buf, 4, body.length);
+        return JsonUtil.extractDelta(buf, 4, body.length);
+    }
+}